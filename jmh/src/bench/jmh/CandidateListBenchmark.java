@@ -0,0 +1,143 @@
+package bench.jmh;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import utils.CandidateRegistry;
+import utils.DataManager;
+
+/**
+ * Screen refresh reads of the candidate list: getAllCandidates and
+ * getVotingResults as DataManager built them on every call, from a map of
+ * ID to [name, party] and an ID order list, versus the cached strings of
+ * CandidateRegistry, and the results read by index as the panels now do.
+ *
+ * The old and new outputs are first checked to be identical, including
+ * after a candidate is added. Each operation returns only the size of what
+ * it built, so consuming the result is not part of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandidateListBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int candidates;
+
+    private File dir;
+    private DataManager dataManager;
+    private Legacy legacy;
+
+    @Setup(Level.Trial)
+    public void openCandidates() throws IOException {
+        dir = File.createTempFile("candidate-jmh", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+        writeCandidates(new File(dir, "candidates.txt"), candidates);
+        dataManager = VotingFixture.open(dir);
+        legacy = new Legacy(new File(dir, "candidates.txt"));
+        check();
+
+        dataManager.addCandidate("NEW", "Late Entry", "Independent");
+        legacy.add("NEW", "Late Entry", "Independent");
+        check();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeCandidates() {
+        dataManager.shutdown();
+        VotingFixture.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public int getAllCandidatesRebuilt() {
+        return legacy.allCandidates().size();
+    }
+
+    @Benchmark
+    public int getAllCandidatesRegistry() {
+        return dataManager.getAllCandidates().size();
+    }
+
+    @Benchmark
+    public int getVotingResultsRebuilt() {
+        return legacy.votingResults(dataManager.getVoteCounts()).size();
+    }
+
+    @Benchmark
+    public int getVotingResultsRegistry() {
+        return dataManager.getVotingResults().size();
+    }
+
+    @Benchmark
+    public long registryAndVoteCounts() {
+        CandidateRegistry registry = dataManager.getCandidateRegistry();
+        long[] counts = dataManager.getVoteCounts();
+        return registry.getResultLabel(counts.length - 1).length() + counts[0];
+    }
+
+    private void check() {
+        if (!legacy.allCandidates().equals(dataManager.getAllCandidates()) ||
+            !legacy.votingResults(dataManager.getVoteCounts()).equals(dataManager.getVotingResults())) {
+            throw new IllegalStateException("Candidate strings differ from the rebuilt ones");
+        }
+    }
+
+    private static void writeCandidates(File file, int count) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("# Candidates Database");
+            for (int i = 0; i < count; i++) {
+                out.println("C" + i + ":Candidate Number " + i + ":Party " + (i % 7));
+            }
+        }
+    }
+
+    /**
+     * The candidate maps and per-call formatting DataManager used before CandidateRegistry
+     */
+    private static class Legacy {
+        private final Map<String, String[]> candidates = new HashMap<>();
+        private final List<String> candidateOrder = new ArrayList<>();
+
+        Legacy(File candidatesFile) throws IOException {
+            try (BufferedReader reader = new BufferedReader(new FileReader(candidatesFile))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split(":");
+                    if (!line.startsWith("#") && parts.length >= 3) {
+                        add(parts[0], parts[1], parts[2]);
+                    }
+                }
+            }
+        }
+
+        void add(String id, String name, String party) {
+            if (candidates.put(id, new String[]{name, party}) == null) {
+                candidateOrder.add(id);
+            }
+        }
+
+        List<String> allCandidates() {
+            List<String> candidateList = new ArrayList<>();
+            for (String id : candidateOrder) {
+                String[] info = candidates.get(id);
+                candidateList.add(id + " - " + info[0] + " (" + info[1] + ")");
+            }
+            return candidateList;
+        }
+
+        Map<String, Integer> votingResults(long[] counts) {
+            Map<String, Integer> results = new HashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                String[] info = candidates.get(candidateOrder.get(i));
+                results.put(info[0] + " (" + info[1] + ")", (int) counts[i]);
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package bench.jmh;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import utils.DataManager;
+import utils.VotingSecurityManager;
+
+/**
+ * Regression suite for the vote hot path at several electorate sizes.
+ *
+ * Measures DataManager.recordVote, hasVoterVoted, getVotingResults and
+ * logActivity, and VotingSecurityManager.authenticateVoter and
+ * isValidAadhaarID against a data directory with the given number of
+ * registered voters, from 10^3 up to the full 10^8 ID space. Up to 2^20
+ * IDs spread over the roll are kept in memory; the lookups cycle through
+ * them with half of them marked as voted, and recordVote casts one ballot
+ * per ID, starting a new session once every sampled voter has voted.
+ *
+ * Console output of the measured code is discarded.
+ *
+ * Run under JMH directly, or through main() to save results as CSV and
+ * compare them against an earlier run; any benchmark slower than the
+ * baseline by more than the threshold is reported and makes the run exit
+ * with status 1.
+ *
+ * Usage: java -cp benchmarks.jar bench.jmh.HotPathBenchmark [--sizes 1000,100000,1000000]
+ *            [--iterations 5] [--millis 1000] [--csv results.csv] [--baseline previous.csv]
+ *            [--threshold 0.10]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HotPathBenchmark {
+
+    private static final int SAMPLE_SIZE = 1 << 20;
+
+    @Param({"1000", "100000", "1000000"})
+    public int voters;
+
+    private File dir;
+    private DataManager dataManager;
+    private VotingSecurityManager securityManager;
+    private String[] ids;
+    private int next;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void openElection(BenchmarkParams params) throws Exception {
+        dir = VotingFixture.createDataDir(voters);
+        dataManager = VotingFixture.open(dir);
+        securityManager = new VotingSecurityManager();
+        securityManager.setDataManager(dataManager);
+        ids = VotingFixture.sampleIds(voters, SAMPLE_SIZE);
+
+        console = System.out;
+        System.setOut(VotingFixture.discard());
+
+        // Lookups see a half-voted electorate; recordVote starts from a fresh session
+        if (!params.getBenchmark().endsWith(".recordVote")) {
+            voteEveryOther();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeElection() {
+        dataManager.shutdown();
+        System.setOut(console);
+        VotingFixture.deleteRecursively(dir);
+    }
+
+    /**
+     * Cast ballots for every other sampled voter from many threads so group commit keeps setup short
+     */
+    private void voteEveryOther() throws Exception {
+        int threads = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int first = t * 2;
+            results.add(pool.submit(() -> {
+                for (int i = first; i < ids.length; i += threads * 2) {
+                    dataManager.recordVote(ids[i], VotingFixture.CANDIDATES[i % VotingFixture.CANDIDATES.length]);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        pool.shutdown();
+    }
+
+    private String nextId() {
+        String id = ids[next];
+        next = next + 1 == ids.length ? 0 : next + 1;
+        return id;
+    }
+
+    @Benchmark
+    public boolean isValidAadhaarID() {
+        return securityManager.isValidAadhaarID(nextId());
+    }
+
+    @Benchmark
+    public boolean authenticateVoter() {
+        return securityManager.authenticateVoter(nextId());
+    }
+
+    @Benchmark
+    public boolean hasVoterVoted() {
+        return dataManager.hasVoterVoted(nextId());
+    }
+
+    @Benchmark
+    public Map<String, Integer> getVotingResults() {
+        return dataManager.getVotingResults();
+    }
+
+    @Benchmark
+    public void logActivity() {
+        dataManager.logActivity("VOTE_CAST", nextId(), "Vote cast for candidate: C1");
+    }
+
+    /**
+     * One durable ballot per call. With small rolls the session is cleared
+     * inside the measurement once every sampled voter has voted; that is one
+     * rewrite of the session files per sample, next to as many journal syncs.
+     */
+    @Benchmark
+    public boolean recordVote() throws IOException {
+        if (next == 0 && dataManager.getTotalVotes() > 0) {
+            dataManager.clearVotingData();
+        }
+        int voter = next;
+        return dataManager.recordVote(nextId(), VotingFixture.CANDIDATES[voter % VotingFixture.CANDIDATES.length]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String sizes = "1000,100000,1000000";
+        int iterations = 5;
+        long millis = 1000;
+        File csv = null;
+        File baselineFile = null;
+        double threshold = 0.10;
+
+        for (int i = 0; i < args.length - 1; i++) {
+            switch (args[i]) {
+                case "--sizes": sizes = args[++i]; break;
+                case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "--millis": millis = Long.parseLong(args[++i]); break;
+                case "--csv": csv = new File(args[++i]); break;
+                case "--baseline": baselineFile = new File(args[++i]); break;
+                case "--threshold": threshold = Double.parseDouble(args[++i]); break;
+                default: break;
+            }
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+            .include(HotPathBenchmark.class.getName() + "\\.")
+            .param("voters", sizes.split(","))
+            .warmupIterations(Math.max(1, iterations / 2))
+            .warmupTime(TimeValue.milliseconds(millis))
+            .measurementIterations(iterations)
+            .measurementTime(TimeValue.milliseconds(millis));
+        if (csv != null) {
+            options.result(csv.getPath()).resultFormat(ResultFormatType.CSV);
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        if (baselineFile != null && compare(results, readCsv(baselineFile), threshold) > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Report benchmarks slower than the baseline; returns how many regressed
+     */
+    private static int compare(Collection<RunResult> results, Map<String, Double> baseline, double threshold) {
+        int regressions = 0;
+        System.out.println();
+        System.out.printf("Compared with baseline (threshold %.0f%%):%n", threshold * 100);
+        for (RunResult result : results) {
+            String name = result.getParams().getBenchmark();
+            String size = result.getParams().getParam("voters");
+            Double previous = baseline.get(name + "@" + size);
+            if (previous == null) {
+                continue;
+            }
+            double change = result.getPrimaryResult().getScore() / previous - 1;
+            boolean regressed = change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-22s %12s %+8.1f%% %s%n", name.substring(name.lastIndexOf('.') + 1), size,
+                              change * 100, regressed ? "REGRESSION" : "");
+        }
+        System.out.println(regressions == 0 ? "No regressions" : regressions + " regression(s)");
+        return regressions;
+    }
+
+    /**
+     * Scores of a JMH CSV result file, keyed by "benchmark@voters"
+     */
+    private static Map<String, Double> readCsv(File file) throws IOException {
+        Map<String, Double> baseline = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            List<String> header = csvFields(reader.readLine());
+            int benchmark = header.indexOf("Benchmark");
+            int score = header.indexOf("Score");
+            int voters = header.indexOf("Param: voters");
+            if (benchmark < 0 || score < 0 || voters < 0) {
+                throw new IOException("Not a HotPathBenchmark CSV result file: " + file);
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = csvFields(line);
+                if (fields.size() == header.size()) {
+                    baseline.put(fields.get(benchmark) + "@" + fields.get(voters),
+                                 Double.parseDouble(fields.get(score)));
+                }
+            }
+        }
+        return baseline;
+    }
+
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        if (line == null) {
+            return fields;
+        }
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,90 @@
+package bench.jmh;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import utils.PasswordDigests;
+
+/**
+ * Admin password verification: the per-call MessageDigest lookup and
+ * Integer.toHexString encoding VotingSecurityManager used to do versus
+ * PasswordDigests.
+ *
+ * The old and new hashes are first checked to be identical on a set of
+ * generated passwords. bench.PasswordHashBenchmark sweeps PBKDF2
+ * iteration counts against a login latency budget.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordDigestBenchmark {
+
+    private String[] passwords;
+    private String stored;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createPasswords() throws Exception {
+        passwords = passwords(1000);
+        for (String password : passwords) {
+            String hash = legacyHash(password);
+            if (!hash.equals(PasswordDigests.hash(password, 0)) || !PasswordDigests.verify(password, hash)
+                    || PasswordDigests.verify(password + "x", hash)) {
+                throw new IllegalStateException("Hashes differ for " + password);
+            }
+        }
+        stored = PasswordDigests.hash("admin123", 0);
+    }
+
+    private String nextPassword() {
+        String password = passwords[next];
+        next = next + 1 == passwords.length ? 0 : next + 1;
+        return password;
+    }
+
+    @Benchmark
+    public boolean sha256GetInstanceToHex() throws Exception {
+        return legacyHash(nextPassword()).equals(stored);
+    }
+
+    @Benchmark
+    public boolean sha256CachedTable() {
+        return PasswordDigests.verify(nextPassword(), stored);
+    }
+
+    /**
+     * The hash as VotingSecurityManager computed it before PasswordDigests
+     */
+    private static String legacyHash(String password) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        byte[] hash = md.digest(password.getBytes("UTF-8"));
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+
+    private static String[] passwords(int count) {
+        Random random = new Random(42);
+        String alphabet = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!@#$%é€";
+        String[] passwords = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder password = new StringBuilder();
+            int length = 1 + random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                password.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            passwords[i] = password.toString();
+        }
+        return passwords;
+    }
+}
@@ -0,0 +1,83 @@
+package bench.jmh;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import utils.VoterPseudonymizer;
+import utils.VoterRegistry;
+
+/**
+ * Cost of deriving the voter pseudonym on the vote path: the legacy hash
+ * code versus keyed HMAC-SHA256 pseudonyms derived on every vote, cached at
+ * authentication for the voter's session, and precomputed for the roll.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PseudonymDerivationBenchmark {
+
+    // Voters authenticated at once, as a booth would hold them
+    private static final int SESSION_WINDOW = 10_000;
+
+    @Param({"1000000"})
+    public int voters;
+
+    private int[] ids;
+    private String[] idText;
+    private VoterPseudonymizer cold;
+    private VoterPseudonymizer cached;
+    private VoterPseudonymizer precomputed;
+    private int window;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void deriveKeys() {
+        ids = new int[voters];
+        idText = new String[voters];
+        for (int i = 0; i < voters; i++) {
+            ids[i] = VotingFixture.voterId(i);
+            idText[i] = VoterRegistry.formatId(ids[i]);
+        }
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        cold = new VoterPseudonymizer(key);
+        cached = new VoterPseudonymizer(key);
+        precomputed = new VoterPseudonymizer(key);
+        precomputed.precompute(ids);
+
+        window = Math.min(voters, SESSION_WINDOW);
+        for (int i = 0; i < window; i++) {
+            cached.beginSession(ids[i]);
+        }
+    }
+
+    private int nextIndex(int limit) {
+        int index = next < limit ? next : 0;
+        next = index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public String legacyHashCode() {
+        return VoterPseudonymizer.legacyPseudonym(idText[nextIndex(voters)]);
+    }
+
+    @Benchmark
+    public String hmacPerVote() {
+        return cold.pseudonym(ids[nextIndex(voters)]);
+    }
+
+    @Benchmark
+    public String hmacSessionCached() {
+        return cached.pseudonym(ids[nextIndex(window)]);
+    }
+
+    @Benchmark
+    public String hmacPrecomputed() {
+        return precomputed.pseudonym(ids[nextIndex(voters)]);
+    }
+}
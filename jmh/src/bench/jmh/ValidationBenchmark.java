@@ -0,0 +1,227 @@
+package bench.jmh;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.*;
+import utils.InputValidator;
+
+/**
+ * Input validation: the regex and String.contains/replaceAll checks that
+ * VotingSecurityManager used to run versus the single-pass InputValidator.
+ *
+ * Every pair is first checked for identical verdicts on a generated corpus
+ * of valid, malformed and hostile inputs; the trial fails on any mismatch.
+ * The timings cover the checks only, without security event logging.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    // The checks as they were before InputValidator
+    private static final Pattern AADHAAR_PATTERN = Pattern.compile("^\\d{8}$");
+    private static final Pattern CANDIDATE_ID_PATTERN = Pattern.compile("^[A-Za-z0-9_]{1,10}$");
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Za-z\\s]{2,50}$");
+    private static final Pattern PARTY_PATTERN = Pattern.compile("^[A-Za-z0-9\\s]{2,30}$");
+
+    private static final String ALPHABET = "0123456789 abcXYZ_<>\"'&;\\\té";
+
+    // A burst of the same few bad IDs, as when a voter keeps retrying a mistyped ID
+    private static final String[] RETRIES = {"12345678", "11111111", "1234567", "abcdefgh", "23456789", "99999999"};
+
+    @Param({"100000"})
+    public int corpusSize;
+
+    private String[] ids;
+    private String[] text;
+    private InputValidator.RejectionCache cache;
+    private int next;
+    private int nextRetry;
+
+    @Setup(Level.Trial)
+    public void createCorpus() {
+        ids = idCorpus(corpusSize);
+        text = textCorpus(corpusSize);
+        verify(ids, text);
+        cache = new InputValidator.RejectionCache(4096);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == corpusSize ? 0 : next + 1;
+        return index;
+    }
+
+    private String nextRetry() {
+        String id = RETRIES[nextRetry];
+        nextRetry = nextRetry + 1 == RETRIES.length ? 0 : nextRetry + 1;
+        return id;
+    }
+
+    @Benchmark
+    public int aadhaarRegex() {
+        return legacyAadhaar(ids[nextIndex()]);
+    }
+
+    @Benchmark
+    public int aadhaarSinglePass() {
+        return InputValidator.checkAadhaar(ids[nextIndex()]);
+    }
+
+    @Benchmark
+    public int retriedIdsRegex() {
+        return legacyAadhaar(nextRetry());
+    }
+
+    @Benchmark
+    public int retriedIdsCached() {
+        String id = nextRetry();
+        int verdict = cache.get(id);
+        if (verdict < 0) {
+            verdict = InputValidator.checkAadhaar(id);
+            cache.put(id, verdict);
+        }
+        return verdict;
+    }
+
+    @Benchmark
+    public boolean isValidInputContains() {
+        return legacyIsValidInput(text[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean isValidInputSinglePass() {
+        return InputValidator.isValidInput(text[nextIndex()]);
+    }
+
+    @Benchmark
+    public String sanitizeReplaceAll() {
+        return legacySanitize(text[nextIndex()]);
+    }
+
+    @Benchmark
+    public String sanitizeSinglePass() {
+        return InputValidator.sanitize(text[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean nameRegex() {
+        return NAME_PATTERN.matcher(text[nextIndex()].trim()).matches();
+    }
+
+    @Benchmark
+    public boolean nameSinglePass() {
+        return InputValidator.isValidName(text[nextIndex()]);
+    }
+
+    private static void verify(String[] ids, String[] text) {
+        for (String id : ids) {
+            check("Aadhaar", id, legacyAadhaar(id), InputValidator.checkAadhaar(id));
+        }
+        for (String input : text) {
+            check("Aadhaar", input, legacyAadhaar(input), InputValidator.checkAadhaar(input));
+            check("isValidInput", input, legacyIsValidInput(input), InputValidator.isValidInput(input));
+            check("sanitize", input, legacySanitize(input), InputValidator.sanitize(input));
+            check("candidate ID", input, CANDIDATE_ID_PATTERN.matcher(input).matches(),
+                  InputValidator.isValidCandidateID(input));
+            check("name", input, NAME_PATTERN.matcher(input.trim()).matches(), InputValidator.isValidName(input));
+            check("party", input, PARTY_PATTERN.matcher(input.trim()).matches(),
+                  InputValidator.isValidPartyName(input));
+        }
+    }
+
+    private static void check(String check, String input, Object expected, Object actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException(check + " verdict differs for \"" + input + "\": "
+                                            + expected + " vs " + actual);
+        }
+    }
+
+    private static int legacyAadhaar(String id) {
+        if (id == null || id.trim().isEmpty() || !AADHAAR_PATTERN.matcher(id).matches()) {
+            return InputValidator.MALFORMED;
+        }
+        boolean sequential = true;
+        for (int i = 0; i < id.length() - 1; i++) {
+            if (Character.getNumericValue(id.charAt(i + 1)) != Character.getNumericValue(id.charAt(i)) + 1) {
+                sequential = false;
+                break;
+            }
+        }
+        if (sequential) {
+            return InputValidator.SEQUENTIAL;
+        }
+        for (int i = 1; i < id.length(); i++) {
+            if (id.charAt(i) != id.charAt(0)) {
+                return InputValidator.VALID;
+            }
+        }
+        return InputValidator.REPEATED;
+    }
+
+    private static boolean legacyIsValidInput(String input) {
+        return input != null &&
+               !input.trim().isEmpty() &&
+               input.length() <= 100 &&
+               !input.contains("<") &&
+               !input.contains(">") &&
+               !input.contains("\\") &&
+               !input.contains("'") &&
+               !input.contains("\"");
+    }
+
+    private static String legacySanitize(String input) {
+        if (input == null) {
+            return "";
+        }
+        String sanitized = input.replaceAll("[<>\"'&;]", "").trim();
+        return sanitized.length() > 100 ? sanitized.substring(0, 100) : sanitized;
+    }
+
+    /**
+     * Mostly well-formed IDs with malformed, sequential and repeated ones mixed in
+     */
+    private static String[] idCorpus(int size) {
+        Random random = new Random(7);
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {
+            switch (random.nextInt(10)) {
+                case 0: ids[i] = String.format("%07d", random.nextInt(10_000_000)); break;
+                case 1: ids[i] = String.format("%08d", random.nextInt(100_000_000)) + " "; break;
+                case 2: int from = random.nextInt(3); ids[i] = "0123456789".substring(from, from + 8); break;
+                case 3: ids[i] = String.join("", Collections.nCopies(8, String.valueOf(random.nextInt(10)))); break;
+                case 4: ids[i] = randomText(random, 8); break;
+                default: ids[i] = String.format("%08d", random.nextInt(100_000_000)); break;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Names, party names and hostile free text of varied length
+     */
+    private static String[] textCorpus(int size) {
+        Random random = new Random(11);
+        String[] text = new String[size];
+        for (int i = 0; i < size; i++) {
+            switch (random.nextInt(4)) {
+                case 0: text[i] = "  Candidate Name " + (char) ('A' + random.nextInt(26)); break;
+                case 1: text[i] = "Party " + random.nextInt(1000); break;
+                default: text[i] = randomText(random, random.nextInt(random.nextInt(10) == 0 ? 160 : 24)); break;
+            }
+        }
+        return text;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package bench.jmh;
+
+import java.io.*;
+import utils.DataManager;
+import utils.VoterRegistry;
+
+/**
+ * Data directories and voter IDs shared by the JMH benchmarks.
+ *
+ * Rolls of up to 10^8 voters are written to disk; the benchmarks only
+ * keep a bounded sample of their IDs in memory.
+ */
+final class VotingFixture {
+
+    static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+
+    // Multiplier coprime to 10^8: spreads voter numbers over the whole 8-digit space
+    private static final long ID_MULTIPLIER = 48271;
+
+    private VotingFixture() {
+    }
+
+    /**
+     * Distinct 8-digit ID for every index below 10^8
+     */
+    static int voterId(int i) {
+        return (int) ((i * ID_MULTIPLIER + 12_345_679) % VoterRegistry.ID_SPACE);
+    }
+
+    /**
+     * IDs of up to sampleSize registered voters, spread evenly over the roll
+     */
+    static String[] sampleIds(int voters, int sampleSize) {
+        int count = Math.min(voters, sampleSize);
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = VoterRegistry.formatId(voterId((int) ((long) i * voters / count)));
+        }
+        return ids;
+    }
+
+    /**
+     * Data directory with the voter roll, five candidates and an active session
+     */
+    static File createDataDir(int voters) throws IOException {
+        if (voters > VoterRegistry.ID_SPACE) {
+            throw new IllegalArgumentException("At most 10^8 distinct 8-digit voter IDs exist");
+        }
+        File dir = File.createTempFile("vote-jmh", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+
+        try (Writer writer = new BufferedWriter(new FileWriter(new File(dir, "voters.txt")), 1 << 20)) {
+            for (int i = 0; i < voters; i++) {
+                writer.write(VoterRegistry.formatId(voterId(i)));
+                writer.write('\n');
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+            for (String candidate : CANDIDATES) {
+                writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "session.txt")))) {
+            writer.println("ACTIVE");
+        }
+
+        return dir;
+    }
+
+    /**
+     * Open a DataManager on a directory without its startup messages
+     */
+    static DataManager open(File dir) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(discard());
+        try {
+            DataManager dataManager = new DataManager(dir);
+            dataManager.initializeDataFiles();
+            return dataManager;
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * A stream that drops everything, for console output of the measured code
+     */
+    static PrintStream discard() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,209 @@
+package bench;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import utils.BinaryVoteLog;
+import utils.TallyAggregator;
+import utils.VoterPseudonymizer;
+
+/**
+ * Multi-booth aggregation on local data directories standing in for booth
+ * machines: a full aggregation, then incremental refreshes after booths
+ * append more ballots, checked against the expected merged tally.
+ *
+ * All booths share one election key. Neighbouring booths share a fraction
+ * of their voters, and a voter who appears twice votes differently at the
+ * second booth, so a wrong first-ballot-wins order shows up in the tally.
+ * Every other booth writes the binary log format.
+ *
+ * Usage: java bench.AggregationBenchmark [booths] [ballotsPerBooth] [overlapPercent]
+ */
+public class AggregationBenchmark {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4"};
+
+    public static void main(String[] args) throws Exception {
+        int booths = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int ballotsPerBooth = args.length > 1 ? Integer.parseInt(args[1]) : 250_000;
+        int overlapPercent = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        File root = createTempDir();
+        try {
+            VoterPseudonymizer keys = VoterPseudonymizer.open(new File(root, "election.key"));
+            File[] dirs = new File[booths];
+            for (int b = 0; b < booths; b++) {
+                dirs[b] = new File(root, "booth" + b);
+                dirs[b].mkdir();
+                Files.copy(new File(root, "election.key").toPath(), new File(dirs[b], "election.key").toPath());
+                writeCandidates(dirs[b]);
+                if (b % 2 == 1) {
+                    BinaryVoteLog.writeHeader(new File(dirs[b], "votes.bin"));
+                }
+            }
+
+            // Booth b covers voter indexes [b * stride, b * stride + ballotsPerBooth)
+            int stride = ballotsPerBooth - ballotsPerBooth * overlapPercent / 100;
+            Expected expected = new Expected();
+            int half = ballotsPerBooth / 2;
+            for (int b = 0; b < booths; b++) {
+                appendBallots(dirs[b], keys, b, b * stride, half);
+            }
+            for (int b = 0; b < booths; b++) {
+                expected.add(b, b * stride, half);
+            }
+
+            TallyAggregator aggregator = new TallyAggregator();
+            for (int b = 0; b < booths; b++) {
+                aggregator.addBooth("booth" + b, dirs[b]);
+            }
+
+            long start = System.nanoTime();
+            long read = aggregator.refresh();
+            report("full aggregation", read, System.nanoTime() - start);
+            expected.verify(aggregator);
+
+            // Every booth uploads its second half; the refresh reads only the new bytes
+            for (int b = 0; b < booths; b++) {
+                appendBallots(dirs[b], keys, b, b * stride + half, ballotsPerBooth - half);
+            }
+            for (int b = 0; b < booths; b++) {
+                expected.add(b, b * stride + half, ballotsPerBooth - half);
+            }
+            start = System.nanoTime();
+            read = aggregator.refresh();
+            report("incremental refresh", read, System.nanoTime() - start);
+            expected.verify(aggregator);
+
+            // A refresh with nothing new only checks file sizes
+            start = System.nanoTime();
+            read = aggregator.refresh();
+            report("idle refresh", read, System.nanoTime() - start);
+
+            // Rebuilding from scratch for comparison
+            TallyAggregator fresh = new TallyAggregator();
+            for (int b = 0; b < booths; b++) {
+                fresh.addBooth("booth" + b, dirs[b]);
+            }
+            start = System.nanoTime();
+            read = fresh.refresh();
+            report("full re-aggregation", read, System.nanoTime() - start);
+
+            System.out.println("Tally " + aggregator.getTally() + ", " + aggregator.getTotalVotes() + " voters, " +
+                               aggregator.getDuplicateBallots() + " duplicate ballots");
+
+            // A booth that rotated its key cannot be deduplicated against the others
+            if (booths > 1) {
+                VoterPseudonymizer.rotate(new File(dirs[booths - 1], "election.key"));
+                try {
+                    aggregator.refresh();
+                    throw new IllegalStateException("Booths with different election keys were aggregated");
+                } catch (IOException e) {
+                    System.out.println("Refused: " + e.getMessage());
+                }
+            }
+        } finally {
+            deleteRecursively(root);
+        }
+    }
+
+    private static void report(String phase, long ballots, long nanos) {
+        System.out.printf("%-22s %10d ballots %10.1f ms %12.0f ballots/sec%n", phase, ballots, nanos / 1e6,
+                          ballots / (nanos / 1e9));
+    }
+
+    /**
+     * Candidate a voter picks at a booth; differs between booths
+     */
+    private static int choice(int booth, int voter) {
+        return (voter + booth) % CANDIDATES.length;
+    }
+
+    private static int voterId(int voter) {
+        return 10_000_000 + voter;
+    }
+
+    private static void writeCandidates(File dir) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+            for (String candidate : CANDIDATES) {
+                writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+            }
+        }
+    }
+
+    /**
+     * Append ballots of voter indexes [from, from + count) to a booth's log
+     */
+    private static void appendBallots(File dir, VoterPseudonymizer keys, int booth, int from, int count)
+            throws IOException {
+        File binary = new File(dir, "votes.bin");
+        if (binary.exists()) {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(binary, true), 1 << 20)) {
+                for (int v = from; v < from + count; v++) {
+                    out.write(BinaryVoteLog.encodeRecord(v, keys.digest(voterId(v)), choice(booth, v)));
+                }
+            }
+        } else {
+            try (Writer writer = new BufferedWriter(new FileWriter(new File(dir, "votes.txt"), true), 1 << 20)) {
+                for (int v = from; v < from + count; v++) {
+                    writer.write("2025-01-01T08:00:00.000000:");
+                    writer.write(keys.pseudonym(voterId(v)));
+                    writer.write(':');
+                    writer.write(CANDIDATES[choice(booth, v)]);
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Merged tally computed directly from the generated ballots, first ballot wins
+     */
+    private static class Expected {
+        final Set<Integer> voted = new HashSet<>();
+        final long[] counts = new long[CANDIDATES.length];
+        long duplicates;
+
+        void add(int booth, int from, int count) {
+            for (int v = from; v < from + count; v++) {
+                if (voted.add(v)) {
+                    counts[choice(booth, v)]++;
+                } else {
+                    duplicates++;
+                }
+            }
+        }
+
+        void verify(TallyAggregator aggregator) {
+            Map<String, Long> tally = aggregator.getTally();
+            for (int c = 0; c < CANDIDATES.length; c++) {
+                if (tally.getOrDefault(CANDIDATES[c], 0L) != counts[c]) {
+                    throw new IllegalStateException("Tally " + tally + ", expected " + Arrays.toString(counts));
+                }
+            }
+            if (aggregator.getDuplicateBallots() != duplicates || aggregator.getTotalVotes() != voted.size()) {
+                throw new IllegalStateException("Found " + aggregator.getTotalVotes() + " voters and " +
+                                                aggregator.getDuplicateBallots() + " duplicates, expected " +
+                                                voted.size() + " and " + duplicates);
+            }
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("aggregation-bench", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
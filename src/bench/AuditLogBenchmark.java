@@ -0,0 +1,93 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import utils.AuditLogWriter;
+
+/**
+ * Activity log throughput: open-append-close per entry (the old logActivity
+ * path) against the asynchronous AuditLogWriter under both backpressure
+ * policies. Reports entries/sec seen by callers and dropped entries.
+ *
+ * Usage: java bench.AuditLogBenchmark [threads] [entriesPerThread] [capacity]
+ */
+public class AuditLogBenchmark {
+
+    private interface Sink {
+        void log(String line) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 2;
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 8192;
+
+        System.out.println("Activity log: " + threads + " threads x " + entries + " entries, ring capacity " + capacity);
+        System.out.printf("%-24s %14s %10s %12s%n", "writer", "entries/sec", "dropped", "lines on disk");
+
+        File file = File.createTempFile("audit-bench", ".log");
+        file.deleteOnExit();
+
+        for (int round = 0; round < 2; round++) {
+            file.delete();
+            double rate = run(threads, entries, line -> {
+                try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+                    out.println(line);
+                }
+            });
+            report("open-append-close", rate, 0, countLines(file));
+
+            for (AuditLogWriter.Policy policy : AuditLogWriter.Policy.values()) {
+                file.delete();
+                AuditLogWriter writer = new AuditLogWriter(file, capacity, policy);
+                rate = run(threads, entries, writer::append);
+                writer.close();
+                report("ring, " + policy, rate, writer.getDroppedCount(), countLines(file));
+            }
+            System.out.println();
+        }
+    }
+
+    private static double run(int threads, int entries, Sink sink) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < entries; i++) {
+                    sink.log("2024-01-01T10:00:00.000:VOTE_CAST:" + (10_000_000 + thread * entries + i) +
+                             ":Vote cast for candidate: C" + (i % 5));
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+
+        return (double) threads * entries / seconds;
+    }
+
+    private static long countLines(File file) throws IOException {
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static void report(String name, double rate, long dropped, long lines) {
+        System.out.printf("%-24s %14.0f %10d %12d%n", name, rate, dropped, lines);
+    }
+}
@@ -0,0 +1,188 @@
+package bench;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import utils.DataManager;
+import utils.VoterPseudonymizer;
+import utils.VoterRegistry;
+
+/**
+ * Restart-time benchmark: DataManager.initializeDataFiles() replaying the
+ * whole vote log versus restoring the tally checkpoint and replaying the tail.
+ *
+ * A data directory is generated with all but tailBallots of the ballots;
+ * opening and shutting down a DataManager on it writes the checkpoint,
+ * which is kept aside before the tail ballots are appended. Each run then
+ * opens a fresh DataManager once without the checkpoint and once with the
+ * saved one, and checks that both restore the same tally.
+ *
+ * Usage: java bench.CheckpointRestartBenchmark [ballots] [tailBallots]
+ */
+public class CheckpointRestartBenchmark {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+
+    // Multiplier coprime to 10^8: spreads voter numbers over the whole 8-digit space
+    private static final long ID_MULTIPLIER = 48271;
+
+    public static void main(String[] args) throws Exception {
+        int ballots = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int tailBallots = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        if (ballots > VoterRegistry.ID_SPACE || tailBallots > ballots) {
+            throw new IllegalArgumentException("Need tailBallots <= ballots <= 10^8");
+        }
+        System.setProperty("voting.maxVoters", String.valueOf(Math.max(ballots, 1_000_000)));
+
+        File dir = createTempDir();
+        File checkpointFile = new File(dir, "tally.checkpoint");
+        File savedCheckpoint = new File(dir, "tally.checkpoint.saved");
+        PrintStream console = System.out;
+        try {
+            System.out.println("Generating " + ballots + " ballots in " + dir);
+            createDataDir(dir, ballots, ballots - tailBallots);
+
+            // Let DataManager write the checkpoint over the covered prefix
+            silence();
+            long start = System.nanoTime();
+            DataManager writer = new DataManager(dir);
+            writer.initializeDataFiles();
+            writer.shutdown();
+            double writeMs = (System.nanoTime() - start) / 1e6;
+            System.setOut(console);
+            Files.copy(checkpointFile.toPath(), savedCheckpoint.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            appendBallots(dir, ballots - tailBallots, ballots);
+            System.out.printf("Log size: %.1f MB, checkpoint size: %.1f MB (open + write %.0f ms)%n",
+                              new File(dir, "votes.txt").length() / 1e6, savedCheckpoint.length() / 1e6, writeMs);
+
+            for (int run = 1; run <= 3; run++) {
+                checkpointFile.delete();
+                Restart full = restart(dir);
+
+                Files.copy(savedCheckpoint.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                Restart restored = restart(dir);
+
+                System.setOut(console);
+                if (full.votes != ballots || restored.votes != ballots || !full.results.equals(restored.results)) {
+                    throw new IllegalStateException("Checkpoint restore does not match full replay: " +
+                                                    full.votes + " vs " + restored.votes + " votes");
+                }
+                System.out.printf("run %d: full replay %8.0f ms | checkpoint + %d-ballot tail %8.0f ms%n",
+                                  run, full.millis, tailBallots, restored.millis);
+                System.out.println("  full:       " + full.report);
+                System.out.println("  checkpoint: " + restored.report);
+            }
+        } finally {
+            System.setOut(console);
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Outcome of one DataManager startup
+     */
+    private static class Restart {
+        double millis;
+        int votes;
+        Map<String, Integer> results;
+        String report;
+    }
+
+    private static Restart restart(File dir) throws IOException {
+        System.gc();
+        silence();
+        Restart restart = new Restart();
+        long start = System.nanoTime();
+        DataManager dataManager = new DataManager(dir);
+        dataManager.initializeDataFiles();
+        restart.millis = (System.nanoTime() - start) / 1e6;
+        restart.votes = dataManager.getTotalVotes();
+        restart.results = dataManager.getVotingResults();
+        restart.report = dataManager.getStartupReport();
+        dataManager.shutdown();
+        return restart;
+    }
+
+    private static void silence() {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+    /**
+     * Distinct 8-digit ID for every index below 10^8
+     */
+    private static int voterId(int i) {
+        return (int) ((i * ID_MULTIPLIER + 12_345_679) % 100_000_000);
+    }
+
+    /**
+     * Roll of every voter who will vote, five candidates, an active session
+     * and a text vote log holding the first coveredBallots ballots
+     */
+    private static void createDataDir(File dir, int voters, int coveredBallots) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(new File(dir, "voters.txt")), 1 << 20)) {
+            for (int i = 0; i < voters; i++) {
+                writer.write(VoterRegistry.formatId(voterId(i)));
+                writer.write('\n');
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+            for (String candidate : CANDIDATES) {
+                writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "session.txt")))) {
+            writer.println("ACTIVE");
+        }
+
+        try (Writer writer = new FileWriter(new File(dir, "votes.txt"))) {
+            writer.write("# Vote Records\n# Format: TIMESTAMP:VOTER_HASH:CANDIDATE_ID\n\n");
+        }
+        appendBallots(dir, 0, coveredBallots);
+    }
+
+    /**
+     * Append ballots from..to-1 with keyed pseudonyms under the directory's election key
+     */
+    private static void appendBallots(File dir, int from, int to) throws IOException {
+        VoterPseudonymizer pseudonymizer = VoterPseudonymizer.open(new File(dir, "election.key"));
+        try (Writer writer = new BufferedWriter(new FileWriter(new File(dir, "votes.txt"), true), 1 << 20)) {
+            for (int i = from; i < to; i++) {
+                writer.write("2025-01-01T08:00:00.000000:");
+                writer.write(pseudonymizer.pseudonym(voterId(i)));
+                writer.write(':');
+                writer.write(CANDIDATES[i % CANDIDATES.length]);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("checkpoint-bench", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
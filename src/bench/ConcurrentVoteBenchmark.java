@@ -0,0 +1,151 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import utils.DataManager;
+
+/**
+ * Multi-threaded stress test and scaling benchmark for DataManager.recordVote.
+ *
+ * Every thread tries to cast a ballot for every voter, so each voter is
+ * contended by all threads. The run fails if any voter is counted twice
+ * or the tally does not add up.
+ *
+ * Usage: java bench.ConcurrentVoteBenchmark [voters] [maxThreads]
+ */
+public class ConcurrentVoteBenchmark {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+
+    public static void main(String[] args) throws Exception {
+        int voters = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 4;
+
+        // Short group-commit window unless overridden on the command line
+        if (System.getProperty("voting.journal.windowMicros") == null) {
+            System.setProperty("voting.journal.windowMicros", "200");
+        }
+
+        System.out.println("Concurrent vote ingestion: " + voters + " voters, up to " + maxThreads + " threads");
+        System.out.printf("%8s %14s %14s %10s%n", "threads", "votes/sec", "rejected dup", "speedup");
+
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long[] rejected = new long[1];
+            double votesPerSec = run(voters, threads, rejected);
+            if (threads == 1) {
+                baseline = votesPerSec;
+            }
+            System.out.printf("%8d %14.0f %14d %9.2fx%n", threads, votesPerSec, rejected[0], votesPerSec / baseline);
+        }
+    }
+
+    /**
+     * One stress run on a fresh data directory
+     */
+    private static double run(int voters, int threads, long[] rejectedOut) throws Exception {
+        File dir = createDataDir(voters);
+        DataManager dataManager = new DataManager(dir);
+        dataManager.initializeDataFiles();
+
+        List<String> voterIds = dataManager.getRegisteredVoters();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            results.add(pool.submit(() -> {
+                List<String> order = new ArrayList<>(voterIds);
+                Collections.shuffle(order, new Random(seed));
+                start.await();
+                for (int i = 0; i < order.size(); i++) {
+                    String candidate = CANDIDATES[(seed + i) % CANDIDATES.length];
+                    if (dataManager.recordVote(order.get(i), candidate)) {
+                        accepted.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+
+        verify(dataManager, voters, accepted.get());
+        dataManager.shutdown();
+
+        rejectedOut[0] = rejected.get();
+        deleteRecursively(dir);
+        return accepted.get() / seconds;
+    }
+
+    /**
+     * Check that every voter was counted exactly once, in memory and after a reload
+     */
+    private static void verify(DataManager dataManager, int voters, int accepted) throws IOException {
+        int tallied = 0;
+        for (int votes : dataManager.getVotingResults().values()) {
+            tallied += votes;
+        }
+
+        if (accepted != voters || dataManager.getTotalVotes() != voters || tallied != voters) {
+            throw new IllegalStateException("Double counting detected: accepted=" + accepted +
+                ", totalVotes=" + dataManager.getTotalVotes() + ", tallied=" + tallied + ", voters=" + voters);
+        }
+
+        dataManager.loadSystemData();
+        if (dataManager.getTotalVotes() != voters) {
+            throw new IllegalStateException("Vote log does not match tally after reload: " + dataManager.getTotalVotes());
+        }
+    }
+
+    /**
+     * Create a data directory with a roll of distinct voters and an active session
+     */
+    private static File createDataDir(int voters) throws IOException {
+        File dir = File.createTempFile("vote-stress", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, "voters.txt"))))) {
+            for (int i = 0; i < voters; i++) {
+                writer.println(10_000_000 + i * 7);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+            for (String candidate : CANDIDATES) {
+                writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "session.txt")))) {
+            writer.println("ACTIVE");
+        }
+
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,417 @@
+package bench;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import utils.BinaryVoteLog;
+import utils.DataManager;
+import utils.LineScanner;
+import utils.VoteRecord;
+import utils.VoterPseudonymizer;
+
+/**
+ * Fault-injection harness for vote log crash recovery.
+ *
+ * Each round starts a writer JVM that casts ballots from several threads
+ * and reports every acknowledged ballot, kills it at a random moment, and
+ * then damages the end of the vote log the way a power cut can: a torn
+ * partial record, a zero-filled block, or a whole record with a bad
+ * checksum (killing the process alone never tears a write, since the page
+ * cache keeps what was written). Some rounds instead flip a bit in one
+ * record in the middle of the round's ballots and remove the checkpoint,
+ * so the whole log is replayed across the damage. A DataManager is then
+ * reopened on the data directory and must hold every acknowledged ballot
+ * except the damaged one, every ballot after the damage, at most one
+ * unacknowledged ballot per writer thread, a tally that adds up, and a log
+ * that ends on a clean record boundary.
+ *
+ * Pass -Dvoting.binaryVoteLog=true to run against the binary log; voting.*
+ * properties are forwarded to the writer.
+ *
+ * Usage: java bench.CrashRecoveryHarness [rounds] [threads] [votersPerRound]
+ */
+public class CrashRecoveryHarness {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+    private static final String[] DAMAGE = {"none", "torn record", "zero block", "bad checksum", "mid-log record"};
+    private static final int MID_LOG = 4;
+    private static final boolean BINARY = Boolean.getBoolean("voting.binaryVoteLog");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--writer")) {
+            runWriter(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                      Integer.parseInt(args[4]));
+            return;
+        }
+
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int votersPerRound = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+
+        File dir = createDataDir(rounds * votersPerRound);
+        System.out.println("Crash recovery: " + rounds + " rounds, " + threads + " writer threads, " +
+                           (BINARY ? "binary" : "text") + " vote log");
+        System.out.printf("%6s %-14s %10s %12s %10s%n", "round", "damage", "acked kept", "unacked kept", "cut bytes");
+        try {
+            int previousVotes = 0;
+            long acked = 0;
+            int midLogDamage = 0;
+            File log = new File(dir, BINARY ? "votes.bin" : "votes.txt");
+            for (int round = 0; round < rounds; round++) {
+                int from = round * votersPerRound;
+                long roundStart = log.length();
+                BitSet ackedVoters = crashWriter(dir, from, from + votersPerRound, threads);
+                int damage = ThreadLocalRandom.current().nextInt(DAMAGE.length);
+                int lostVoter = -1;
+                if (damage == MID_LOG) {
+                    lostVoter = damageMidLog(dir, roundStart, from, from + votersPerRound);
+                    midLogDamage++;
+                } else {
+                    injectDamage(dir, damage);
+                }
+
+                long damagedLength = log.length();
+                int votes = verify(dir, ackedVoters, lostVoter, midLogDamage, previousVotes, threads, round);
+                int keptAcked = ackedVoters.cardinality() - (lostVoter >= 0 && ackedVoters.get(lostVoter) ? 1 : 0);
+                System.out.printf("%6d %-14s %10d %12d %10d%n", round, DAMAGE[damage], keptAcked,
+                                  votes - previousVotes - keptAcked, damagedLength - log.length());
+                previousVotes = votes;
+                acked += keptAcked;
+            }
+            System.out.println("All " + rounds + " rounds recovered; " + acked + " acknowledged ballots kept, " +
+                               previousVotes + " ballots in the log");
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Writer process: cast ballots for voter indexes [from, to) and print "ACK index" once each is durable
+     */
+    private static void runWriter(File dir, int from, int to, int threads) throws Exception {
+        PrintStream acks = new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8");
+        System.setOut(quiet()); // DataManager's progress output is not wanted on the ACK channel
+
+        DataManager dataManager = new DataManager(dir);
+        dataManager.initializeDataFiles();
+
+        Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int first = from + t;
+            writers[t] = new Thread(() -> {
+                for (int voter = first; voter < to; voter += threads) {
+                    try {
+                        if (dataManager.recordVote(voterId(voter), CANDIDATES[voter % CANDIDATES.length])) {
+                            acks.println("ACK " + voter);
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Vote failed: " + e.getMessage());
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        dataManager.shutdown();
+    }
+
+    /**
+     * Run a writer on voter indexes [from, to), kill it at a random moment, and return the voters it acknowledged
+     */
+    private static BitSet crashWriter(File dir, int from, int to, int threads) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("voting.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add(CrashRecoveryHarness.class.getName());
+        command.addAll(Arrays.asList("--writer", dir.getPath(), String.valueOf(from), String.valueOf(to),
+                                     String.valueOf(threads)));
+
+        Process writer = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        BitSet acked = new BitSet();
+        Object firstAck = new Object();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(writer.getInputStream(),
+                                                                              StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("ACK ")) {
+                        synchronized (firstAck) {
+                            acked.set(Integer.parseInt(line.substring(4)));
+                            firstAck.notifyAll();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // the writer was killed
+            }
+        });
+        reader.start();
+
+        // Let votes flow, then kill somewhere inside the stream of group commits
+        synchronized (firstAck) {
+            long deadline = System.currentTimeMillis() + 30_000;
+            while (acked.isEmpty() && writer.isAlive() && System.currentTimeMillis() < deadline) {
+                firstAck.wait(100);
+            }
+        }
+        Thread.sleep(ThreadLocalRandom.current().nextInt(300));
+        writer.destroyForcibly().waitFor();
+        reader.join();
+        synchronized (firstAck) {
+            return (BitSet) acked.clone();
+        }
+    }
+
+    /**
+     * Damage the end of the vote log as a power cut in the middle of a write would
+     */
+    private static void injectDamage(File dir, int damage) throws IOException {
+        File log = new File(dir, BINARY ? "votes.bin" : "votes.txt");
+        byte[] tail;
+        switch (damage) {
+            case 1:
+                byte[] record = wholeRecord();
+                tail = Arrays.copyOf(record, 1 + ThreadLocalRandom.current().nextInt(record.length - 1));
+                break;
+            case 2:
+                tail = new byte[4096];
+                break;
+            case 3:
+                tail = wholeRecord();
+                tail[tail.length / 2] ^= 0x01; // still well formed, but the checksum no longer matches
+                break;
+            default:
+                return;
+        }
+        try (OutputStream out = new FileOutputStream(log, true)) {
+            out.write(tail);
+        }
+    }
+
+    /**
+     * Flip a bit in a record written this round, followed by at least one
+     * intact record, and remove the checkpoint so replay has to cross it
+     *
+     * @return the voter index of the damaged ballot
+     */
+    private static int damageMidLog(File dir, long roundStart, int from, int to) throws IOException {
+        File log = new File(dir, BINARY ? "votes.bin" : "votes.txt");
+        byte[] data;
+        try (RandomAccessFile file = new RandomAccessFile(log, "r")) {
+            data = new byte[(int) (file.length() - roundStart)];
+            file.seek(roundStart);
+            file.readFully(data);
+        }
+
+        // Start and end of every whole record but the last
+        List<int[]> records = new ArrayList<>();
+        if (BINARY) {
+            int start = (int) (Math.max(0, BinaryVoteLog.HEADER_SIZE - roundStart));
+            for (; start + 2 * BinaryVoteLog.RECORD_SIZE <= data.length; start += BinaryVoteLog.RECORD_SIZE) {
+                records.add(new int[]{start, start + BinaryVoteLog.RECORD_SIZE});
+            }
+        } else {
+            int start = 0;
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] == '\n') {
+                    records.add(new int[]{start, i});
+                    start = i + 1;
+                }
+            }
+            if (!records.isEmpty()) {
+                records.remove(records.size() - 1);
+            }
+        }
+        if (records.isEmpty()) {
+            throw new IllegalStateException("Writer left fewer than two ballots to damage");
+        }
+        int[] record = records.get(ThreadLocalRandom.current().nextInt(records.size()));
+
+        byte[] digest = new byte[BinaryVoteLog.DIGEST_SIZE];
+        int flip;
+        if (BINARY) {
+            System.arraycopy(data, record[0] + 8, digest, 0, digest.length);
+            flip = record[0] + 8 + 5;
+        } else {
+            LineScanner.VoteFields fields = new LineScanner.VoteFields();
+            if (!LineScanner.locateVoteFields(data, record[0], record[1], fields) ||
+                !VoterPseudonymizer.digestOf(data, fields.voterStart, fields.voterEnd, digest)) {
+                throw new IllegalStateException("Unreadable vote record at offset " + (roundStart + record[0]));
+            }
+            flip = fields.voterEnd - 1;
+        }
+
+        // The record stays well formed; only its checksum no longer matches
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.seek(roundStart + flip);
+            file.write(data[flip] ^ 0x01);
+        }
+        new File(dir, "tally.checkpoint").delete();
+
+        VoterPseudonymizer keys = VoterPseudonymizer.open(new File(dir, "election.key"));
+        for (int voter = from; voter < to; voter++) {
+            if (Arrays.equals(keys.digest(10_000_000 + voter), digest)) {
+                return voter;
+            }
+        }
+        throw new IllegalStateException("Damaged ballot matches no voter of the round");
+    }
+
+    /**
+     * A complete vote record for a voter on the roll who has not voted
+     */
+    private static byte[] wholeRecord() {
+        byte[] digest = new byte[32];
+        ThreadLocalRandom.current().nextBytes(digest);
+        if (BINARY) {
+            return BinaryVoteLog.encodeRecord(System.nanoTime(), digest, 0);
+        }
+        String hash = String.format("VOTER_%064x", new BigInteger(1, digest));
+        return (VoteRecord.encode("2025-01-01T08:00:00.000000", hash, CANDIDATES[0]) + "\n")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reopen the data directory and check it against what the writer acknowledged
+     *
+     * @return total votes in the recovered log
+     */
+    private static int verify(File dir, BitSet acked, int lostVoter, int midLogDamage, int previousVotes,
+                              int threads, int round) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(quiet());
+        DataManager dataManager = new DataManager(dir);
+        try {
+            dataManager.initializeDataFiles();
+        } finally {
+            System.setOut(console);
+        }
+
+        try {
+            for (int voter = acked.nextSetBit(0); voter >= 0; voter = acked.nextSetBit(voter + 1)) {
+                if (voter != lostVoter && !dataManager.hasVoterVoted(voterId(voter))) {
+                    throw new IllegalStateException("Round " + round + ": acknowledged ballot of voter " + voter +
+                                                    " was lost");
+                }
+            }
+
+            // Every damaged record in the log is replayed across, since each damage round removed the checkpoint
+            if (lostVoter >= 0) {
+                if (dataManager.hasVoterVoted(voterId(lostVoter))) {
+                    throw new IllegalStateException("Round " + round + ": damaged ballot of voter " + lostVoter +
+                                                    " was counted");
+                }
+                if (BINARY && dataManager.getDamagedVoteRecords() != midLogDamage) {
+                    throw new IllegalStateException("Round " + round + ": " + dataManager.getDamagedVoteRecords() +
+                                                    " damaged records skipped, " + midLogDamage + " injected");
+                }
+            }
+
+            int votes = dataManager.getTotalVotes();
+            int newVotes = votes - previousVotes;
+            int keptAcked = acked.cardinality() - (lostVoter >= 0 && acked.get(lostVoter) ? 1 : 0);
+            if (newVotes < keptAcked || newVotes > keptAcked + threads) {
+                throw new IllegalStateException("Round " + round + ": " + newVotes + " new ballots for " +
+                                                acked.cardinality() + " acknowledged with " + threads + " writers");
+            }
+
+            int tallied = 0;
+            for (int count : dataManager.getVotingResults().values()) {
+                tallied += count;
+            }
+            if (tallied != votes) {
+                throw new IllegalStateException("Round " + round + ": tally " + tallied + " for " + votes + " ballots");
+            }
+
+            if (!endsCleanly(dir)) {
+                throw new IllegalStateException("Round " + round + ": vote log does not end on a record boundary");
+            }
+            return votes;
+        } finally {
+            System.setOut(quiet());
+            try {
+                dataManager.shutdown();
+            } finally {
+                System.setOut(console);
+            }
+        }
+    }
+
+    private static boolean endsCleanly(File dir) throws IOException {
+        if (BINARY) {
+            File log = new File(dir, "votes.bin");
+            return (log.length() - BinaryVoteLog.HEADER_SIZE) % BinaryVoteLog.RECORD_SIZE == 0;
+        }
+        try (RandomAccessFile log = new RandomAccessFile(new File(dir, "votes.txt"), "r")) {
+            if (log.length() == 0) {
+                return true;
+            }
+            log.seek(log.length() - 1);
+            return log.read() == '\n';
+        }
+    }
+
+    private static PrintStream quiet() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    private static String voterId(int voter) {
+        return String.valueOf(10_000_000 + voter);
+    }
+
+    /**
+     * Create a data directory with a roll of distinct voters and an active session
+     */
+    private static File createDataDir(int voters) throws IOException {
+        File dir = File.createTempFile("crash-recovery", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, "voters.txt"))))) {
+            for (int i = 0; i < voters; i++) {
+                writer.println(voterId(i));
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+            for (String candidate : CANDIDATES) {
+                writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "session.txt")))) {
+            writer.println("ACTIVE");
+        }
+
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,204 @@
+package bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import utils.DigestSet;
+import utils.LineScanner;
+import utils.ParallelFileReader;
+import utils.VoteRecord;
+import utils.VoterPseudonymizer;
+import utils.VoterRegistry;
+
+/**
+ * Single-threaded parsing throughput of voters.txt and votes.txt lines.
+ *
+ * Compares the original readLine + regex/split loaders, readLine with the
+ * String parsers (VoterRegistry.parseId, VoteRecord.parse), and the
+ * byte-level LineScanner used at startup. Each variant reads the whole file
+ * and is timed over several runs; the best run is reported in lines/sec.
+ *
+ * Usage: java bench.LineParsingBenchmark [lines] [runs]
+ */
+public class LineParsingBenchmark {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+
+    // Multiplier coprime to 10^8: spreads voter numbers over the whole 8-digit space
+    private static final long ID_MULTIPLIER = 48271;
+
+    /**
+     * One way of parsing a whole file; returns a checksum of what was parsed
+     */
+    private interface FileParser {
+        long parse(File file) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        File voters = File.createTempFile("voters-bench", ".txt");
+        File votes = File.createTempFile("votes-bench", ".txt");
+        try {
+            System.out.println("Generating " + lines + " lines of voters.txt and votes.txt");
+            writeVoters(voters, lines);
+            writeVotes(votes, lines);
+
+            System.out.printf("%-10s %-28s %10s %14s%n", "file", "parser", "best ms", "lines/sec");
+            report("voters", "readLine + matches", voters, lines, runs, LineParsingBenchmark::votersRegex);
+            report("voters", "readLine + parseId", voters, lines, runs, LineParsingBenchmark::votersParseId);
+            report("voters", "LineScanner", voters, lines, runs, LineParsingBenchmark::votersScanner);
+            report("votes", "readLine + split", votes, lines, runs, LineParsingBenchmark::votesSplit);
+            report("votes", "readLine + VoteRecord.parse", votes, lines, runs, LineParsingBenchmark::votesRecord);
+            report("votes", "LineScanner", votes, lines, runs, LineParsingBenchmark::votesScanner);
+        } finally {
+            voters.delete();
+            votes.delete();
+        }
+    }
+
+    private static void report(String fileName, String parserName, File file, int lines, int runs, FileParser parser)
+            throws IOException {
+        long best = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int run = 0; run < runs; run++) {
+            System.gc();
+            long start = System.nanoTime();
+            checksum = parser.parse(file);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-10s %-28s %10.0f %14.0f   (checksum %d)%n", fileName, parserName, best / 1e6,
+                          lines / (best / 1e9), checksum);
+    }
+
+    // Original loader: regex match per line, then Integer.parseInt
+    private static long votersRegex(File file) throws IOException {
+        long sum = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#") && line.matches("\\d{8}")) {
+                    sum += Integer.parseInt(line);
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static long votersParseId(File file) throws IOException {
+        long sum = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int id = VoterRegistry.parseId(line.trim());
+                if (id >= 0) {
+                    sum += id;
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static long votersScanner(File file) throws IOException {
+        long[] sum = new long[1];
+        ParallelFileReader.forEachLine(file, 0, file.length(), (data, start, end) -> {
+            int id = LineScanner.parseVoterId(data, start, end);
+            if (id >= 0) {
+                sum[0] += id;
+            }
+        });
+        return sum[0];
+    }
+
+    // Original loader: split into fields, count by candidate ID
+    private static long votesSplit(File file) throws IOException {
+        Map<String, Integer> voteCount = new HashMap<>();
+        long sum = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    String[] parts = line.split(":");
+                    if (parts.length >= 3) {
+                        String voterHash = parts[parts.length - 2];
+                        voteCount.merge(parts[parts.length - 1], 1, Integer::sum);
+                        sum += voterHash.length();
+                    }
+                }
+            }
+        }
+        return sum + voteCount.size();
+    }
+
+    private static long votesRecord(File file) throws IOException {
+        Map<String, Integer> voteCount = new HashMap<>();
+        long sum = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                VoteRecord record = VoteRecord.parse(line);
+                if (record != null) {
+                    voteCount.merge(record.getCandidateId(), 1, Integer::sum);
+                    sum += record.getVoterHash().length();
+                }
+            }
+        }
+        return sum + voteCount.size();
+    }
+
+    private static long votesScanner(File file) throws IOException {
+        byte[][] candidateIds = new byte[CANDIDATES.length][];
+        for (int i = 0; i < candidateIds.length; i++) {
+            candidateIds[i] = CANDIDATES[i].getBytes(StandardCharsets.UTF_8);
+        }
+        long[] counts = new long[CANDIDATES.length];
+        long[] sum = new long[1];
+        LineScanner.VoteFields fields = new LineScanner.VoteFields();
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+
+        ParallelFileReader.forEachLine(file, 0, file.length(), (data, start, end) -> {
+            if (LineScanner.locateVoteFields(data, start, end, fields)) {
+                if (VoterPseudonymizer.digestOf(data, fields.voterStart, fields.voterEnd, digest)) {
+                    sum[0] += fields.voterEnd - fields.voterStart;
+                }
+                int candidate = LineScanner.indexOf(candidateIds, data, fields.candidateStart, fields.candidateEnd);
+                if (candidate >= 0) {
+                    counts[candidate]++;
+                }
+            }
+        });
+        return sum[0] + Arrays.stream(counts).filter(count -> count > 0).count();
+    }
+
+    private static void writeVoters(File file, int lines) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(file), 1 << 20)) {
+            writer.write("# Registered Voters Database\n");
+            for (int i = 0; i < lines; i++) {
+                writer.write(VoterRegistry.formatId((int) ((i * ID_MULTIPLIER + 12_345_679) % 100_000_000)));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Keyed-format pseudonyms from random digests; deriving real HMACs would only slow generation
+     */
+    private static void writeVotes(File file, int lines) throws IOException {
+        Random random = new Random(42);
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+        try (Writer writer = new BufferedWriter(new FileWriter(file), 1 << 20)) {
+            writer.write("# Vote Records\n# Format: TIMESTAMP:VOTER_HASH:CANDIDATE_ID\n\n");
+            for (int i = 0; i < lines; i++) {
+                random.nextBytes(digest);
+                writer.write("2025-01-01T08:00:00.000000:");
+                writer.write(VoterPseudonymizer.toPseudonym(digest));
+                writer.write(':');
+                writer.write(CANDIDATES[i % CANDIDATES.length]);
+                writer.write('\n');
+            }
+        }
+    }
+}
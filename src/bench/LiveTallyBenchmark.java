@@ -0,0 +1,110 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import utils.VoteLogFollower;
+
+/**
+ * Live result updates: a follower on a large vote log receives batches of
+ * newly appended ballots. Reports the cost of the initial read, the delay
+ * from appending a batch to its delta reaching a subscriber, and checks
+ * that the followed totals match the ballots written.
+ *
+ * Usage: java bench.LiveTallyBenchmark [initialBallots] [batches] [batchSize] [pollMillis]
+ */
+public class LiveTallyBenchmark {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+
+    public static void main(String[] args) throws Exception {
+        int initialBallots = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int batches = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        long pollMillis = args.length > 3 ? Long.parseLong(args[3]) : 50;
+
+        File dir = File.createTempFile("live-tally-bench", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+        File votes = new File(dir, "votes.txt");
+        try {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+                for (String candidate : CANDIDATES) {
+                    writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+                }
+            }
+            appendBallots(votes, 0, initialBallots);
+            System.out.printf("votes.txt %.1f MB with %d ballots%n", votes.length() / 1e6, initialBallots);
+
+            VoteLogFollower follower = new VoteLogFollower(dir, pollMillis);
+            long start = System.nanoTime();
+            follower.poll();
+            System.out.printf("initial read:    %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+            BlockingQueue<Long> arrivals = new ArrayBlockingQueue<>(batches + 1);
+            follower.subscribe(delta -> {
+                if (!delta.reset) {
+                    arrivals.add(System.nanoTime());
+                }
+            });
+            follower.start();
+
+            long[] latencies = new long[batches];
+            int written = initialBallots;
+            for (int b = 0; b < batches; b++) {
+                // A batch seen half-written arrives as two deltas; only the first counts
+                arrivals.clear();
+                long appended = System.nanoTime();
+                appendBallots(votes, written, batchSize);
+                written += batchSize;
+
+                Long arrived = arrivals.poll(10 * pollMillis + 5000, TimeUnit.MILLISECONDS);
+                if (arrived == null) {
+                    throw new IllegalStateException("No delta for batch " + b);
+                }
+                latencies[b] = arrived - appended;
+            }
+            follower.close();
+            follower.poll(); // any part of the last batch the thread had not reached yet
+            Map<String, Long> totals = follower.getTotals();
+
+            long counted = 0;
+            for (int c = 0; c < CANDIDATES.length; c++) {
+                long expected = written / CANDIDATES.length + (c < written % CANDIDATES.length ? 1 : 0);
+                if (totals.get(CANDIDATES[c]) != expected) {
+                    throw new IllegalStateException("Totals " + totals + " do not match " + written + " ballots");
+                }
+                counted += expected;
+            }
+
+            Arrays.sort(latencies);
+            System.out.printf("delta latency:   median %.2f ms, max %.2f ms over %d batches of %d (poll %d ms)%n",
+                              latencies[batches / 2] / 1e6, latencies[batches - 1] / 1e6, batches, batchSize,
+                              pollMillis);
+            System.out.println("followed totals match all " + counted + " ballots");
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Append ballots [from, from + count); ballot i goes to candidate i mod 5
+     */
+    private static void appendBallots(File votes, int from, int count) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(votes, true), 1 << 20)) {
+            for (int i = from; i < from + count; i++) {
+                writer.write("2025-01-01T08:00:00.000000:VOTER_");
+                writer.write(String.format("%064x", i));
+                writer.write(':');
+                writer.write(CANDIDATES[i % CANDIDATES.length]);
+                writer.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package bench;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import utils.LoginThrottle;
+
+/**
+ * Login throttling under a credential-stuffing flood: many threads each
+ * check and fail logins for an endless stream of distinct usernames. The
+ * unbounded maps VotingSecurityManager used to keep are compared with
+ * LoginThrottle, reporting the cost of a check plus failure and the heap
+ * retained after each step of the flood.
+ *
+ * Before the flood an account is locked, and the run fails if the flood
+ * unlocks it or if three failures no longer lock an account.
+ *
+ * Usage: java bench.LoginThrottleBenchmark [threads] [steps] [usernamesPerStep] [capacity]
+ */
+public class LoginThrottleBenchmark {
+
+    private static final int MAX_LOGIN_ATTEMPTS = 3;
+    private static final long LOCKOUT = TimeUnit.MINUTES.toNanos(15);
+
+    /**
+     * A failed login as the security manager handles it: check the lock, then record the failure
+     */
+    private interface Limiter {
+        void failedLogin(String username);
+
+        int size();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int usernamesPerStep = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int capacity = args.length > 3 ? Integer.parseInt(args[3]) : 65536;
+
+        LoginThrottle throttle = new LoginThrottle(MAX_LOGIN_ATTEMPTS, LOCKOUT, LOCKOUT, capacity);
+        for (int i = 0; i < MAX_LOGIN_ATTEMPTS; i++) {
+            throttle.recordFailure("admin");
+        }
+        if (!throttle.isLocked("admin")) {
+            throw new IllegalStateException(MAX_LOGIN_ATTEMPTS + " failures did not lock the account");
+        }
+
+        System.out.println("Login flood: " + threads + " threads, " + usernamesPerStep +
+                           " new usernames per step, throttle capacity " + capacity);
+        System.out.printf("%-16s %6s %12s %12s %10s%n", "limiter", "step", "usernames", "entries", "heap MB");
+
+        AtomicLong names = new AtomicLong();
+        double legacyNanos = flood("unbounded maps", new LegacyLimiter(), threads, steps, usernamesPerStep, names);
+        double throttleNanos = flood("LoginThrottle", new Limiter() {
+            @Override
+            public void failedLogin(String username) {
+                if (!throttle.isLocked(username)) {
+                    throttle.recordFailure(username);
+                }
+            }
+
+            @Override
+            public int size() {
+                return throttle.size();
+            }
+        }, threads, steps, usernamesPerStep, names);
+
+        if (!throttle.isLocked("admin")) {
+            throw new IllegalStateException("The flood unlocked a locked account");
+        }
+        System.out.printf("check + failure: unbounded maps %.0f ns, LoginThrottle %.0f ns per thread%n",
+                          legacyNanos, throttleNanos);
+        System.out.printf("lock check alone: %.0f ns%n", checkNanos(throttle, names.get(), usernamesPerStep));
+        System.out.println("Locked account stayed locked; " + throttle.getEvictions() + " flood entries evicted");
+    }
+
+    /**
+     * Fail logins for distinct usernames in steps, reporting retained heap after each
+     *
+     * @return mean nanoseconds per failed login on one thread
+     */
+    private static double flood(String name, Limiter limiter, int threads, int steps, int usernamesPerStep,
+                                AtomicLong names) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long totalNanos = 0;
+        long totalLogins = 0;
+        try {
+            for (int step = 1; step <= steps; step++) {
+                long first = names.getAndAdd(usernamesPerStep);
+                int perThread = usernamesPerStep / threads;
+                List<Future<Long>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    long from = first + (long) t * perThread;
+                    results.add(pool.submit(() -> {
+                        long start = System.nanoTime();
+                        for (long n = from; n < from + perThread; n++) {
+                            limiter.failedLogin("user" + n);
+                        }
+                        return System.nanoTime() - start;
+                    }));
+                }
+                for (Future<Long> result : results) {
+                    totalNanos += result.get();
+                }
+                totalLogins += (long) perThread * threads;
+
+                System.gc();
+                Runtime runtime = Runtime.getRuntime();
+                System.out.printf("%-16s %6d %12d %12d %10.1f%n", name, step, (long) step * usernamesPerStep,
+                                  limiter.size(), (runtime.totalMemory() - runtime.freeMemory()) / 1e6);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return (double) totalNanos / totalLogins;
+    }
+
+    /**
+     * Mean cost of isLocked over the most recent flood usernames, names built beforehand
+     */
+    private static double checkNanos(LoginThrottle throttle, long lastName, int count) {
+        String[] usernames = new String[count];
+        for (int i = 0; i < count; i++) {
+            usernames[i] = "user" + (lastName - 1 - i);
+        }
+        int locked = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < 5; round++) {
+            for (String username : usernames) {
+                if (throttle.isLocked(username)) {
+                    locked++;
+                }
+            }
+        }
+        if (locked != 0) {
+            throw new IllegalStateException("A single failure locked an account");
+        }
+        return (System.nanoTime() - start) / (5.0 * count);
+    }
+
+    /**
+     * The per-username maps the security manager used before LoginThrottle
+     */
+    private static class LegacyLimiter implements Limiter {
+        private final Map<String, Integer> loginAttempts = new ConcurrentHashMap<>();
+        private final Map<String, LocalDateTime> lockedAccounts = new ConcurrentHashMap<>();
+
+        @Override
+        public void failedLogin(String username) {
+            LocalDateTime lockTime = lockedAccounts.get(username);
+            if (lockTime != null && !LocalDateTime.now().isAfter(lockTime.plusMinutes(15))) {
+                return;
+            }
+            if (loginAttempts.merge(username, 1, Integer::sum) >= MAX_LOGIN_ATTEMPTS) {
+                lockedAccounts.put(username, LocalDateTime.now());
+            }
+        }
+
+        @Override
+        public int size() {
+            return loginAttempts.size() + lockedAccounts.size();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package bench;
+
+import utils.PasswordDigests;
+
+/**
+ * Cost of a login in PBKDF2 mode at a range of iteration counts, to choose
+ * voting.password.iterations against a login latency budget. The SHA-256
+ * verification itself is measured by bench.jmh.PasswordDigestBenchmark.
+ *
+ * Usage: java bench.PasswordHashBenchmark [budgetMillis] [iterations,...] [millis]
+ */
+public class PasswordHashBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        double budgetMillis = args.length > 0 ? Double.parseDouble(args[0]) : 100;
+        String iterationList = args.length > 1 ? args[1] : "1000,10000,100000,310000,600000";
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+
+        System.out.printf("%-12s %14s %16s%n", "iterations", "ms/login", "logins/sec/core");
+        int chosen = 0;
+        for (String item : iterationList.split(",")) {
+            int iterations = Integer.parseInt(item.trim());
+            String hash = PasswordDigests.hash("admin123", iterations);
+            long warmupEnd = System.nanoTime() + millis * 1_000_000L / 4;
+            do {
+                PasswordDigests.verify("admin123", hash);
+            } while (System.nanoTime() < warmupEnd);
+
+            int logins = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                if (!PasswordDigests.verify("admin123", hash)) {
+                    throw new IllegalStateException("PBKDF2 hash does not verify at " + iterations + " iterations");
+                }
+                logins++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < millis * 1_000_000L && logins < 1000);
+
+            double msPerLogin = elapsed / 1e6 / logins;
+            System.out.printf("%-12d %14.2f %16.0f%n", iterations, msPerLogin, 1000 / msPerLogin);
+            if (msPerLogin <= budgetMillis) {
+                chosen = Math.max(chosen, iterations);
+            }
+        }
+
+        if (chosen > 0) {
+            System.out.printf("Largest measured count within %.0f ms per login: -Dvoting.password.iterations=%d%n",
+                              budgetMillis, chosen);
+        } else {
+            System.out.printf("No measured count fits %.0f ms per login; keep the SHA-256 default%n", budgetMillis);
+        }
+    }
+}
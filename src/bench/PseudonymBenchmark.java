@@ -0,0 +1,64 @@
+package bench;
+
+import java.security.SecureRandom;
+import java.util.*;
+import utils.VoterPseudonymizer;
+import utils.VoterRegistry;
+
+/**
+ * Time to precompute keyed pseudonyms for a whole roll, and collisions of
+ * the legacy hash code against keyed HMAC-SHA256 pseudonyms. The cost per
+ * vote of each way of deriving a pseudonym is measured by
+ * bench.jmh.PseudonymDerivationBenchmark.
+ *
+ * Usage: java -Xmx2g bench.PseudonymBenchmark [voters] [collisionSample]
+ */
+public class PseudonymBenchmark {
+
+    // Multiplier coprime to 10^8: spreads voter numbers over the whole 8-digit space
+    private static final long ID_MULTIPLIER = 48271;
+
+    public static void main(String[] args) throws Exception {
+        int voters = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int sample = args.length > 1 ? Integer.parseInt(args[1]) : 20_000_000;
+
+        int[] ids = new int[voters];
+        for (int i = 0; i < voters; i++) {
+            ids[i] = voterId(i);
+        }
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        VoterPseudonymizer precomputed = new VoterPseudonymizer(key);
+
+        long begin = System.nanoTime();
+        precomputed.precompute(ids);
+        System.out.printf("Precomputed %d pseudonyms in %d ms%n", voters, (System.nanoTime() - begin) / 1_000_000);
+
+        System.out.println("Legacy hash collisions among " + sample + " voter IDs: " + legacyCollisions(sample));
+        System.out.println("Keyed pseudonyms are 256-bit HMACs; a collision needs a SHA-256 collision.");
+    }
+
+    /**
+     * Voters whose legacy hash code equals an earlier voter's
+     */
+    private static long legacyCollisions(int sample) {
+        int[] hashes = new int[sample];
+        for (int i = 0; i < sample; i++) {
+            hashes[i] = Math.abs(VoterRegistry.formatId(voterId(i)).hashCode());
+        }
+        Arrays.sort(hashes);
+
+        long collisions = 0;
+        for (int i = 1; i < sample; i++) {
+            if (hashes[i] == hashes[i - 1]) {
+                collisions++;
+            }
+        }
+        return collisions;
+    }
+
+    private static int voterId(int i) {
+        return (int) ((i * ID_MULTIPLIER + 12_345_679) % VoterRegistry.ID_SPACE);
+    }
+}
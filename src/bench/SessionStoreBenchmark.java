@@ -0,0 +1,131 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import utils.SessionStore;
+
+/**
+ * Session store under a day's worth of logins compressed into seconds:
+ * cost of creating and validating sessions as the live count grows, the
+ * cost of an expiry pass against scanning every session, and checks that
+ * idle sessions expire, sessions in use survive, and the cap holds.
+ *
+ * Usage: java bench.SessionStoreBenchmark [sessions] [threads] [idleMillis]
+ */
+public class SessionStoreBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long idleMillis = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+
+        long tick = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleMillis / 50));
+        SessionStore store = new SessionStore(TimeUnit.MILLISECONDS.toNanos(idleMillis),
+                                              TimeUnit.MILLISECONDS.toNanos(idleMillis * 10), sessions, tick);
+        AtomicInteger expiredSeen = new AtomicInteger();
+        store.addListener(session -> expiredSeen.incrementAndGet());
+        store.start();
+
+        String[] tokens = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            tokens[i] = "token-" + i;
+        }
+        System.out.println("Session store: " + sessions + " sessions, " + threads + " threads, idle timeout " +
+                           idleMillis + " ms");
+
+        // Creation and validation at growing live counts
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        int created = 0;
+        for (int target = Math.max(1, sessions / 100); target <= sessions; target *= 10) {
+            int from = created;
+            int to = target;
+            double createNanos = parallel(pool, threads, from, to, i -> {
+                if (store.create(tokens[i], "voter" + i, "VOTER") == null) {
+                    throw new IllegalStateException("Refused below the cap");
+                }
+            });
+            created = to;
+            int live = created;
+            double validateNanos = parallel(pool, threads, 0, 1_000_000, i -> {
+                if (store.validate(tokens[(int) ((i * 2654435761L) % live)]) == null) {
+                    throw new IllegalStateException("Live session not found");
+                }
+            });
+            System.out.printf("%9d live: create %6.0f ns, validate %6.0f ns%n", live, createNanos, validateNanos);
+        }
+
+        if (store.create("one-too-many", "voter", "VOTER") != null) {
+            throw new IllegalStateException("Session cap not enforced");
+        }
+
+        // One tick of the wheel versus scanning a map of last-use times for idle sessions
+        Map<String, Long> lastUsed = new ConcurrentHashMap<>();
+        long now = System.nanoTime();
+        for (int i = 0; i < created; i++) {
+            lastUsed.put(tokens[i], now);
+        }
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        long start = System.nanoTime();
+        int expiredNow = store.expire();
+        double passMicros = (System.nanoTime() - start) / 1e3;
+        start = System.nanoTime();
+        lastUsed.values().removeIf(used -> System.nanoTime() - used > idleNanos);
+        double scanMicros = (System.nanoTime() - start) / 1e3;
+        System.out.printf("expiry tick %.0f us (%d expired) vs full scan %.0f us over %d sessions%n",
+                          passMicros, expiredNow, scanMicros, lastUsed.size());
+
+        // Keep a tenth in use through the idle timeout; the rest must expire
+        int kept = Math.max(1, created / 10);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(idleMillis * 2);
+        while (System.nanoTime() < deadline) {
+            parallel(pool, threads, 0, kept, i -> store.validate(tokens[i]));
+            Thread.sleep(Math.max(1, idleMillis / 10));
+        }
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(tick) * 3);
+        pool.shutdown();
+        store.close();
+
+        if (store.size() != kept || expiredSeen.get() != created - kept) {
+            throw new IllegalStateException(store.size() + " live and " + expiredSeen.get() + " expired, expected " +
+                                            kept + " and " + (created - kept));
+        }
+        for (int i = 0; i < kept; i++) {
+            if (store.validate(tokens[i]) == null) {
+                throw new IllegalStateException("A session in use expired");
+            }
+        }
+        System.out.println("Idle sessions expired by the wheel: " + expiredSeen.get() + ", sessions in use kept: " +
+                           kept);
+    }
+
+    private interface Task {
+        void run(int i);
+    }
+
+    /**
+     * Run task for [from, to) split across threads
+     *
+     * @return mean nanoseconds per call on one thread
+     */
+    private static double parallel(ExecutorService pool, int threads, int from, int to, Task task) throws Exception {
+        int count = to - from;
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int lo = from + (int) ((long) count * t / threads);
+            int hi = from + (int) ((long) count * (t + 1) / threads);
+            results.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                for (int i = lo; i < hi; i++) {
+                    task.run(i);
+                }
+                return System.nanoTime() - start;
+            }));
+        }
+        long nanos = 0;
+        for (Future<Long> result : results) {
+            nanos += result.get();
+        }
+        return count == 0 ? 0 : (double) nanos / count;
+    }
+}
@@ -0,0 +1,157 @@
+package bench;
+
+import java.io.*;
+import utils.ShardedDataManager;
+import utils.VoterRegistry;
+
+/**
+ * Sharded data layer: cost of loading a constituency on first access,
+ * routed calls against loaded shards, and heap held by loaded shards
+ * before and after idle eviction.
+ *
+ * Each constituency gets an equal slice of the 8-digit ID space, a roll of
+ * the requested size, two candidates and an active session. Votes are
+ * cast in the first few constituencies only, as when a handful of booths
+ * are open at a time.
+ *
+ * Usage: java bench.ShardBenchmark [constituencies] [votersPerShard] [activeShards]
+ */
+public class ShardBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int constituencies = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int votersPerShard = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int activeShards = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        int slice = VoterRegistry.ID_SPACE / constituencies;
+        if (votersPerShard > slice || activeShards > constituencies) {
+            throw new IllegalArgumentException("Need votersPerShard <= 10^8 / constituencies and activeShards <= constituencies");
+        }
+
+        File root = createTempDir();
+        PrintStream console = System.out;
+        try {
+            createShards(root, constituencies, votersPerShard, slice);
+
+            // Eviction is driven by hand below
+            System.setOut(quiet());
+            ShardedDataManager shards = new ShardedDataManager(root, Long.MAX_VALUE / 1_000_000);
+            long baseline = usedHeap();
+
+            long loadStart = System.nanoTime();
+            for (int s = 0; s < activeShards; s++) {
+                shards.withConstituency("C" + s, data -> data.getTotalVotes());
+            }
+            long loadNanos = System.nanoTime() - loadStart;
+
+            int ballots = Math.min(votersPerShard, 2_000);
+            long voteStart = System.nanoTime();
+            for (int i = 0; i < ballots; i++) {
+                for (int s = 0; s < activeShards; s++) {
+                    String voterID = VoterRegistry.formatId(s * slice + i);
+                    if (!shards.recordVote(voterID, i % 2 == 0 ? "A" : "B")) {
+                        throw new IllegalStateException("Vote rejected for " + voterID);
+                    }
+                }
+            }
+            long voteNanos = System.nanoTime() - voteStart;
+
+            long lookupStart = System.nanoTime();
+            int voted = 0;
+            for (int i = 0; i < ballots; i++) {
+                for (int s = 0; s < activeShards; s++) {
+                    voted += shards.hasVoterVoted(VoterRegistry.formatId(s * slice + i)) ? 1 : 0;
+                }
+            }
+            long lookupNanos = System.nanoTime() - lookupStart;
+            long loaded = usedHeap() - baseline;
+
+            int evicted = shards.evictIdleShards(0);
+            long afterEviction = usedHeap() - baseline;
+            shards.close();
+            System.setOut(console);
+
+            if (voted != ballots * activeShards) {
+                throw new IllegalStateException("Found " + voted + " voters who voted, expected " + ballots * activeShards);
+            }
+            System.out.printf("%d constituencies, %d voters each, %d active%n", constituencies, votersPerShard, activeShards);
+            System.out.printf("first access:  %.1f ms per shard%n", loadNanos / 1e6 / activeShards);
+            System.out.printf("recordVote:    %.1f us per vote (%d votes)%n", voteNanos / 1e3 / (ballots * activeShards),
+                              ballots * activeShards);
+            System.out.printf("hasVoterVoted: %.0f ns per lookup%n", (double) lookupNanos / (ballots * activeShards));
+            System.out.printf("heap:          %.1f MB with %d shards loaded, %.1f MB after evicting %d%n",
+                              loaded / 1e6, activeShards, afterEviction / 1e6, evicted);
+        } finally {
+            System.setOut(console);
+            deleteRecursively(root);
+        }
+    }
+
+    /**
+     * shards.txt and one data directory per constituency
+     */
+    private static void createShards(File root, int constituencies, int votersPerShard, int slice) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(root, ShardedDataManager.SHARDS_FILE)))) {
+            for (int s = 0; s < constituencies; s++) {
+                writer.println("C" + s + ":" + VoterRegistry.formatId(s * slice) + ":" +
+                               VoterRegistry.formatId(s * slice + slice - 1));
+            }
+        }
+
+        for (int s = 0; s < constituencies; s++) {
+            File dir = new File(root, "C" + s);
+            dir.mkdir();
+            try (Writer writer = new BufferedWriter(new FileWriter(new File(dir, "voters.txt")), 1 << 16)) {
+                for (int i = 0; i < votersPerShard; i++) {
+                    writer.write(VoterRegistry.formatId(s * slice + i));
+                    writer.write('\n');
+                }
+            }
+            try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+                writer.println("A:Candidate A:Party A");
+                writer.println("B:Candidate B:Party B");
+            }
+            try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "session.txt")))) {
+                writer.println("ACTIVE");
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static PrintStream quiet() {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("shard-bench", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
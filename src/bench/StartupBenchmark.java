@@ -0,0 +1,140 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import utils.DataManager;
+import utils.VoterPseudonymizer;
+import utils.VoterRegistry;
+
+/**
+ * Cold-start benchmark: loading a large roll and vote log one file at a
+ * time versus the parallel startup.
+ *
+ * A data directory with the requested number of registered voters and
+ * ballots is generated once; each run opens a fresh DataManager on it and
+ * reports the duration of every startup phase. The tally checkpoint is
+ * removed between runs so every run replays the whole vote log.
+ *
+ * Usage: java bench.StartupBenchmark [voters] [ballots] [runs]
+ */
+public class StartupBenchmark {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+
+    // Multiplier coprime to 10^8: spreads voter numbers over the whole 8-digit space
+    private static final long ID_MULTIPLIER = 48271;
+
+    public static void main(String[] args) throws Exception {
+        int voters = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int ballots = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        if (voters > VoterRegistry.ID_SPACE || ballots > voters) {
+            throw new IllegalArgumentException("Need ballots <= voters <= 10^8");
+        }
+
+        File dir = createTempDir();
+        System.out.println("Generating " + voters + " voters and " + ballots + " ballots in " + dir);
+        createDataDir(dir, voters, ballots);
+        System.out.printf("voters.txt %.1f MB, votes.txt %.1f MB, %d processors%n",
+                          new File(dir, "voters.txt").length() / 1e6, new File(dir, "votes.txt").length() / 1e6,
+                          Runtime.getRuntime().availableProcessors());
+
+        PrintStream console = System.out;
+        try {
+            for (int run = 1; run <= runs; run++) {
+                for (boolean parallel : new boolean[]{false, true}) {
+                    new File(dir, "tally.checkpoint").delete();
+                    System.gc();
+
+                    System.setOut(new PrintStream(new OutputStream() {
+                        @Override
+                        public void write(int b) {
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) {
+                        }
+                    }));
+
+                    DataManager dataManager = new DataManager(dir);
+                    dataManager.setParallelStartup(parallel);
+                    dataManager.initializeDataFiles();
+                    String report = dataManager.getStartupReport();
+                    int votes = dataManager.getTotalVotes();
+                    dataManager.shutdown();
+
+                    System.setOut(console);
+                    if (votes != ballots) {
+                        throw new IllegalStateException("Loaded " + votes + " votes, expected " + ballots);
+                    }
+                    System.out.println("run " + run + ": " + report);
+                }
+            }
+        } finally {
+            System.setOut(console);
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Distinct 8-digit ID for every index below 10^8
+     */
+    private static int voterId(int i) {
+        return (int) ((i * ID_MULTIPLIER + 12_345_679) % 100_000_000);
+    }
+
+    /**
+     * Voter roll, five candidates, an active session and a text vote log
+     * in which the first voters of the roll have voted
+     */
+    private static void createDataDir(File dir, int voters, int ballots) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(new File(dir, "voters.txt")), 1 << 20)) {
+            for (int i = 0; i < voters; i++) {
+                writer.write(VoterRegistry.formatId(voterId(i)));
+                writer.write('\n');
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+            for (String candidate : CANDIDATES) {
+                writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "session.txt")))) {
+            writer.println("ACTIVE");
+        }
+
+        // Ballots carry keyed pseudonyms under the directory's election key
+        VoterPseudonymizer pseudonymizer = VoterPseudonymizer.open(new File(dir, "election.key"));
+        try (Writer writer = new BufferedWriter(new FileWriter(new File(dir, "votes.txt")), 1 << 20)) {
+            writer.write("# Vote Records\n# Format: TIMESTAMP:VOTER_HASH:CANDIDATE_ID\n\n");
+            for (int i = 0; i < ballots; i++) {
+                writer.write("2025-01-01T08:00:00.000000:");
+                writer.write(pseudonymizer.pseudonym(voterId(i)));
+                writer.write(':');
+                writer.write(CANDIDATES[i % CANDIDATES.length]);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("startup-bench", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,86 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import utils.CandidateTally;
+
+/**
+ * Contention benchmark for per-candidate tallies with a hot front-runner.
+ *
+ * 80% of increments go to candidate 0. Compares a boxed concurrent map,
+ * LongAdder per candidate, and the striped CandidateTally at several
+ * stripe counts, reporting CAS retries for the striped variants.
+ *
+ * Usage: java bench.TallyContentionBenchmark [threads] [incrementsPerThread]
+ */
+public class TallyContentionBenchmark {
+
+    private static final int CANDIDATES = 8;
+
+    private interface Counter {
+        void increment(int candidate);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int increments = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        System.out.println("Tally contention: " + threads + " threads x " + increments + " votes, 80% on one candidate");
+        System.out.printf("%-26s %14s %14s%n", "tally", "votes/sec", "CAS retries");
+
+        for (int round = 0; round < 2; round++) {
+            ConcurrentHashMap<Integer, Integer> boxed = new ConcurrentHashMap<>();
+            report("ConcurrentHashMap<Integer>", run(threads, increments, c -> boxed.merge(c, 1, Integer::sum)), -1);
+
+            LongAdder[] adders = new LongAdder[CANDIDATES];
+            for (int c = 0; c < CANDIDATES; c++) {
+                adders[c] = new LongAdder();
+            }
+            report("LongAdder per candidate", run(threads, increments, c -> adders[c].increment()), -1);
+
+            for (int stripes : new int[]{1, 4, CandidateTally.defaultStripes()}) {
+                CandidateTally tally = new CandidateTally(CANDIDATES, stripes);
+                double rate = run(threads, increments, tally::increment);
+                if (tally.total() != (long) threads * increments) {
+                    throw new IllegalStateException("Lost updates in striped tally");
+                }
+                report("CandidateTally x" + tally.getStripeCount(), rate, tally.getTotalRetries());
+            }
+            System.out.println();
+        }
+    }
+
+    private static double run(int threads, int increments, Counter counter) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            results.add(pool.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                start.await();
+                for (int i = 0; i < increments; i++) {
+                    int roll = random.nextInt(100);
+                    counter.increment(roll < 80 ? 0 : 1 + roll % (CANDIDATES - 1));
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+
+        return (double) threads * increments / seconds;
+    }
+
+    private static void report(String name, double votesPerSec, long retries) {
+        System.out.printf("%-26s %14.0f %14s%n", name, votesPerSec, retries < 0 ? "-" : String.valueOf(retries));
+    }
+}
@@ -0,0 +1,147 @@
+package bench;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import utils.VoteJournal;
+
+/**
+ * Throughput/latency benchmark for the group-commit vote journal.
+ *
+ * Two baselines come first. "open/println/close" is how votes were written
+ * before the journal: the file is reopened per vote and the line flushed on
+ * close, but never forced to disk, so it is not durable. "fsync per vote"
+ * adds a sync to each vote; it is the cost of durability without batching,
+ * not a previous mode.
+ *
+ * Usage: java bench.VoteJournalBenchmark [threads] [votesPerThread]
+ */
+public class VoteJournalBenchmark {
+
+    private static final long[] BATCH_WINDOWS_MICROS = {0, 500, 2000, 5000};
+    private static final int MAX_BATCH_RECORDS = 1024;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int votesPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        System.out.println("Vote journal benchmark: " + threads + " threads x " + votesPerThread + " votes");
+        System.out.printf("%-22s %12s %10s %10s %10s %12s%n",
+                          "mode", "votes/sec", "p50 (us)", "p99 (us)", "max (us)", "votes/batch");
+
+        runPerVoteOpenClose(threads, votesPerThread);
+        runPerVoteSync(threads, votesPerThread);
+        for (long window : BATCH_WINDOWS_MICROS) {
+            runGroupCommit(threads, votesPerThread, window);
+        }
+    }
+
+    /**
+     * Baseline: the previous behaviour, reopening the file and flushing the line on close, without forcing it
+     */
+    private static void runPerVoteOpenClose(int threads, int votesPerThread) throws Exception {
+        File file = File.createTempFile("votes-baseline", ".txt");
+        file.deleteOnExit();
+
+        long[] latencies = runLoad(threads, votesPerThread, line -> {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+                writer.println(line);
+            }
+        });
+        report("open/println/close", latencies, -1);
+    }
+
+    /**
+     * Reference: one durable write per vote, serialized on the file
+     */
+    private static void runPerVoteSync(int threads, int votesPerThread) throws Exception {
+        File file = File.createTempFile("votes-sync", ".txt");
+        file.deleteOnExit();
+        Object fileLock = new Object();
+
+        long[] latencies = runLoad(threads, votesPerThread, line -> {
+            synchronized (fileLock) {
+                try (FileOutputStream out = new FileOutputStream(file, true)) {
+                    out.write((line + System.lineSeparator()).getBytes("UTF-8"));
+                    out.getFD().sync();
+                }
+            }
+        });
+        report("fsync per vote", latencies, -1);
+    }
+
+    /**
+     * Group commit with the given batch window
+     */
+    private static void runGroupCommit(int threads, int votesPerThread, long windowMicros) throws Exception {
+        File file = File.createTempFile("votes-journal", ".txt");
+        file.deleteOnExit();
+
+        try (VoteJournal journal = new VoteJournal(file, windowMicros, MAX_BATCH_RECORDS)) {
+            long[] latencies = runLoad(threads, votesPerThread, journal::appendLine);
+            double perBatch = journal.getRecordsCommitted() / (double) Math.max(1, journal.getBatchesCommitted());
+            report("group commit " + windowMicros + "us", latencies, perBatch);
+        }
+    }
+
+    private interface VoteWriter {
+        void write(String line) throws IOException;
+    }
+
+    /**
+     * Drive the writer from several threads and return sorted per-vote latencies in nanoseconds
+     */
+    private static long[] runLoad(int threads, int votesPerThread, VoteWriter writer) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int threadId = t;
+            results.add(pool.submit(() -> {
+                long[] samples = new long[votesPerThread];
+                start.await();
+                for (int i = 0; i < votesPerThread; i++) {
+                    String line = "2025-01-01T00:00:00:VOTER_" + (threadId * votesPerThread + i) + ":C" + (i % 5);
+                    long begin = System.nanoTime();
+                    writer.write(line);
+                    samples[i] = System.nanoTime() - begin;
+                }
+                return samples;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        long[] all = new long[threads * votesPerThread];
+        int offset = 0;
+        for (Future<long[]> result : results) {
+            long[] samples = result.get();
+            System.arraycopy(samples, 0, all, offset, samples.length);
+            offset += samples.length;
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+
+        Arrays.sort(all);
+        lastElapsedNanos = elapsed;
+        return all;
+    }
+
+    private static long lastElapsedNanos;
+
+    private static void report(String mode, long[] sortedLatencies, double votesPerBatch) {
+        double votesPerSec = sortedLatencies.length / (lastElapsedNanos / 1e9);
+        System.out.printf("%-22s %12.0f %10.1f %10.1f %10.1f %12s%n",
+                          mode, votesPerSec,
+                          percentile(sortedLatencies, 0.50) / 1e3,
+                          percentile(sortedLatencies, 0.99) / 1e3,
+                          sortedLatencies[sortedLatencies.length - 1] / 1e3,
+                          votesPerBatch < 0 ? "1" : String.format("%.1f", votesPerBatch));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+        return sorted[index];
+    }
+}
@@ -0,0 +1,101 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import utils.VoterRegistry;
+
+/**
+ * Memory footprint and lookup cost of the voter roll: a concurrent set of
+ * ID strings (the previous representation) against the VoterRegistry
+ * bitset. Heap figures are measured after a GC; per-voter costs are
+ * extrapolated to a full 10^8-ID roll. The string set is measured on at
+ * most 2M voters, since a large roll of strings does not fit in a normal heap.
+ *
+ * Usage: java -Xmx4g bench.VoterRegistryFootprint [voters] [lookups]
+ */
+public class VoterRegistryFootprint {
+
+    // Multiplier coprime to 10^8: spreads voter numbers over the whole 8-digit space
+    private static final long ID_MULTIPLIER = 48271;
+    private static final int MAX_STRING_SAMPLE = 2_000_000;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        int voters = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+
+        String[] probes = new String[4096];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = voterId(i * 2 % Math.max(1, voters * 2));
+        }
+
+        System.out.println("Voter roll footprint, " + voters + " voters");
+        System.out.printf("%-28s %12s %14s %16s %12s%n", "representation", "heap MB", "bytes/voter",
+                          "10^8 roll MB", "ns/lookup");
+
+        long before = usedHeap();
+        VoterRegistry registry = new VoterRegistry();
+        for (int i = 0; i < voters; i++) {
+            registry.add(voterId(i));
+        }
+        long registryBytes = usedHeap() - before;
+        report("VoterRegistry (bitset)", registryBytes, voters, time(registry::contains, probes, lookups));
+        long registryReported = registry.memoryBytes();
+        registry = null;
+
+        int sample = Math.min(voters, MAX_STRING_SAMPLE);
+        before = usedHeap();
+        Set<String> strings = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < sample; i++) {
+            strings.add(voterId(i));
+        }
+        long stringBytes = usedHeap() - before;
+        report("ConcurrentHashMap<String>", stringBytes, sample, time(strings::contains, probes, lookups));
+
+        System.out.printf("VoterRegistry self-reported: %.1f MB, full 10^8 roll bound: %.1f MB%n",
+                          registryReported / 1048576.0, VoterRegistry.ID_SPACE / 8.0 / 1048576.0);
+    }
+
+    private interface Lookup {
+        boolean contains(String voterID);
+    }
+
+    private static double time(Lookup lookup, String[] probes, int lookups) {
+        int hits = 0;
+        for (int round = 0; round < 2; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                if (lookup.contains(probes[i & (probes.length - 1)])) {
+                    hits++;
+                }
+            }
+            if (round == 1) {
+                sink += hits;
+                return (double) (System.nanoTime() - begin) / lookups;
+            }
+        }
+        return 0;
+    }
+
+    private static void report(String name, long bytes, int voters, double nanosPerLookup) {
+        // The bitset does not grow per voter, so a full roll costs at most one bit per ID
+        double fullRollMB = name.startsWith("VoterRegistry")
+            ? VoterRegistry.ID_SPACE / 8.0 / 1048576.0
+            : (double) bytes / voters * VoterRegistry.ID_SPACE / 1048576.0;
+        System.out.printf("%-28s %12.1f %14.1f %16.0f %12.1f%n", name, bytes / 1048576.0,
+                          (double) bytes / voters, fullRollMB, nanosPerLookup);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String voterId(int i) {
+        return VoterRegistry.formatId((int) ((i * ID_MULTIPLIER + 12_345_679) % VoterRegistry.ID_SPACE));
+    }
+}
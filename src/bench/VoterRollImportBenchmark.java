@@ -0,0 +1,194 @@
+package bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import utils.DataManager;
+import utils.VoterRegistry;
+import utils.VoterRollImport;
+
+/**
+ * Loading an electoral roll: one addVoter/removeVoter call per ID, as the
+ * admin functions do, versus the bulk import and removal pipeline.
+ *
+ * A CSV roll is generated with a header row, quoted names containing
+ * commas, repeated IDs and malformed rows. The per-ID path is timed on a
+ * sample and its rate reported; the bulk runs cover the whole roll. The
+ * counts are checked against the expected ones and voters.txt is reloaded
+ * to confirm it holds the imported roll.
+ *
+ * Usage: java bench.VoterRollImportBenchmark [rows] [sampleRows]
+ */
+public class VoterRollImportBenchmark {
+
+    // Multiplier coprime to 10^8: spreads voter numbers over the whole 8-digit space
+    private static final long ID_MULTIPLIER = 48271;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int sampleRows = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        if (rows > VoterRegistry.ID_SPACE) {
+            throw new IllegalArgumentException("At most 10^8 rows");
+        }
+        System.setProperty("voting.maxVoters", String.valueOf(VoterRegistry.ID_SPACE));
+
+        File dir = createTempDir();
+        try {
+            DataManager dataManager = open(new File(dir, "data"));
+            Set<String> initialRoll = new HashSet<>(dataManager.getRegisteredVoters());
+            int initial = initialRoll.size();
+
+            File roll = new File(dir, "roll.csv");
+            File removals = new File(dir, "removals.csv");
+            int[] expected = writeRolls(roll, removals, rows, initialRoll);
+            System.out.printf("Roll of %d rows (%.1f MB): %d distinct voters, %d repeats, %d malformed%n",
+                              rows, roll.length() / 1e6, expected[0], expected[1], expected[2]);
+
+            // Per-ID admin path on a sample of the roll, undone before the bulk runs
+            List<String> sample = sampleIds(roll, sampleRows, initialRoll);
+            long start = System.nanoTime();
+            for (String id : sample) {
+                dataManager.addVoter(id);
+            }
+            double addRate = sample.size() * 1e9 / (System.nanoTime() - start);
+            int removeSample = Math.min(sample.size(), 200);
+            start = System.nanoTime();
+            for (String id : sample.subList(0, removeSample)) {
+                dataManager.removeVoter(id);
+            }
+            double removeRate = removeSample * 1e9 / (System.nanoTime() - start);
+            for (String id : sample.subList(removeSample, sample.size())) {
+                dataManager.removeVoter(id);
+            }
+
+            VoterRollImport.Result added = dataManager.importVoters(roll, 1);
+            check(added.changed == expected[0] - expected[4] &&
+                  added.invalid == expected[2] && added.voters == initial + added.changed, added);
+            VoterRollImport.Result removed = dataManager.removeVoters(removals, 0);
+            check(removed.changed == expected[3] && removed.voters == added.voters - expected[3], removed);
+            dataManager.shutdown();
+
+            DataManager reloaded = open(new File(dir, "data"));
+            int reloadedVoters = reloaded.getRegisteredVoters().size();
+            reloaded.shutdown();
+            if (reloadedVoters != removed.voters) {
+                throw new IllegalStateException("voters.txt holds " + reloadedVoters + " voters, expected " +
+                                                removed.voters);
+            }
+
+            System.out.printf("%-28s %14s%n", "path", "rows/sec");
+            System.out.printf("%-28s %14.0f%n", "addVoter per ID (" + sample.size() + ")", addRate);
+            System.out.printf("%-28s %14.0f%n", "removeVoter per ID (" + removeSample + ")", removeRate);
+            System.out.printf("%-28s %14.0f%n", "importVoters", added.rowsPerSecond());
+            System.out.printf("%-28s %14.0f%n", "removeVoters", removed.rowsPerSecond());
+            System.out.println(added);
+            System.out.println(removed);
+            System.out.println("voters.txt reloaded with " + reloadedVoters + " voters");
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Write the roll and a removal list of every other distinct voter
+     *
+     * @return distinct voters, repeated rows, malformed rows, voters to remove, voters already registered
+     */
+    private static int[] writeRolls(File roll, File removals, int rows, Set<String> registered) throws IOException {
+        Random random = new Random(42);
+        int distinct = 0;
+        int repeats = 0;
+        int malformed = 1; // the header row
+        int toRemove = 0;
+        int overlap = 0;
+
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                 new FileOutputStream(roll), StandardCharsets.UTF_8), 1 << 16));
+             PrintWriter remove = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                 new FileOutputStream(removals), StandardCharsets.UTF_8), 1 << 16))) {
+            out.println("name,voter_id,constituency");
+            for (int row = 0; row < rows; row++) {
+                int roll100 = random.nextInt(100);
+                String id;
+                if (roll100 == 0) {
+                    id = "12-34567";
+                    malformed++;
+                } else if (roll100 < 5 && distinct > 0) {
+                    id = VoterRegistry.formatId(voterId(random.nextInt(distinct)));
+                    repeats++;
+                } else {
+                    id = VoterRegistry.formatId(voterId(distinct));
+                    if (registered.contains(id)) {
+                        overlap++;
+                    }
+                    if (distinct % 2 == 0) {
+                        remove.println(id);
+                        toRemove++;
+                    }
+                    distinct++;
+                }
+                out.println("\"Voter " + row + ", Ward " + (row % 97) + "\",\"" + id + "\",C" + (row % 543));
+            }
+        }
+        return new int[]{distinct, repeats, malformed, toRemove, overlap};
+    }
+
+    private static int voterId(int n) {
+        return (int) ((n * ID_MULTIPLIER) % VoterRegistry.ID_SPACE);
+    }
+
+    /**
+     * Distinct well-formed IDs from the start of the roll that are not yet registered
+     */
+    private static List<String> sampleIds(File roll, int count, Set<String> registered) throws IOException {
+        Set<String> ids = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(roll),
+                                                                              StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while (ids.size() < count && (line = reader.readLine()) != null) {
+                String id = line.substring(line.indexOf("\",\"") + 3, line.lastIndexOf('"'));
+                if (VoterRegistry.parseId(id) >= 0 && !registered.contains(id)) {
+                    ids.add(id);
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private static DataManager open(File dir) throws IOException {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            DataManager dataManager = new DataManager(dir);
+            dataManager.initializeDataFiles();
+            return dataManager;
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static void check(boolean ok, VoterRollImport.Result result) {
+        if (!ok) {
+            throw new IllegalStateException("Unexpected counts: " + result);
+        }
+    }
+
+    private static File createTempDir() throws IOException {
+        File dir = File.createTempFile("roll-bench", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
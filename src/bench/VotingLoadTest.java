@@ -0,0 +1,200 @@
+package bench;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import main.VotingServer;
+import utils.VirtualThreads;
+
+/**
+ * Load test for the headless voting API.
+ *
+ * For each concurrency level, starts a server on a fresh data directory and
+ * lets that many voters run login, candidate listing and ballot casting at
+ * the same time, one client per virtual thread. Reports latency percentiles
+ * of the whole interaction and the achieved throughput.
+ *
+ * Usage: java bench.VotingLoadTest [level ...]   (default 10 100 1000 10000)
+ */
+public class VotingLoadTest {
+
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4", "C5"};
+
+    public static void main(String[] args) throws Exception {
+        int[] levels = {10, 100, 1000, 10000};
+        if (args.length > 0) {
+            levels = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                levels[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("Voting API load test, " + (VirtualThreads.isAvailable() ? "virtual" : "platform") +
+                           " threads, " + Runtime.getRuntime().availableProcessors() + " CPUs");
+        System.out.printf("%8s %10s %10s %10s %10s %10s %12s%n",
+                          "voters", "failed", "p50 ms", "p95 ms", "p99 ms", "max ms", "ballots/sec");
+
+        for (int level : levels) {
+            run(level);
+        }
+    }
+
+    /**
+     * One load level on a fresh server
+     */
+    private static void run(int voters) throws Exception {
+        File dir = createDataDir(voters);
+        VotingServer server = new VotingServer(dir, 0);
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getPort();
+
+        long[] latencies = new long[voters];
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = VirtualThreads.newPerTaskExecutor();
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < voters; i++) {
+            final int voter = i;
+            results.add(clients.submit(() -> {
+                start.await();
+                long begin = System.nanoTime();
+                if (!castBallot(baseUrl, voterId(voter), CANDIDATES[voter % CANDIDATES.length])) {
+                    failed.incrementAndGet();
+                }
+                latencies[voter] = System.nanoTime() - begin;
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        clients.shutdown();
+        server.stop();
+
+        Arrays.sort(latencies);
+        System.out.printf("%8d %10d %10.1f %10.1f %10.1f %10.1f %12.0f%n",
+                          voters, failed.get(),
+                          percentile(latencies, 0.50), percentile(latencies, 0.95),
+                          percentile(latencies, 0.99), latencies[voters - 1] / 1e6,
+                          (voters - failed.get()) / seconds);
+
+        deleteRecursively(dir);
+    }
+
+    /**
+     * Full voter interaction: authenticate, fetch candidates, cast
+     */
+    private static boolean castBallot(String baseUrl, String voterId, String candidateId) {
+        try {
+            String login = request(baseUrl + "/api/login", "POST", null,
+                                   "{\"username\":\"" + voterId + "\",\"userType\":\"VOTER\"}");
+            int tokenStart = login == null ? -1 : login.indexOf("\"token\":\"");
+            if (tokenStart < 0) {
+                return false;
+            }
+            tokenStart += "\"token\":\"".length();
+            String token = login.substring(tokenStart, login.indexOf('"', tokenStart));
+
+            if (request(baseUrl + "/api/candidates", "GET", null, null) == null) {
+                return false;
+            }
+            return request(baseUrl + "/api/vote", "POST", token,
+                           "{\"candidateId\":\"" + candidateId + "\"}") != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Send a request; returns the body of a 200 reply, otherwise null
+     */
+    private static String request(String url, String method, String token, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(60_000);
+        connection.setReadTimeout(60_000);
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + token);
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        int status = connection.getResponseCode();
+        InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] buffer = new byte[512];
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    reply.write(buffer, 0, read);
+                }
+            }
+        }
+        return status == 200 ? new String(reply.toByteArray(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Distinct 8-digit IDs that pass the Aadhaar pattern checks
+     */
+    private static String voterId(int i) {
+        return String.valueOf(10_000_000 + i * 7);
+    }
+
+    /**
+     * Create a data directory with a voter roll and an active session
+     */
+    private static File createDataDir(int voters) throws IOException {
+        File dir = File.createTempFile("vote-load", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Could not create scratch directory");
+        }
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, "voters.txt"))))) {
+            for (int i = 0; i < voters; i++) {
+                writer.println(voterId(i));
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "candidates.txt")))) {
+            for (String candidate : CANDIDATES) {
+                writer.println(candidate + ":Candidate " + candidate + ":Party " + candidate);
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "session.txt")))) {
+            writer.println("ACTIVE");
+        }
+
+        return dir;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,54 @@
+package main;
+
+import java.io.*;
+import java.util.*;
+import utils.VoteLogFollower;
+
+/**
+ * Live results for an observer machine that can read a booth's data
+ * directory (shared or synced). Prints the running tally whenever new
+ * ballots are appended to the vote log, without ever re-reading it.
+ *
+ * Usage: java main.ResultsMonitor [--poll millis] [dataDir]
+ */
+public class ResultsMonitor {
+
+    public static void main(String[] args) throws InterruptedException {
+        long pollMillis = 1000;
+        File dataDir = new File("data");
+        for (int i = 0; i < args.length; i++) {
+            if ("--poll".equals(args[i]) && i + 1 < args.length) {
+                pollMillis = Long.parseLong(args[++i]);
+            } else {
+                dataDir = new File(args[i]);
+            }
+        }
+        if (!dataDir.isDirectory()) {
+            System.err.println("Usage: java main.ResultsMonitor [--poll millis] [dataDir]");
+            System.exit(2);
+        }
+
+        VoteLogFollower follower = new VoteLogFollower(dataDir, pollMillis);
+        follower.subscribe(ResultsMonitor::print);
+        follower.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(follower::close));
+
+        System.out.println("Following " + dataDir + "; press Ctrl+C to stop");
+        Thread.currentThread().join();
+    }
+
+    private static void print(VoteLogFollower.TallyDelta delta) {
+        StringBuilder line = new StringBuilder(delta.reset ? "[reset]" : "[update]");
+        for (Map.Entry<String, Long> change : delta.changes.entrySet()) {
+            line.append(' ').append(change.getKey()).append(delta.reset ? " " : " +").append(change.getValue());
+        }
+        long total = 0;
+        line.append("  |  totals:");
+        for (Map.Entry<String, Long> entry : delta.totals.entrySet()) {
+            line.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+            total += entry.getValue();
+        }
+        line.append(" (").append(total).append(" votes)");
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,75 @@
+package main;
+
+import java.io.*;
+import java.util.*;
+import utils.TallyAggregator;
+
+/**
+ * Command-line merged tally over the data directories of several booths.
+ *
+ * Each directory is one booth's data directory, as copied or synced from
+ * the booth. With --watch the directories are checked again every few
+ * seconds and the tally is printed whenever a booth's log has grown.
+ *
+ * Usage: java main.VoteAggregator [--watch seconds] boothDir [boothDir ...]
+ */
+public class VoteAggregator {
+
+    public static void main(String[] args) {
+        long watchSeconds = 0;
+        List<File> dirs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--watch".equals(args[i]) && i + 1 < args.length) {
+                watchSeconds = Long.parseLong(args[++i]);
+            } else {
+                dirs.add(new File(args[i]));
+            }
+        }
+        if (dirs.isEmpty()) {
+            System.err.println("Usage: java main.VoteAggregator [--watch seconds] boothDir [boothDir ...]");
+            System.exit(2);
+        }
+
+        TallyAggregator aggregator = new TallyAggregator();
+        for (File dir : dirs) {
+            if (!dir.isDirectory()) {
+                System.err.println("Not a data directory: " + dir);
+                System.exit(2);
+            }
+            aggregator.addBooth(dir.getPath(), dir);
+        }
+
+        try {
+            long start = System.nanoTime();
+            long read = aggregator.refresh();
+            printTally(aggregator, read, System.nanoTime() - start);
+
+            while (watchSeconds > 0) {
+                Thread.sleep(watchSeconds * 1000);
+                start = System.nanoTime();
+                read = aggregator.refresh();
+                if (read > 0) {
+                    printTally(aggregator, read, System.nanoTime() - start);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Aggregation failed: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void printTally(TallyAggregator aggregator, long read, long nanos) {
+        System.out.printf("Read %d new ballots in %.1f ms%n", read, nanos / 1e6);
+        for (Map.Entry<String, Long> entry : aggregator.getTally().entrySet()) {
+            System.out.printf("  %-10s %-40s %10d%n", entry.getKey(), aggregator.getCandidateLabel(entry.getKey()),
+                              entry.getValue());
+        }
+        System.out.println("Total votes: " + aggregator.getTotalVotes() +
+                           ", duplicate ballots: " + aggregator.getDuplicateBallots());
+        for (String booth : aggregator.getBoothReport()) {
+            System.out.println("  " + booth);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package main;
+
+import java.io.*;
+import java.util.*;
+import utils.BinaryVoteLog;
+
+/**
+ * Command-line converter between the text and binary vote log formats.
+ *
+ * Usage:
+ *   java main.VoteLogConverter to-binary [dataDir]
+ *   java main.VoteLogConverter to-text [dataDir]
+ */
+public class VoteLogConverter {
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !("to-binary".equals(args[0]) || "to-text".equals(args[0]))) {
+            System.err.println("Usage: java main.VoteLogConverter to-binary|to-text [dataDir]");
+            System.exit(2);
+        }
+
+        File dataDir = new File(args.length > 1 ? args[1] : "data");
+        File textLog = new File(dataDir, "votes.txt");
+        File binaryLog = new File(dataDir, "votes.bin");
+
+        try {
+            List<String> candidateIds = readCandidateIds(new File(dataDir, "candidates.txt"));
+            long start = System.nanoTime();
+            long records;
+
+            if ("to-binary".equals(args[0])) {
+                records = BinaryVoteLog.convertTextToBinary(textLog, binaryLog, candidateIds);
+                System.out.println("Converted " + records + " votes: " + textLog + " -> " + binaryLog);
+            } else {
+                records = BinaryVoteLog.convertBinaryToText(binaryLog, textLog, candidateIds);
+                System.out.println("Converted " + records + " votes: " + binaryLog + " -> " + textLog);
+            }
+
+            System.out.printf("Elapsed: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+        } catch (IOException e) {
+            System.err.println("Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Read candidate IDs in file order; the order defines binary candidate indexes
+     */
+    private static List<String> readCandidateIds(File candidatesFile) throws IOException {
+        List<String> ids = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(candidatesFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    String[] parts = line.split(":");
+                    if (parts.length >= 3 && !ids.contains(parts[0])) {
+                        ids.add(parts[0]);
+                    }
+                }
+            }
+        }
+
+        return ids;
+    }
+}
@@ -0,0 +1,51 @@
+package main;
+
+import java.io.*;
+import utils.DataManager;
+import utils.VoterRollImport;
+
+/**
+ * Command-line bulk update of the voter roll from a roll file, e.g. an
+ * electoral roll exported as CSV. The voter ID is read from the given
+ * column (0 by default); voting.maxVoters must allow the new roll size.
+ *
+ * Usage:
+ *   java main.VoterRollTool import rollFile [column] [dataDir]
+ *   java main.VoterRollTool remove rollFile [column] [dataDir]
+ */
+public class VoterRollTool {
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !("import".equals(args[0]) || "remove".equals(args[0]))) {
+            System.err.println("Usage: java main.VoterRollTool import|remove rollFile [column] [dataDir]");
+            System.exit(2);
+        }
+
+        File rollFile = new File(args[1]);
+        int column = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        File dataDir = new File(args.length > 3 ? args[3] : "data");
+
+        DataManager dataManager = new DataManager(dataDir);
+        int status = 0;
+        try {
+            dataManager.initializeDataFiles();
+            VoterRollImport.Result result = "import".equals(args[0])
+                ? dataManager.importVoters(rollFile, column)
+                : dataManager.removeVoters(rollFile, column);
+
+            System.out.println(result);
+            System.out.printf("Elapsed: %.1f ms%n", result.nanos / 1e6);
+            if (!result.applied) {
+                System.err.println("Roll unchanged: raise -Dvoting.maxVoters to at least " +
+                                   (result.voters + result.changed));
+                status = 1;
+            }
+        } catch (IOException e) {
+            System.err.println("Roll update failed: " + e.getMessage());
+            status = 1;
+        } finally {
+            dataManager.shutdown();
+        }
+        System.exit(status);
+    }
+}
@@ -0,0 +1,434 @@
+package main;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import utils.*;
+
+/**
+ * Headless voting server exposing the voting engine over HTTP/JSON.
+ *
+ * Uses only DataManager and VotingSecurityManager, so no AWT class is ever
+ * loaded. Requests run on virtual threads when the JDK provides them.
+ *
+ * Usage: java main.VotingServer [--port 8080] [--data data]
+ *
+ * Endpoints:
+ *   POST /api/login          {"username","password","userType":"ADMIN|VOTER"} -> {"token"}
+ *   POST /api/logout         Authorization: Bearer token
+ *   POST /api/session/start  admin token
+ *   POST /api/session/stop   admin token
+ *   POST /api/vote           voter token, {"candidateId"}
+ *   GET  /api/candidates
+ *   GET  /api/results
+ */
+public class VotingServer {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int ACCEPT_BACKLOG = Integer.getInteger("voting.server.backlog", 4096);
+
+    private final DataManager dataManager;
+    private final VotingSecurityManager securityManager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Create the server on a data directory and port
+     */
+    public VotingServer(File dataDir, int port) throws IOException {
+        dataManager = new DataManager(dataDir);
+        securityManager = new VotingSecurityManager();
+        securityManager.setDataManager(dataManager);
+        dataManager.initializeDataFiles();
+
+        // One virtual thread per request; waits on the vote journal unmount from the carrier
+        executor = VirtualThreads.newPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        server.setExecutor(executor);
+
+        server.createContext("/api/login", exchange -> handle(exchange, "POST", this::login));
+        server.createContext("/api/logout", exchange -> handle(exchange, "POST", this::logout));
+        server.createContext("/api/session/start", exchange -> handle(exchange, "POST", ex -> setSession(ex, true)));
+        server.createContext("/api/session/stop", exchange -> handle(exchange, "POST", ex -> setSession(ex, false)));
+        server.createContext("/api/vote", exchange -> handle(exchange, "POST", this::castVote));
+        server.createContext("/api/candidates", exchange -> handle(exchange, "GET", this::candidates));
+        server.createContext("/api/results", exchange -> handle(exchange, "GET", this::results));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests and flush data files
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        dataManager.logActivity("SHUTDOWN", "SYSTEM", "Headless server shutdown");
+        securityManager.shutdown();
+        dataManager.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Endpoint {
+        Response serve(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Status code and JSON body of a reply
+     */
+    private static class Response {
+        final int status;
+        final String json;
+
+        Response(int status, String json) {
+            this.status = status;
+            this.json = json;
+        }
+    }
+
+    private static Response ok(String json) {
+        return new Response(200, json);
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, "{\"error\":" + quote(message) + "}");
+    }
+
+    /**
+     * Common request handling: method check, error mapping, JSON reply
+     */
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        Response response;
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                response = error(405, "Method not allowed");
+            } else {
+                response = endpoint.serve(exchange);
+            }
+        } catch (Exception e) {
+            // The details stay on the server; clients only learn that the request failed
+            String request = exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath();
+            System.err.println("Request failed: " + request);
+            e.printStackTrace();
+            dataManager.logActivity("SERVER_ERROR", "SYSTEM", request + " failed: " + e);
+            response = error(500, "Internal error");
+        }
+
+        byte[] body = response.json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Authenticate an admin or voter and issue a session token
+     */
+    private Response login(HttpExchange exchange) throws IOException {
+        Map<String, String> request = parseJson(readBody(exchange));
+        String username = request.getOrDefault("username", "");
+        String password = request.getOrDefault("password", "");
+        String userType = request.getOrDefault("userType", "VOTER");
+
+        boolean authenticated;
+        if ("ADMIN".equals(userType)) {
+            authenticated = securityManager.authenticateAdmin(username, password);
+        } else if ("VOTER".equals(userType)) {
+            authenticated = securityManager.authenticateVoter(username);
+        } else {
+            return error(400, "userType must be ADMIN or VOTER");
+        }
+
+        if (!authenticated) {
+            return error(401, "Authentication failed");
+        }
+
+        String token = securityManager.openSession(username, userType);
+        if (token == null) {
+            return error(503, "Too many active sessions; try again shortly");
+        }
+        dataManager.logActivity("LOGIN", username, "Successful " + userType + " login");
+
+        return ok("{\"token\":" + quote(token) + ",\"userType\":" + quote(userType) + "}");
+    }
+
+    /**
+     * End the caller's session
+     */
+    private Response logout(HttpExchange exchange) {
+        String token = bearerToken(exchange);
+        SessionStore.Session session = securityManager.getSession(token);
+        if (session == null) {
+            return error(401, "Not logged in");
+        }
+
+        dataManager.logActivity("LOGOUT", session.userId, "User logged out");
+        securityManager.closeSession(token);
+        return ok("{\"loggedOut\":true}");
+    }
+
+    /**
+     * Start or stop the voting session (admin only)
+     */
+    private Response setSession(HttpExchange exchange, boolean start) throws IOException {
+        SessionStore.Session session = requireSession(exchange, "ADMIN");
+        if (session == null) {
+            return error(403, "Only administrators can " + (start ? "start" : "stop") + " voting sessions");
+        }
+
+        if (start == dataManager.isSessionActive()) {
+            return error(409, start ? "A voting session is already active" : "No voting session is currently active");
+        }
+
+        if (start) {
+            dataManager.clearVotingData();
+        }
+        dataManager.setSessionStatus(start);
+        dataManager.logActivity(start ? "SESSION_START" : "SESSION_STOP", session.userId,
+                                start ? "Voting session started" : "Voting session stopped");
+
+        return ok("{\"sessionActive\":" + start + "}");
+    }
+
+    /**
+     * Cast the authenticated voter's ballot
+     */
+    private Response castVote(HttpExchange exchange) throws IOException {
+        String token = bearerToken(exchange);
+        SessionStore.Session session = requireSession(exchange, "VOTER");
+        if (session == null) {
+            return error(403, "Voter login required");
+        }
+
+        if (!dataManager.isSessionActive()) {
+            return error(409, "No voting session is currently active");
+        }
+
+        String voterID = session.userId;
+        if (dataManager.hasVoterVoted(voterID)) {
+            return error(409, "This Aadhaar ID has already been used to vote in this session");
+        }
+
+        String candidateID = parseJson(readBody(exchange)).getOrDefault("candidateId", "");
+        if (!dataManager.recordVote(voterID, candidateID)) {
+            return error(400, "Failed to record vote");
+        }
+
+        dataManager.logActivity("VOTE_CAST", voterID, "Vote cast for candidate: " + candidateID);
+
+        // A voter session ends with the ballot
+        securityManager.closeSession(token);
+
+        return ok("{\"recorded\":true}");
+    }
+
+    /**
+     * List candidates
+     */
+    private Response candidates(HttpExchange exchange) {
+        StringBuilder json = new StringBuilder("{\"candidates\":[");
+        List<String> all = dataManager.getAllCandidates();
+        for (int i = 0; i < all.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(quote(all.get(i)));
+        }
+        return ok(json.append("]}").toString());
+    }
+
+    /**
+     * Current results and session state
+     */
+    private Response results(HttpExchange exchange) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"sessionActive\":").append(dataManager.isSessionActive());
+        json.append(",\"totalVotes\":").append(dataManager.getTotalVotes());
+        json.append(",\"results\":{");
+
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : dataManager.getVotingResults().entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            json.append(quote(entry.getKey())).append(':').append(entry.getValue());
+            first = false;
+        }
+        return ok(json.append("}}").toString());
+    }
+
+    /**
+     * Live session of the caller if it has the required user type
+     */
+    private SessionStore.Session requireSession(HttpExchange exchange, String userType) {
+        SessionStore.Session session = securityManager.getSession(bearerToken(exchange));
+        return session != null && userType.equals(session.userType) ? session : null;
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return null;
+        }
+        return header.substring("Bearer ".length()).trim();
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                if (body.size() + read > 16 * 1024) {
+                    throw new IOException("Request body too large");
+                }
+                body.write(buffer, 0, read);
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Parse a flat JSON object; values are returned as strings
+     */
+    static Map<String, String> parseJson(String json) {
+        Map<String, String> values = new HashMap<>();
+        int i = json.indexOf('{');
+        if (i < 0) {
+            return values;
+        }
+        i++;
+
+        while (i < json.length()) {
+            i = skipWhitespace(json, i);
+            if (i >= json.length() || json.charAt(i) == '}') {
+                break;
+            }
+            if (json.charAt(i) == ',') {
+                i++;
+                continue;
+            }
+
+            StringBuilder key = new StringBuilder();
+            i = readString(json, i, key);
+            i = skipWhitespace(json, i);
+            if (i >= json.length() || json.charAt(i) != ':') {
+                break;
+            }
+            i = skipWhitespace(json, i + 1);
+
+            StringBuilder value = new StringBuilder();
+            if (i < json.length() && json.charAt(i) == '"') {
+                i = readString(json, i, value);
+            } else {
+                while (i < json.length() && ",}".indexOf(json.charAt(i)) < 0) {
+                    value.append(json.charAt(i++));
+                }
+            }
+            values.put(key.toString(), value.toString().trim());
+        }
+
+        return values;
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int readString(String json, int i, StringBuilder out) {
+        if (i >= json.length() || json.charAt(i) != '"') {
+            return json.length();
+        }
+        i++;
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\' && i < json.length()) {
+                char escaped = json.charAt(i++);
+                switch (escaped) {
+                    case 'n': out.append('\n'); break;
+                    case 't': out.append('\t'); break;
+                    case 'r': out.append('\r'); break;
+                    case 'u':
+                        if (i + 4 <= json.length()) {
+                            out.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                            i += 4;
+                        }
+                        break;
+                    default: out.append(escaped);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return i;
+    }
+
+    static String quote(String value) {
+        StringBuilder out = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    /**
+     * Main method - headless entry point
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        File dataDir = new File("data");
+
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--port".equals(args[i])) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("--data".equals(args[i])) {
+                dataDir = new File(args[++i]);
+            }
+        }
+
+        try {
+            VotingServer votingServer = new VotingServer(dataDir, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(votingServer::stop));
+            votingServer.start();
+
+            System.out.println("Headless voting server listening on port " + votingServer.getPort() +
+                               (VirtualThreads.isAvailable() ? " (virtual threads)" : " (platform threads)"));
+            System.out.println(StartupReport.summarize("headless"));
+
+        } catch (Exception e) {
+            System.err.println("Failed to start voting server: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -33,6 +33,7 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
     private boolean isSessionActive = false;
     private String currentUser = "";
     private String currentUserType = "";
+    private String currentSessionToken = null;
 
     /**
      * Constructor - Initialize the Digital Voting System
@@ -165,6 +166,16 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
             }
 
             if (authenticated) {
+                // A new login replaces whoever was signed in at this terminal
+                if (currentSessionToken != null) {
+                    securityManager.closeSession(currentSessionToken);
+                    currentSessionToken = null;
+                }
+                currentSessionToken = securityManager.openSession(username, userType);
+                if (currentSessionToken == null) {
+                    showErrorDialog("Too Many Sessions", "Too many active sessions. Please try again shortly.");
+                    return false;
+                }
                 currentUser = username;
                 currentUserType = userType;
 
@@ -180,13 +191,29 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
         return authenticated;
     }
 
+    /**
+     * Check that an administrator is signed in and their session is still live;
+     * an expired session is logged out like a voter's
+     */
+    public boolean checkAdminSession(String deniedMessage) {
+        if (!"ADMIN".equals(currentUserType)) {
+            showErrorDialog("Access Denied", deniedMessage);
+            return false;
+        }
+        if (securityManager.getSession(currentSessionToken) == null) {
+            showErrorDialog("Session Expired", "Your session has timed out. Please log in again.");
+            logout();
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Start a new voting session (Admin only)
      */
     public boolean startVotingSession() {
         try {
-            if (!"ADMIN".equals(currentUserType)) {
-                showErrorDialog("Access Denied", "Only administrators can start voting sessions.");
+            if (!checkAdminSession("Only administrators can start voting sessions.")) {
                 return false;
             }
 
@@ -221,8 +248,7 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
      */
     public boolean stopVotingSession() {
         try {
-            if (!"ADMIN".equals(currentUserType)) {
-                showErrorDialog("Access Denied", "Only administrators can stop voting sessions.");
+            if (!checkAdminSession("Only administrators can stop voting sessions.")) {
                 return false;
             }
 
@@ -259,6 +285,13 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
                 return false;
             }
 
+            // A voter who walked away from the terminal has to log in again
+            if ("VOTER".equals(currentUserType) && securityManager.getSession(currentSessionToken) == null) {
+                showErrorDialog("Session Expired", "Your session has timed out. Please log in again.");
+                logout();
+                return false;
+            }
+
             // Check if voter has already voted
             if (dataManager.hasVoterVoted(voterID)) {
                 showErrorDialog("Already Voted", 
@@ -290,8 +323,7 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
      */
     public boolean addCandidate(String candidateID, String candidateName, String party) {
         try {
-            if (!"ADMIN".equals(currentUserType)) {
-                showErrorDialog("Access Denied", "Only administrators can add candidates.");
+            if (!checkAdminSession("Only administrators can add candidates.")) {
                 return false;
             }
 
@@ -338,11 +370,12 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
         try {
             if (!currentUser.isEmpty()) {
                 dataManager.logActivity("LOGOUT", currentUser, "User logged out");
-                securityManager.removeActiveSession(currentUser);
+                securityManager.closeSession(currentSessionToken);
             }
 
             currentUser = "";
             currentUserType = "";
+            currentSessionToken = null;
             panels.resetPanels();
             showPanel(LOGIN_PANEL);
 
@@ -416,6 +449,9 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
                 dataManager.logActivity("SHUTDOWN", currentUser, "Application shutdown");
             }
 
+            // Close the vote journal and flush queued activity log entries
+            dataManager.shutdown();
+
             System.out.println("Digital Voting System shutdown successfully.");
 
         } catch (Exception e) {
@@ -508,6 +544,7 @@ public class VotingSystemApp extends Frame implements ActionListener, WindowList
             app.setVisible(true);
 
             System.out.println("Application started successfully!");
+            System.out.println(StartupReport.summarize("gui"));
             System.out.println("Default Admin Credentials:");
             System.out.println("Username: admin");
             System.out.println("Password: admin123");
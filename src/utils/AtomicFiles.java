@@ -0,0 +1,92 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Crash-safe updates of the small data files (session, candidates, voters).
+ *
+ * A rewrite goes to a temporary file that is forced to disk and then
+ * renamed over the original, so after a crash the file holds either the
+ * old or the new contents, never a mix. An append to a file whose last
+ * line is unterminated (torn by a crash, or edited by hand) starts a new
+ * line first, so the appended line never runs on from the old one.
+ */
+public class AtomicFiles {
+
+    /**
+     * Writes the new contents of a file
+     */
+    public interface Content {
+        void write(PrintWriter out) throws IOException;
+    }
+
+    /**
+     * Replace a file's contents atomically
+     */
+    public static void write(File target, Content content) throws IOException {
+        File tempFile = new File(target.getPath() + ".tmp");
+
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(fileOut, StandardCharsets.UTF_8)));
+            content.write(out);
+            out.flush();
+            if (out.checkError()) {
+                throw new IOException("Failed to write " + tempFile);
+            }
+            fileOut.getFD().sync();
+        }
+
+        commit(tempFile, target);
+    }
+
+    /**
+     * Rename a fully written and synced temporary file over its target
+     */
+    public static void commit(File tempFile, File target) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), target.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Append one line durably, on a line of its own
+     */
+    public static void appendLine(File file, String line) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer last = ByteBuffer.allocate(1);
+            boolean terminated = end == 0 || (channel.read(last, end - 1) == 1 && last.get(0) == '\n');
+            String text = (terminated ? "" : System.lineSeparator()) + line + System.lineSeparator();
+
+            ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+            long position = end;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Make a rename in a directory durable; not every platform can open a directory, so this is best effort
+     */
+    private static void syncDirectory(File dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // e.g. Windows; the rename itself is still atomic
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous, batched writer for the activity log.
+ *
+ * Callers enqueue lines into a bounded lock-free ring buffer; one background
+ * thread drains whatever is queued and appends it to the log with a single
+ * channel write per batch. When the ring is full, the backpressure policy
+ * decides whether callers wait for room or the line is dropped and counted.
+ */
+public class AuditLogWriter implements Closeable {
+
+    /**
+     * What to do when the ring buffer is full
+     */
+    public enum Policy {
+        BLOCK,
+        DROP
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    private final FileChannel channel;
+    private final Policy policy;
+
+    // Ring slots: sequence[i] == position means free for that producer,
+    // position + 1 means filled and ready for the writer
+    private final int mask;
+    private final AtomicLongArray sequence;
+    private final AtomicReferenceArray<String> lines;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only the writer thread advances head; flushed is published for flush()
+    private long head = 0;
+    private final AtomicLong flushed = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean writerParked = false;
+    private volatile boolean closed = false;
+
+    // Statistics
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long batchesWritten = 0;
+    private volatile IOException lastError;
+
+    /**
+     * Open the writer in append mode
+     *
+     * @param capacity ring size, rounded up to a power of two
+     * @param policy BLOCK to make callers wait for room, DROP to discard and count
+     */
+    public AuditLogWriter(File file, int capacity, Policy policy) throws IOException {
+        int size = capacity <= 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.sequence = new AtomicLongArray(size);
+        this.lines = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, i);
+        }
+
+        this.policy = policy;
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        this.writer = new Thread(this::writeLoop, "audit-log-" + file.getName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue a line for writing (a newline is added)
+     *
+     * @return false if the line was dropped because the ring was full or the writer is closed
+     */
+    public boolean append(String line) {
+        long position;
+        while (true) {
+            if (closed) {
+                return false;
+            }
+
+            position = tail.get();
+            long available = sequence.get((int) position & mask);
+            if (available == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (available < position) {
+                // Full: the writer has not freed this slot yet
+                if (policy == Policy.DROP) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                wakeWriter();
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+
+        int slot = (int) position & mask;
+        lines.set(slot, line);
+        sequence.set(slot, position + 1);
+
+        if (writerParked) {
+            wakeWriter();
+        }
+        return true;
+    }
+
+    /**
+     * Wait until every line queued before this call is written to the log
+     */
+    public void flush() throws IOException {
+        long target = tail.get();
+        while (flushed.get() < target && writer.isAlive()) {
+            wakeWriter();
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        channel.force(false);
+
+        IOException error = lastError;
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Flush queued lines and stop the writer thread
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            wakeWriter();
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    private void wakeWriter() {
+        LockSupport.unpark(writer);
+    }
+
+    /**
+     * Background loop: drain everything that is ready, write it as one batch
+     */
+    private void writeLoop() {
+        StringBuilder batch = new StringBuilder(8192);
+        String separator = System.lineSeparator();
+
+        while (true) {
+            batch.setLength(0);
+            while (batch.length() < MAX_BATCH_BYTES) {
+                int slot = (int) head & mask;
+                if (sequence.get(slot) != head + 1) {
+                    break;
+                }
+                batch.append(lines.get(slot)).append(separator);
+                lines.set(slot, null);
+                sequence.set(slot, head + mask + 1);
+                head++;
+            }
+
+            if (batch.length() > 0) {
+                writeBatch(batch);
+                flushed.set(head);
+                continue;
+            }
+
+            if (closed) {
+                return;
+            }
+
+            // Nothing ready: park until a producer wakes us, re-checking after announcing it
+            writerParked = true;
+            if (sequence.get((int) head & mask) != head + 1 && !closed) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+    }
+
+    private void writeBatch(StringBuilder batch) {
+        ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            batchesWritten++;
+        } catch (IOException e) {
+            lastError = e;
+            System.err.println("Failed to write to activity log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lines discarded under the DROP policy
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Lines written to the log so far
+     */
+    public long getWrittenCount() {
+        return flushed.get();
+    }
+
+    public long getBatchesWritten() {
+        return batchesWritten;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,363 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Fixed-width, append-only binary vote log.
+ *
+ * File layout: a 16-byte header followed by 48-byte records
+ *   long  epoch nanoseconds
+ *   byte  voter digest [32]
+ *   int   candidate index (position in candidates.txt)
+ *   int   CRC32 of the preceding 44 bytes
+ *
+ * Replay memory-maps the file and visits records without parsing text.
+ * Records have a fixed size, so a damaged one is stepped over and counted,
+ * and replay carries on at the next record boundary.
+ */
+public class BinaryVoteLog {
+
+    public static final int MAGIC = 0x44564C31; // "DVL1"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int DIGEST_SIZE = 32;
+    public static final int RECORD_SIZE = 48;
+
+    private static final int CHECKED_BYTES = RECORD_SIZE - 4;
+    private static final long MAX_MAP_BYTES = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+
+    /**
+     * Receives records during replay. The digest array is reused between
+     * calls and must be copied if it is kept.
+     */
+    public interface RecordVisitor {
+        void visit(long epochNanos, byte[] voterDigest, int candidateIndex);
+    }
+
+    /**
+     * Outcome of a replay
+     */
+    public static class ReplayResult {
+        public final long records;
+        public final long skippedRecords;  // damaged records followed by an intact one
+        public final long validEndOffset;  // just past the last intact record
+        public final long endOffset;       // just past the last whole record read
+
+        ReplayResult(long records, long skippedRecords, long validEndOffset, long endOffset) {
+            this.records = records;
+            this.skippedRecords = skippedRecords;
+            this.validEndOffset = validEndOffset;
+            this.endOffset = endOffset;
+        }
+
+        /**
+         * Damaged records after the last intact one; at the end of a live log
+         * they may be a record still being written
+         */
+        public long trailingCorruptRecords() {
+            return (endOffset - validEndOffset) / RECORD_SIZE;
+        }
+    }
+
+    /**
+     * Create a new log containing only the header
+     */
+    public static void writeHeader(File file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0);
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(header.array());
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * Encode one record, ready to be appended to the log
+     */
+    public static byte[] encodeRecord(long epochNanos, byte[] voterDigest, int candidateIndex) {
+        if (voterDigest.length != DIGEST_SIZE) {
+            throw new IllegalArgumentException("Voter digest must be " + DIGEST_SIZE + " bytes");
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.BIG_ENDIAN);
+        record.putLong(epochNanos);
+        record.put(voterDigest);
+        record.putInt(candidateIndex);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, CHECKED_BYTES);
+        record.putInt((int) crc.getValue());
+
+        return record.array();
+    }
+
+    /**
+     * Replay all records of a log
+     */
+    public static ReplayResult replay(File file, RecordVisitor visitor) throws IOException {
+        return replay(file, HEADER_SIZE, visitor);
+    }
+
+    /**
+     * Replay records starting at a byte offset (must be on a record boundary).
+     * Records that fail their checksum are skipped; a torn last record is ignored.
+     */
+    public static ReplayResult replay(File file, long fromOffset, RecordVisitor visitor) throws IOException {
+        return replay(file, fromOffset, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Replay the records between two byte offsets, so ranges of a large log
+     * can be replayed in parallel. Records past the end of the file are ignored.
+     */
+    public static ReplayResult replay(File file, long fromOffset, long toOffset, RecordVisitor visitor)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), toOffset);
+            verifyHeader(channel, size);
+
+            long start = Math.max(HEADER_SIZE, fromOffset);
+            if ((start - HEADER_SIZE) % RECORD_SIZE != 0) {
+                throw new IOException("Offset " + fromOffset + " is not on a record boundary");
+            }
+
+            long records = 0;
+            long corrupt = 0;
+            long skipped = 0;
+            long position = start;
+            long validEnd = start;
+            long end = start + ((size - start) / RECORD_SIZE) * RECORD_SIZE;
+
+            byte[] digest = new byte[DIGEST_SIZE];
+            byte[] checked = new byte[CHECKED_BYTES];
+            CRC32 crc = new CRC32();
+
+            while (position < end) {
+                long length = Math.min(MAX_MAP_BYTES, end - position);
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                map.order(ByteOrder.BIG_ENDIAN);
+
+                while (map.remaining() >= RECORD_SIZE) {
+                    int recordStart = map.position();
+                    map.get(checked);
+                    int storedCrc = map.getInt();
+
+                    crc.reset();
+                    crc.update(checked, 0, CHECKED_BYTES);
+                    if ((int) crc.getValue() != storedCrc) {
+                        corrupt++;
+                        continue;
+                    }
+
+                    ByteBuffer fields = ByteBuffer.wrap(checked).order(ByteOrder.BIG_ENDIAN);
+                    long epochNanos = fields.getLong();
+                    fields.get(digest);
+                    int candidateIndex = fields.getInt();
+
+                    visitor.visit(epochNanos, digest, candidateIndex);
+                    records++;
+                    skipped += corrupt;
+                    corrupt = 0;
+                    validEnd = position + recordStart + RECORD_SIZE;
+                }
+                position += length;
+            }
+
+            return new ReplayResult(records, skipped, validEnd, end);
+        }
+    }
+
+    /**
+     * Check the CRC of the record starting at an offset of an array
+     */
+    public static boolean isIntactRecord(byte[] data, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, CHECKED_BYTES);
+        int stored = ByteBuffer.wrap(data, offset + CHECKED_BYTES, 4).order(ByteOrder.BIG_ENDIAN).getInt();
+        return (int) crc.getValue() == stored;
+    }
+
+    /**
+     * Check the header of an existing log
+     */
+    private static void verifyHeader(FileChannel channel, long size) throws IOException {
+        if (size < HEADER_SIZE) {
+            throw new IOException("Binary vote log is missing its header");
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new EOFException("Truncated binary vote log header");
+            }
+        }
+        header.flip();
+
+        if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != RECORD_SIZE) {
+            throw new IOException("Not a supported binary vote log");
+        }
+    }
+
+    /**
+     * Pack a voter pseudonym into the fixed-width digest field. Keyed
+     * pseudonyms are stored as their raw HMAC; legacy hashes (e.g. VOTER_12345)
+     * as zero-padded ASCII.
+     */
+    public static byte[] digestFromVoterHash(String voterHash) {
+        byte[] digest = VoterPseudonymizer.digestOf(voterHash);
+        if (digest != null) {
+            return digest;
+        }
+
+        byte[] text = voterHash.getBytes(StandardCharsets.US_ASCII);
+        if (text.length > DIGEST_SIZE) {
+            throw new IllegalArgumentException("Voter hash too long for digest field: " + voterHash);
+        }
+        return Arrays.copyOf(text, DIGEST_SIZE);
+    }
+
+    /**
+     * Recover the voter pseudonym from a digest produced by digestFromVoterHash
+     */
+    public static String voterHashFromDigest(byte[] digest) {
+        int length = legacyHashLength(digest);
+        if (length > 0) {
+            return new String(digest, 0, length, StandardCharsets.US_ASCII);
+        }
+        return VoterPseudonymizer.toPseudonym(digest);
+    }
+
+    /**
+     * Check if a digest field holds a legacy hash rather than a keyed pseudonym's HMAC
+     */
+    public static boolean isLegacyDigest(byte[] digest) {
+        return legacyHashLength(digest) > 0;
+    }
+
+    /**
+     * Length of a zero-padded legacy "VOTER_<digits>" hash, or 0 if the digest is not one
+     */
+    private static int legacyHashLength(byte[] digest) {
+        byte[] prefix = VoterPseudonymizer.PREFIX.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < prefix.length; i++) {
+            if (digest[i] != prefix[i]) {
+                return 0;
+            }
+        }
+
+        int length = prefix.length;
+        while (length < digest.length && digest[length] >= '0' && digest[length] <= '9') {
+            length++;
+        }
+        for (int i = length; i < digest.length; i++) {
+            if (digest[i] != 0) {
+                return 0;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Convert an ISO local timestamp to epoch nanoseconds in the system zone
+     */
+    public static long toEpochNanos(LocalDateTime timestamp) {
+        Instant instant = timestamp.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    /**
+     * Convert epoch nanoseconds back to a local timestamp in the system zone
+     */
+    public static LocalDateTime fromEpochNanos(long epochNanos) {
+        Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                                                Math.floorMod(epochNanos, 1_000_000_000L));
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * Convert a text vote log into a binary one.
+     *
+     * @param candidateIds candidate IDs in index order
+     * @return number of records converted
+     */
+    public static long convertTextToBinary(File textLog, File binaryLog, List<String> candidateIds) throws IOException {
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < candidateIds.size(); i++) {
+            indexById.put(candidateIds.get(i), i);
+        }
+
+        writeHeader(binaryLog);
+
+        long converted = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(textLog));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(binaryLog, true), 1 << 16)) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                VoteRecord record = VoteRecord.parse(line);
+                if (record == null) {
+                    continue;
+                }
+
+                Integer index = indexById.get(record.getCandidateId());
+                if (index == null) {
+                    throw new IOException("Unknown candidate in vote log: " + record.getCandidateId());
+                }
+
+                long epochNanos = toEpochNanos(LocalDateTime.parse(record.getTimestamp(),
+                                                                   DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                out.write(encodeRecord(epochNanos, digestFromVoterHash(record.getVoterHash()), index));
+                converted++;
+            }
+        }
+
+        return converted;
+    }
+
+    /**
+     * Convert a binary vote log back into the text format.
+     *
+     * @param candidateIds candidate IDs in index order
+     * @return number of records converted
+     */
+    public static long convertBinaryToText(File binaryLog, File textLog, List<String> candidateIds) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(textLog)))) {
+            writer.println("# Vote Records");
+            writer.println("# Format: TIMESTAMP:VOTER_HASH:CANDIDATE_ID|CRC32");
+            writer.println("# Voter identity is hashed for anonymity");
+            writer.println();
+
+            final IOException[] failure = new IOException[1];
+            ReplayResult result = replay(binaryLog, (epochNanos, voterDigest, candidateIndex) -> {
+                if (candidateIndex < 0 || candidateIndex >= candidateIds.size()) {
+                    if (failure[0] == null) {
+                        failure[0] = new IOException("Unknown candidate index in vote log: " + candidateIndex);
+                    }
+                    return;
+                }
+
+                String timestamp = fromEpochNanos(epochNanos).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                writer.println(VoteRecord.encode(timestamp, voterHashFromDigest(voterDigest),
+                                                 candidateIds.get(candidateIndex)));
+            });
+
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            return result.records;
+        }
+    }
+}
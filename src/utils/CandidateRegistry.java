@@ -0,0 +1,162 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable snapshot of the candidate list.
+ *
+ * Each candidate has a dense index in file order, which is also its slot
+ * in the vote tally and its number in the binary vote log. The strings
+ * shown on screen are built once when the snapshot is made, so listing
+ * candidates or results allocates nothing per candidate. Adding a
+ * candidate publishes a new snapshot and leaves existing ones untouched,
+ * so readers need no lock and an index never changes meaning.
+ */
+public class CandidateRegistry {
+
+    public static final CandidateRegistry EMPTY = new Builder().build();
+
+    private final String[] ids;
+    private final String[] names;
+    private final String[] parties;
+    private final String[] displays;     // "ID - Name (Party)"
+    private final String[] resultLabels; // "Name (Party)"
+    private final byte[][] idBytes;      // UTF-8 IDs as they appear in the text vote log
+    private final Map<String, Integer> indexes;
+    private final List<String> idList;
+    private final List<String> displayList;
+
+    private CandidateRegistry(String[] ids, String[] names, String[] parties, int size) {
+        this.ids = Arrays.copyOf(ids, size);
+        this.names = Arrays.copyOf(names, size);
+        this.parties = Arrays.copyOf(parties, size);
+        this.displays = new String[size];
+        this.resultLabels = new String[size];
+        this.idBytes = new byte[size][];
+        this.indexes = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+            resultLabels[i] = names[i] + " (" + parties[i] + ")";
+            displays[i] = ids[i] + " - " + resultLabels[i];
+            idBytes[i] = ids[i].getBytes(StandardCharsets.UTF_8);
+            indexes.put(ids[i], i);
+        }
+        this.idList = Collections.unmodifiableList(Arrays.asList(this.ids));
+        this.displayList = Collections.unmodifiableList(Arrays.asList(displays));
+    }
+
+    /**
+     * Collects candidates in file order; later duplicates of an ID are ignored
+     */
+    public static class Builder {
+        private String[] ids = new String[8];
+        private String[] names = new String[8];
+        private String[] parties = new String[8];
+        private int size;
+        private final Set<String> seen = new HashSet<>();
+
+        /**
+         * @return false if the ID was already added
+         */
+        public boolean add(String id, String name, String party) {
+            if (!seen.add(id)) {
+                return false;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+                parties = Arrays.copyOf(parties, size * 2);
+            }
+            ids[size] = id;
+            names[size] = name;
+            parties[size] = party;
+            size++;
+            return true;
+        }
+
+        public CandidateRegistry build() {
+            return new CandidateRegistry(ids, names, parties, size);
+        }
+    }
+
+    /**
+     * A new snapshot with one more candidate at the next index
+     */
+    public CandidateRegistry with(String id, String name, String party) {
+        if (indexes.containsKey(id)) {
+            throw new IllegalArgumentException("Duplicate candidate: " + id);
+        }
+        int size = ids.length;
+        String[] newIds = Arrays.copyOf(ids, size + 1);
+        String[] newNames = Arrays.copyOf(names, size + 1);
+        String[] newParties = Arrays.copyOf(parties, size + 1);
+        newIds[size] = id;
+        newNames[size] = name;
+        newParties[size] = party;
+        return new CandidateRegistry(newIds, newNames, newParties, size + 1);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(String id) {
+        return indexes.containsKey(id);
+    }
+
+    /**
+     * Index of a candidate ID, or -1 if there is no such candidate
+     */
+    public int indexOf(String id) {
+        Integer index = id == null ? null : indexes.get(id);
+        return index != null ? index : -1;
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public String getParty(int index) {
+        return parties[index];
+    }
+
+    /**
+     * "ID - Name (Party)", as listed on the ballot and the admin panel
+     */
+    public String getDisplay(int index) {
+        return displays[index];
+    }
+
+    /**
+     * "Name (Party)", as shown with results
+     */
+    public String getResultLabel(int index) {
+        return resultLabels[index];
+    }
+
+    /**
+     * UTF-8 bytes of a candidate ID; callers must not modify them
+     */
+    public byte[] getIdBytes(int index) {
+        return idBytes[index];
+    }
+
+    /**
+     * Candidate IDs by index, unmodifiable
+     */
+    public List<String> getIds() {
+        return idList;
+    }
+
+    /**
+     * Display strings by index, unmodifiable
+     */
+    public List<String> getDisplayList() {
+        return displayList;
+    }
+}
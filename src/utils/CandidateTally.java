@@ -0,0 +1,232 @@
+package utils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Striped per-candidate vote counters.
+ *
+ * Each candidate owns several counter stripes; a thread increments the
+ * stripe its probe selects and moves to another stripe when a CAS fails.
+ * Counters are spaced a cache line apart so stripes never share a line.
+ * CAS retries are recorded per stripe to help size the stripe count.
+ */
+public class CandidateTally {
+
+    // 16 longs = 128 bytes, covers adjacent-line prefetching as well
+    private static final int PAD = 16;
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    private final int candidates;
+    private final int stripes;
+    private final AtomicLongArray cells;
+    private final AtomicLongArray retries;
+
+    // Per-thread stripe selector, rehashed after a failed CAS
+    private static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[]{mix((int) Thread.currentThread().getId())};
+        }
+    };
+
+    /**
+     * Create a tally for the given number of candidates
+     *
+     * @param stripes counters per candidate, rounded up to a power of two
+     */
+    public CandidateTally(int candidates, int stripes) {
+        this.candidates = candidates;
+        this.stripes = ceilPowerOfTwo(stripes);
+        this.cells = new AtomicLongArray(Math.max(1, candidates * this.stripes * PAD));
+        this.retries = new AtomicLongArray(Math.max(1, candidates * this.stripes * PAD));
+    }
+
+    /**
+     * Default stripe count: the CPU count rounded up to a power of two, at most 64
+     */
+    public static int defaultStripes() {
+        return Math.min(64, ceilPowerOfTwo(Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Add one vote for a candidate
+     */
+    public void increment(int candidateIndex) {
+        add(candidateIndex, 1);
+    }
+
+    /**
+     * Add votes for a candidate
+     */
+    public void add(int candidateIndex, long votes) {
+        checkIndex(candidateIndex);
+
+        int[] probe = PROBE.get();
+        int base = candidateIndex * stripes;
+
+        while (true) {
+            int slot = (base + (probe[0] & (stripes - 1))) * PAD;
+            long current = cells.get(slot);
+            if (cells.compareAndSet(slot, current, current + votes)) {
+                return;
+            }
+
+            // Contended: record it and move this thread to another stripe
+            retries.incrementAndGet(slot);
+            probe[0] = mix(probe[0] + 0x9E3779B9);
+        }
+    }
+
+    /**
+     * Current count for one candidate
+     */
+    public long get(int candidateIndex) {
+        checkIndex(candidateIndex);
+
+        long sum = 0;
+        int base = candidateIndex * stripes;
+        for (int s = 0; s < stripes; s++) {
+            sum += cells.get((base + s) * PAD);
+        }
+        return sum;
+    }
+
+    /**
+     * Consistent snapshot of all candidates, if one can be taken without blocking.
+     *
+     * Counters only grow, so two identical consecutive collects mean no vote
+     * landed in between and the result was the exact state at that moment.
+     *
+     * @return the counts, or null if votes kept landing between collects
+     */
+    public long[] trySnapshot() {
+        long[] previous = snapshot();
+        for (int attempt = 1; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            long[] current = snapshot();
+            if (Arrays.equals(previous, current)) {
+                return current;
+            }
+            previous = current;
+        }
+        return null;
+    }
+
+    /**
+     * Counts of all candidates, read one after another. Exact while no votes
+     * are added, e.g. under a lock that holds off voters; otherwise a vote
+     * added meanwhile may be seen for one candidate and not another.
+     */
+    public long[] snapshot() {
+        long[] counts = new long[candidates];
+        for (int c = 0; c < candidates; c++) {
+            counts[c] = get(c);
+        }
+        return counts;
+    }
+
+    /**
+     * Total votes across all candidates
+     */
+    public long total() {
+        long sum = 0;
+        for (long count : snapshot()) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    /**
+     * Copy of this tally with room for more candidates, keeping current counts.
+     * Callers must ensure no increments race with the copy.
+     */
+    public CandidateTally resize(int newCandidates) {
+        CandidateTally resized = new CandidateTally(newCandidates, stripes);
+        long[] counts = snapshot();
+        for (int c = 0; c < Math.min(candidates, newCandidates); c++) {
+            if (counts[c] != 0) {
+                resized.cells.set(c * stripes * PAD, counts[c]);
+            }
+        }
+        return resized;
+    }
+
+    /**
+     * CAS retries recorded on each stripe of a candidate
+     */
+    public long[] getStripeRetries(int candidateIndex) {
+        checkIndex(candidateIndex);
+
+        long[] perStripe = new long[stripes];
+        int base = candidateIndex * stripes;
+        for (int s = 0; s < stripes; s++) {
+            perStripe[s] = retries.get((base + s) * PAD);
+        }
+        return perStripe;
+    }
+
+    /**
+     * Total CAS retries across all stripes
+     */
+    public long getTotalRetries() {
+        long sum = 0;
+        for (int c = 0; c < candidates; c++) {
+            for (long r : getStripeRetries(c)) {
+                sum += r;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Human-readable contention summary
+     */
+    public String getContentionReport(List<String> candidateNames) {
+        StringBuilder report = new StringBuilder();
+        report.append("Tally stripes per candidate: ").append(stripes).append("\n");
+
+        for (int c = 0; c < candidates; c++) {
+            long[] perStripe = getStripeRetries(c);
+            long sum = 0;
+            long max = 0;
+            for (long r : perStripe) {
+                sum += r;
+                max = Math.max(max, r);
+            }
+            String name = c < candidateNames.size() ? candidateNames.get(c) : String.valueOf(c);
+            report.append("- ").append(name)
+                  .append(": votes=").append(get(c))
+                  .append(", CAS retries=").append(sum)
+                  .append(", busiest stripe=").append(max).append("\n");
+        }
+
+        return report.toString();
+    }
+
+    public int getCandidateCount() {
+        return candidates;
+    }
+
+    public int getStripeCount() {
+        return stripes;
+    }
+
+    private void checkIndex(int candidateIndex) {
+        if (candidateIndex < 0 || candidateIndex >= candidates) {
+            throw new IndexOutOfBoundsException("Candidate index " + candidateIndex + " of " + candidates);
+        }
+    }
+
+    private static int ceilPowerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static int mix(int x) {
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        x ^= x >>> 16;
+        return x;
+    }
+}
@@ -1,43 +1,169 @@
 package utils;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class DataManager {
 
     // File paths for data storage
-    private static final String DATA_DIR = "data";
-    private static final String VOTERS_FILE = DATA_DIR + File.separator + "voters.txt";
-    private static final String CANDIDATES_FILE = DATA_DIR + File.separator + "candidates.txt";
-    private static final String VOTES_FILE = DATA_DIR + File.separator + "votes.txt";
-    private static final String SESSION_FILE = DATA_DIR + File.separator + "session.txt";
-    private static final String ACTIVITY_LOG = DATA_DIR + File.separator + "activity.log";
-    private static final String ADMIN_FILE = DATA_DIR + File.separator + "admin.txt";
-
-    // In-memory data structures for quick access
-    private Set<String> registeredVoters;
-    private Set<String> votedVoters;
-    private Map<String, String[]> candidates; // ID -> [Name, Party]
-    private Map<String, Integer> voteCount;
-    private List<String> activityLog;
-    private boolean sessionActive;
+    private static final String DEFAULT_DATA_DIR = "data";
+    private final String dataDirPath;
+    private final String votersFile;
+    private final String candidatesFile;
+    private final String votesFile;
+    private final String votesBinFile;
+    private final String sessionFile;
+    private final String activityLogFile;
+    private final String adminFile;
+    private final String checkpointFile;
+    private final String electionKeyFile;
+
+    // In-memory data structures for quick access, safe for concurrent voting terminals
+    private volatile VoterRegistry registeredVoters; // replaced whole by bulk roll updates
+    private final TurnoutTracker turnout;     // Voter ID -> voted since the log was loaded, one bit each
+    private volatile LoggedTurnout logged;     // Voters replayed from the log, matched to IDs on lookup
+    private volatile CandidateRegistry candidates; // Index -> ID, name, party; replaced whole on every change
+    private volatile CandidateTally voteTally;
+    private volatile long damagedVoteRecords; // binary log records skipped by the last replay
+    private final RingHistory<String> activityLog;
+    private volatile boolean sessionActive;
+
+    // Recent activity entries kept in memory
+    private static final int ACTIVITY_HISTORY_SIZE = 100;
 
     // Security and validation
-    private static final int MAX_VOTERS = 20;
+    private static final int INITIAL_VOTERS = 20;
+    private static final int MAX_VOTERS = Integer.getInteger("voting.maxVoters", 20);
     private static final String ADMIN_USERNAME = "admin";
     private static final String ADMIN_PASSWORD = "admin123";
 
+    // Vote journal group-commit settings
+    private static final long JOURNAL_BATCH_WINDOW_MICROS = Long.getLong("voting.journal.windowMicros", 2000);
+    private static final int JOURNAL_MAX_BATCH_RECORDS = Integer.getInteger("voting.journal.maxBatch", 256);
+
+    // Store ballots in the fixed-width binary log instead of votes.txt
+    private static final boolean BINARY_VOTE_LOG = Boolean.getBoolean("voting.binaryVoteLog");
+
+    // Counter stripes per candidate in the vote tally
+    private static final int TALLY_STRIPES = Integer.getInteger("voting.tally.stripes", CandidateTally.defaultStripes());
+
+    // Write a tally checkpoint after this many recorded votes
+    private static final int CHECKPOINT_INTERVAL_VOTES = Integer.getInteger("voting.checkpoint.interval", 5000);
+
+    // Activity log ring buffer size and what to do when it is full (BLOCK or DROP)
+    private static final int AUDIT_QUEUE_CAPACITY = Integer.getInteger("voting.audit.capacity", 8192);
+    private static final AuditLogWriter.Policy AUDIT_POLICY =
+        AuditLogWriter.Policy.valueOf(System.getProperty("voting.audit.policy", "BLOCK").toUpperCase());
+
+    // Derive every registered voter's pseudonym when the roll is loaded or a session starts
+    private static final boolean PRECOMPUTE_PSEUDONYMS = Boolean.getBoolean("voting.pseudonym.precompute");
+
+    // Load independent data files concurrently and split large ones across the fork-join pool
+    private static final boolean PARALLEL_STARTUP =
+        Boolean.parseBoolean(System.getProperty("voting.startup.parallel", "true"));
+    private static final String[] STARTUP_PHASES =
+        {"voters", "candidates", "session", "activity", "votes", "pseudonyms", "turnout"};
+
+    // Election key file issued to every booth of an election; unset, each session gets a random key
+    private static final String SHARED_ELECTION_KEY = System.getProperty("voting.election.keyFile");
+
+    // Keyed voter pseudonyms under the current election key
+    private volatile VoterPseudonymizer pseudonymizer;
+
+    // Long-lived writer for vote records
+    private VoteJournal voteJournal;
+
+    // Background writer for the activity log; null until the data files exist
+    private volatile AuditLogWriter auditLogWriter;
+
+    // End of the vote log covered by the in-memory tally
+    private final AtomicLong voteLogEnd = new AtomicLong();
+    private final AtomicInteger votesSinceCheckpoint = new AtomicInteger();
+
+    // Votes are recorded under the shared lock; checkpoints and data clears take the exclusive lock
+    private final ReentrantReadWriteLock voteLock = new ReentrantReadWriteLock();
+
+    // Periodic checkpoints run on their own thread, which exits when idle, so no voter waits for one
+    private final ThreadPoolExecutor checkpointWriter = new ThreadPoolExecutor(
+        0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "tally-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    private final AtomicBoolean checkpointQueued = new AtomicBoolean();
+
+    // Serializes checkpoint writes so they never share the temporary file or land out of order.
+    // Taken before voteLock.
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+
+    // Digests of ballots cast since the last checkpoint snapshot, added under the shared vote lock
+    private final Queue<byte[]> uncheckpointedVoters = new ConcurrentLinkedQueue<>();
+
+    // Keyed voters cast since the log was loaded, as of the last snapshot; guarded by checkpointLock
+    private DigestSet checkpointedVoters = new DigestSet();
+
+    // Serializes changes to the voter roll and voters.txt
+    private final ReentrantLock rollLock = new ReentrantLock();
+
+    // Startup settings and the duration of each phase of the last load
+    private boolean parallelStartup = PARALLEL_STARTUP;
+    private final Map<String, Long> startupPhaseMillis = new ConcurrentHashMap<>();
+
+    /**
+     * One step of loading the system data
+     */
+    private interface LoadPhase<T> {
+        T run() throws IOException;
+    }
+
     /**
-     * Constructor - Initialize DataManager
+     * Constructor - Initialize DataManager using the default data directory
      */
     public DataManager() {
-        registeredVoters = new HashSet<>();
-        votedVoters = new HashSet<>();
-        candidates = new HashMap<>();
-        voteCount = new HashMap<>();
-        activityLog = new ArrayList<>();
+        this(new File(DEFAULT_DATA_DIR));
+    }
+
+    /**
+     * Constructor - Initialize DataManager on a specific data directory
+     */
+    public DataManager(File dataDir) {
+        dataDirPath = dataDir.getPath();
+        votersFile = dataDirPath + File.separator + "voters.txt";
+        candidatesFile = dataDirPath + File.separator + "candidates.txt";
+        votesFile = dataDirPath + File.separator + "votes.txt";
+        votesBinFile = dataDirPath + File.separator + "votes.bin";
+        sessionFile = dataDirPath + File.separator + "session.txt";
+        activityLogFile = dataDirPath + File.separator + "activity.log";
+        adminFile = dataDirPath + File.separator + "admin.txt";
+        checkpointFile = dataDirPath + File.separator + "tally.checkpoint";
+        electionKeyFile = dataDirPath + File.separator + "election.key";
+
+        registeredVoters = new VoterRegistry();
+        turnout = new TurnoutTracker();
+        logged = new LoggedTurnout(new DigestSet(), Collections.emptySet());
+        candidates = CandidateRegistry.EMPTY;
+        voteTally = new CandidateTally(0, TALLY_STRIPES);
+        activityLog = new RingHistory<>(ACTIVITY_HISTORY_SIZE);
         sessionActive = false;
 
         System.out.println("DataManager initialized");
@@ -48,10 +174,10 @@ public class DataManager {
      */
     public void initializeDataFiles() throws IOException {
         // Create data directory if it doesn't exist
-        File dataDir = new File(DATA_DIR);
+        File dataDir = new File(dataDirPath);
         if (!dataDir.exists()) {
             dataDir.mkdirs();
-            System.out.println("Created data directory: " + DATA_DIR);
+            System.out.println("Created data directory: " + dataDirPath);
         }
 
         // Initialize voter database with 20 pre-registered voters
@@ -62,11 +188,30 @@ public class DataManager {
         initializeCandidatesFile();
         initializeVotesFile();
         initializeSessionFile();
+        // A key already in use stays until the next session, so logged ballots keep matching their voters
+        pseudonymizer = new File(electionKeyFile).exists()
+            ? VoterPseudonymizer.open(new File(electionKeyFile))
+            : newElectionKey();
         initializeActivityLog();
 
+        // A crash may have left a torn, never acknowledged record at the end of the vote log
+        LogRecovery.Result recovery = recoverVoteLog();
+
+        // Open the vote journal and the activity log writer once for the lifetime of the application
+        openVoteJournal();
+        openAuditLogWriter();
+
         // Load existing data
         loadSystemData();
 
+        if (!recovery.isClean()) {
+            logActivity("LOG_RECOVERY", "SYSTEM", "Removed a torn tail of " + recovery.truncatedBytes +
+                        " bytes from the vote log");
+        }
+        if (damagedVoteRecords > 0) {
+            logActivity("LOG_DAMAGE", "SYSTEM", "Skipped " + damagedVoteRecords +
+                        " damaged records in the vote log");
+        }
         logActivity("SYSTEM_INIT", "SYSTEM", "DataManager initialized successfully");
     }
 
@@ -74,20 +219,17 @@ public class DataManager {
      * Initialize voters file with 20 pre-registered 8-digit Aadhaar IDs
      */
     private void initializeVotersFile() throws IOException {
-        File votersFile = new File(VOTERS_FILE);
+        File file = new File(votersFile);
 
-        if (!votersFile.exists()) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(votersFile))) {
-                writer.println("# Registered Voters Database");
-                writer.println("# Format: AadhaarID");
-                writer.println("# Each ID is 8 digits, pre-registered for voting");
-                writer.println();
+        if (!file.exists()) {
+            AtomicFiles.write(file, writer -> {
+                writeVotersHeader(writer);
 
                 // Generate 20 unique 8-digit Aadhaar IDs
                 Set<String> uniqueIds = new HashSet<>();
                 Random random = new Random(12345); // Fixed seed for consistency
 
-                while (uniqueIds.size() < MAX_VOTERS) {
+                while (uniqueIds.size() < INITIAL_VOTERS) {
                     int aadhaarId = 10000000 + random.nextInt(90000000);
                     uniqueIds.add(String.valueOf(aadhaarId));
                 }
@@ -97,25 +239,51 @@ public class DataManager {
                 }
 
                 writer.println();
-                writer.println("# Total registered voters: " + MAX_VOTERS);
-            }
+                writer.println("# Total registered voters: " + INITIAL_VOTERS);
+            });
 
-            System.out.println("Created voters database with " + MAX_VOTERS + " registered voters");
+            System.out.println("Created voters database with " + INITIAL_VOTERS + " registered voters");
         }
     }
 
+    private static void writeVotersHeader(PrintWriter writer) {
+        writer.println("# Registered Voters Database");
+        writer.println("# Format: AadhaarID");
+        writer.println("# Each ID is 8 digits, pre-registered for voting");
+        writer.println();
+    }
+
+    /**
+     * Rewrite voters.txt from a roll in one sequential pass, ascending by ID
+     */
+    private void writeVotersFile(VoterRegistry roll) throws IOException {
+        AtomicFiles.write(new File(votersFile), writer -> {
+            writeVotersHeader(writer);
+
+            char[] line = new char[8];
+            roll.forEach(id -> {
+                VoterRegistry.formatId(id, line);
+                writer.write(line);
+                writer.println();
+            });
+
+            writer.println();
+            writer.println("# Total registered voters: " + roll.size());
+        });
+    }
+
     /**
      * Initialize admin credentials file
      */
     private void initializeAdminFile() throws IOException {
-        File adminFile = new File(ADMIN_FILE);
+        File file = new File(adminFile);
 
-        if (!adminFile.exists()) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(adminFile))) {
+        if (!file.exists()) {
+            AtomicFiles.write(file, writer -> {
                 writer.println("# Admin Credentials");
                 writer.println("# Format: USERNAME:PASSWORD");
                 writer.println(ADMIN_USERNAME + ":" + ADMIN_PASSWORD);
-            }
+            });
 
             System.out.println("Created admin credentials file");
         }
@@ -125,51 +293,97 @@ public class DataManager {
      * Initialize candidates file
      */
     private void initializeCandidatesFile() throws IOException {
-        File candidatesFile = new File(CANDIDATES_FILE);
+        File file = new File(candidatesFile);
 
-        if (!candidatesFile.exists()) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(candidatesFile))) {
-                writer.println("# Candidates Database");
-                writer.println("# Format: ID:NAME:PARTY");
-                writer.println("# Add candidates through the admin panel");
-                writer.println();
-            }
+        if (!file.exists()) {
+            AtomicFiles.write(file, this::writeCandidatesHeader);
 
             System.out.println("Created candidates file");
         }
     }
 
+    /**
+     * Header of candidates.txt
+     */
+    private void writeCandidatesHeader(PrintWriter writer) {
+        writer.println("# Candidates Database");
+        writer.println("# Format: ID:NAME:PARTY");
+        writer.println("# Add candidates through the admin panel");
+        writer.println();
+    }
+
+    /**
+     * Header of votes.txt
+     */
+    private void writeVotesHeader(PrintWriter writer) {
+        writer.println("# Vote Records");
+        writer.println("# Format: TIMESTAMP:VOTER_HASH:CANDIDATE_ID|CRC32");
+        writer.println("# Voter identity is hashed for anonymity");
+        writer.println();
+    }
+
     /**
      * Initialize votes file
      */
     private void initializeVotesFile() throws IOException {
-        File votesFile = new File(VOTES_FILE);
+        File file = new File(votesFile);
 
-        if (!votesFile.exists()) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(votesFile))) {
-                writer.println("# Vote Records");
-                writer.println("# Format: TIMESTAMP:VOTER_HASH:CANDIDATE_ID");
-                writer.println("# Voter identity is hashed for anonymity");
-                writer.println();
-            }
+        if (!file.exists()) {
+            AtomicFiles.write(file, this::writeVotesHeader);
 
             System.out.println("Created votes file");
         }
+
+        File binFile = new File(votesBinFile);
+        if (BINARY_VOTE_LOG && !binFile.exists()) {
+            BinaryVoteLog.writeHeader(binFile);
+            System.out.println("Created binary votes file");
+        }
+    }
+
+    /**
+     * Cut what a crash left half-written at the end of the vote log
+     */
+    private LogRecovery.Result recoverVoteLog() throws IOException {
+        File logFile = getVoteLogFile();
+        LogRecovery.Result result = BINARY_VOTE_LOG
+            ? LogRecovery.recoverBinaryLog(logFile)
+            : LogRecovery.recoverTextLog(logFile);
+        if (!result.isClean()) {
+            System.out.println("Vote log recovered: removed " + result.truncatedBytes + " bytes of torn tail (" +
+                               result.droppedRecords + " damaged records)");
+        }
+        return result;
+    }
+
+    /**
+     * Open the group-commit journal on the votes file
+     */
+    private void openVoteJournal() throws IOException {
+        if (voteJournal != null) {
+            voteJournal.close();
+        }
+        voteJournal = new VoteJournal(getVoteLogFile(), JOURNAL_BATCH_WINDOW_MICROS, JOURNAL_MAX_BATCH_RECORDS);
+    }
+
+    /**
+     * Start the background writer for the activity log
+     */
+    private void openAuditLogWriter() throws IOException {
+        if (auditLogWriter != null) {
+            auditLogWriter.close();
+        }
+        auditLogWriter = new AuditLogWriter(new File(activityLogFile), AUDIT_QUEUE_CAPACITY, AUDIT_POLICY);
     }
 
     /**
      * Initialize session status file
      */
     private void initializeSessionFile() throws IOException {
-        File sessionFile = new File(SESSION_FILE);
+        File file = new File(sessionFile);
 
-        if (!sessionFile.exists()) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(sessionFile))) {
-                writer.println("# Session Status");
-                writer.println("# ACTIVE or INACTIVE");
-                writer.println("INACTIVE");
-                writer.println(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            }
+        if (!file.exists()) {
+            AtomicFiles.write(file, writer -> writeSession(writer, false));
 
             System.out.println("Created session file");
         }
@@ -179,118 +393,423 @@ public class DataManager {
      * Initialize activity log file
      */
     private void initializeActivityLog() throws IOException {
-        File logFile = new File(ACTIVITY_LOG);
+        File file = new File(activityLogFile);
 
-        if (!logFile.exists()) {
-            try (PrintWriter writer = new PrintWriter(new FileWriter(logFile))) {
+        if (!file.exists()) {
+            AtomicFiles.write(file, writer -> {
                 writer.println("# Activity Log for Digital Voting System");
                 writer.println("# Format: TIMESTAMP:ACTION:USER:DETAILS");
                 writer.println();
-            }
+            });
 
             System.out.println("Created activity log file");
         }
     }
 
     /**
-     * Load all system data from files
+     * Load all system data from files.
+     *
+     * Voters, candidates, session status and recent activity do not depend on
+     * each other and are loaded concurrently. The vote log is replayed once the
+     * candidates are known. Replayed voters are kept as pseudonyms and only
+     * matched to a voter ID when that voter is looked up, so startup derives
+     * no pseudonyms for the roll.
      */
     public void loadSystemData() throws IOException {
-        loadVotersData();
-        loadCandidatesData();
-        loadVotesData();
-        loadSessionStatus();
-        loadRecentActivity();
+        startupPhaseMillis.clear();
+        long begin = System.nanoTime();
+
+        ExecutorService loaders = parallelStartup
+            ? Executors.newFixedThreadPool(4, runnable -> {
+                  Thread thread = new Thread(runnable, "startup-loader");
+                  thread.setDaemon(true);
+                  return thread;
+              })
+            : null;
+        try {
+            Future<Void> voters = startPhase(loaders, "voters", () -> {
+                loadVotersData();
+                return null;
+            });
+            Future<Void> candidates = startPhase(loaders, "candidates", () -> {
+                loadCandidatesData();
+                return null;
+            });
+            Future<Void> session = startPhase(loaders, "session", () -> {
+                loadSessionStatus();
+                return null;
+            });
+            Future<Void> activity = startPhase(loaders, "activity", () -> {
+                loadRecentActivity();
+                return null;
+            });
+
+            // Replay needs the candidate indexes; precomputed pseudonyms need the roll
+            awaitPhase(candidates);
+            Future<ReplayedVotes> votes = startPhase(loaders, "votes", this::loadVotesData);
+
+            awaitPhase(voters);
+            if (PRECOMPUTE_PSEUDONYMS) {
+                awaitPhase(startPhase(null, "pseudonyms", () -> {
+                    pseudonymizer.precompute(registeredVoters.toArray());
+                    return null;
+                }));
+            }
+
+            ReplayedVotes voted = awaitPhase(votes);
+            LoggedTurnout replayed = new LoggedTurnout(voted.keyedVoters, voted.legacyVoters);
+            logged = replayed;
+            damagedVoteRecords = voted.damagedRecords;
+
+            // With the roll's digests at hand, match every replayed ballot to its voter now
+            if (PRECOMPUTE_PSEUDONYMS && !replayed.isEmpty()) {
+                VoterPseudonymizer keys = pseudonymizer;
+                awaitPhase(startPhase(null, "turnout", () -> {
+                    Arrays.stream(registeredVoters.toArray()).parallel().forEach(id -> replayed.contains(id, keys));
+                    return null;
+                }));
+            }
+
+            awaitPhase(session);
+            awaitPhase(activity);
+        } finally {
+            if (loaders != null) {
+                loaders.shutdownNow();
+            }
+        }
+        startupPhaseMillis.put("total", (System.nanoTime() - begin) / 1_000_000);
 
         System.out.println("System data loaded successfully");
         System.out.println("Registered voters: " + registeredVoters.size());
         System.out.println("Candidates: " + candidates.size());
-        System.out.println("Votes cast: " + votedVoters.size());
+        System.out.println("Votes cast: " + getTotalVotes());
         System.out.println("Session active: " + sessionActive);
+        System.out.println(getStartupReport());
     }
 
     /**
-     * Load voters data from file
+     * Run a load phase on the loader pool, or right away without one, recording its duration
+     */
+    private <T> Future<T> startPhase(ExecutorService loaders, String phase, LoadPhase<T> work) {
+        Callable<T> timed = () -> {
+            long begin = System.nanoTime();
+            try {
+                return work.run();
+            } finally {
+                startupPhaseMillis.put(phase, (System.nanoTime() - begin) / 1_000_000);
+            }
+        };
+
+        if (loaders != null) {
+            return loaders.submit(timed);
+        }
+        FutureTask<T> inline = new FutureTask<>(timed);
+        inline.run();
+        return inline;
+    }
+
+    /**
+     * Wait for a load phase, passing on its failure
+     */
+    private static <T> T awaitPhase(Future<T> phase) throws IOException {
+        try {
+            return phase.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading system data");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Loading system data failed", cause);
+        }
+    }
+
+    /**
+     * Duration of each phase of the last load in milliseconds, plus the total
+     */
+    public Map<String, Long> getStartupPhaseMillis() {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        for (String phase : STARTUP_PHASES) {
+            Long millis = startupPhaseMillis.get(phase);
+            if (millis != null) {
+                phases.put(phase, millis);
+            }
+        }
+        Long total = startupPhaseMillis.get("total");
+        if (total != null) {
+            phases.put("total", total);
+        }
+        return phases;
+    }
+
+    /**
+     * One-line summary of the last load's phase durations
+     */
+    public String getStartupReport() {
+        StringBuilder report = new StringBuilder(parallelStartup ? "Parallel" : "Sequential").append(" startup:");
+        String separator = " ";
+        for (Map.Entry<String, Long> phase : getStartupPhaseMillis().entrySet()) {
+            report.append(separator).append(phase.getKey()).append(' ').append(phase.getValue()).append(" ms");
+            separator = ", ";
+        }
+        return report.toString();
+    }
+
+    /**
+     * Choose between the concurrent and the one-file-at-a-time startup, e.g. to compare them
+     */
+    public void setParallelStartup(boolean parallel) {
+        this.parallelStartup = parallel;
+    }
+
+    /**
+     * Size of the byte ranges large files are split into; sequential startup reads them whole
+     */
+    private long startupChunkBytes() {
+        return parallelStartup ? ParallelFileReader.DEFAULT_CHUNK_BYTES : Long.MAX_VALUE;
+    }
+
+    /**
+     * Load voters data from file, parsing byte ranges of a large roll in parallel
      */
     private void loadVotersData() throws IOException {
         registeredVoters.clear();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(VOTERS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty() && !line.startsWith("#")) {
-                    if (line.matches("\\d{8}")) { // 8-digit validation
-                        registeredVoters.add(line);
-                    }
+        // IDs are parsed straight from the mapped bytes; the registry takes concurrent adds
+        File file = new File(votersFile);
+        long[] chunks = ParallelFileReader.lineChunks(file, 0, startupChunkBytes(), false);
+        ParallelFileReader.parse(chunks, (from, to) -> {
+            ParallelFileReader.forEachLine(file, from, to, (data, start, end) -> {
+                int id = LineScanner.parseVoterId(data, start, end); // 8-digit validation
+                if (id >= 0) {
+                    registeredVoters.add(id);
                 }
-            }
-        }
+            });
+            return null;
+        }, (left, right) -> null);
     }
 
     /**
      * Load candidates data from file
      */
     private void loadCandidatesData() throws IOException {
-        candidates.clear();
-        voteCount.clear();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(CANDIDATES_FILE))) {
+        CandidateRegistry.Builder loaded = new CandidateRegistry.Builder();
+        int[] fieldEnds = new int[3];
+        try (BufferedReader reader = new BufferedReader(new FileReader(candidatesFile))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
                 if (!line.isEmpty() && !line.startsWith("#")) {
-                    String[] parts = line.split(":");
-                    if (parts.length >= 3) {
-                        String id = parts[0];
-                        String name = parts[1];
-                        String party = parts[2];
-                        candidates.put(id, new String[]{name, party});
-                        voteCount.put(id, 0); // Initialize vote count
+                    // ID:NAME:PARTY, extra fields ignored
+                    if (LineScanner.colonFields(line, fieldEnds) >= 3) {
+                        String id = line.substring(0, fieldEnds[0]);
+                        String name = line.substring(fieldEnds[0] + 1, fieldEnds[1]);
+                        String party = line.substring(fieldEnds[1] + 1, fieldEnds[2]);
+                        loaded.add(id, name, party);
                     }
                 }
             }
         }
+
+        // Initialize vote counts
+        candidates = loaded.build();
+        voteTally = new CandidateTally(candidates.size(), TALLY_STRIPES);
     }
 
     /**
      * Load votes data and count votes
+     *
+     * @return everyone who voted, by pseudonym
      */
-    private void loadVotesData() throws IOException {
-        votedVoters.clear();
+    private ReplayedVotes loadVotesData() throws IOException {
+        turnout.clear();
+        checkpointLock.lock();
+        try {
+            uncheckpointedVoters.clear();
+            checkpointedVoters = new DigestSet();
+        } finally {
+            checkpointLock.unlock();
+        }
+
+        // The log identifies voters by pseudonym; lookups match them to voter IDs on demand
+        ReplayedVotes voted = new ReplayedVotes(candidates.size());
 
         // Reset vote counts
-        for (String candidateId : candidates.keySet()) {
-            voteCount.put(candidateId, 0);
+        voteTally = new CandidateTally(candidates.size(), TALLY_STRIPES);
+
+        // Start from the latest checkpoint so only the log tail is replayed
+        File logFile = getVoteLogFile();
+        long replayFrom = 0;
+        TallyCheckpoint checkpoint = TallyCheckpoint.read(new File(checkpointFile), logFile, BINARY_VOTE_LOG);
+        if (checkpoint != null) {
+            voted.keyedVoters = checkpoint.getKeyedVoters();
+            voted.legacyVoters.addAll(checkpoint.getLegacyVoters());
+            for (Map.Entry<String, Integer> entry : checkpoint.getVoteCount().entrySet()) {
+                int index = candidates.indexOf(entry.getKey());
+                if (index >= 0) {
+                    voteTally.add(index, entry.getValue());
+                }
+            }
+            replayFrom = checkpoint.getLogOffset();
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(VOTES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty() && !line.startsWith("#")) {
-                    String[] parts = line.split(":");
-                    if (parts.length >= 3) {
-                        String voterHash = parts[1];
-                        String candidateId = parts[2];
+        ReplayedVotes replayed = BINARY_VOTE_LOG
+            ? loadBinaryVotesData(replayFrom)
+            : loadTextVotesData(logFile, replayFrom);
+        if (replayed != null) {
+            voted.addVoters(replayed);
+            voted.damagedRecords = replayed.damagedRecords;
+            for (int i = 0; i < replayed.counts.length; i++) {
+                if (replayed.counts[i] > 0) {
+                    voteTally.add(i, replayed.counts[i]);
+                }
+            }
+        }
+
+        // New records are appended at the end of the file
+        voteLogEnd.set(logFile.length());
+        votesSinceCheckpoint.set(0);
+
+        if (checkpoint != null) {
+            System.out.println("Tally restored from checkpoint at offset " + replayFrom +
+                               ", replayed " + (voteLogEnd.get() - replayFrom) + " log bytes");
+        }
+        return voted;
+    }
+
+    /**
+     * Votes replayed from one range of the vote log: who voted and the count per candidate index.
+     * Keyed pseudonyms are kept as raw digests; only legacy ones are kept as text.
+     */
+    private static class ReplayedVotes {
+        DigestSet keyedVoters = new DigestSet();
+        Set<String> legacyVoters = new HashSet<>();
+        final long[] counts;
+        long damagedRecords; // binary records that failed their checksum and were skipped
+
+        ReplayedVotes(int candidates) {
+            counts = new long[candidates];
+        }
+
+        void count(int candidate) {
+            if (candidate >= 0) {
+                counts[candidate]++;
+            }
+        }
+
+        /**
+         * Add the voters of another replay, reusing the larger set
+         */
+        void addVoters(ReplayedVotes other) {
+            if (other.keyedVoters.size() > keyedVoters.size()) {
+                DigestSet smaller = keyedVoters;
+                keyedVoters = other.keyedVoters;
+                keyedVoters.addAll(smaller);
+            } else {
+                keyedVoters.addAll(other.keyedVoters);
+            }
+            legacyVoters.addAll(other.legacyVoters);
+        }
+
+        /**
+         * Add the replay of another range
+         */
+        ReplayedVotes merge(ReplayedVotes next) {
+            addVoters(next);
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += next.counts[i];
+            }
+            damagedRecords += next.damagedRecords;
+            return this;
+        }
+    }
+
+    /**
+     * Replay the complete lines of the text vote log in parallel byte ranges.
+     * Fields are located in the read buffer, so well-formed keyed records create no objects.
+     */
+    private ReplayedVotes loadTextVotesData(File logFile, long fromOffset) throws IOException {
+        CandidateRegistry registry = candidates;
+        byte[][] candidateIds = new byte[registry.size()][];
+        for (int i = 0; i < candidateIds.length; i++) {
+            candidateIds[i] = registry.getIdBytes(i);
+        }
+        long[] chunks = ParallelFileReader.lineChunks(logFile, fromOffset, startupChunkBytes(), true);
+
+        return ParallelFileReader.parse(chunks, (from, to) -> {
+            ReplayedVotes votes = new ReplayedVotes(candidateIds.length);
+            LineScanner.VoteFields fields = new LineScanner.VoteFields();
+            byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+
+            ParallelFileReader.forEachLine(logFile, from, to, (data, start, end) -> {
+                // Fields are located from the right since the timestamp contains colons
+                if (!LineScanner.locateVoteFields(data, start, end, fields)) {
+                    return;
+                }
+                if (VoterPseudonymizer.digestOf(data, fields.voterStart, fields.voterEnd, digest)) {
+                    votes.keyedVoters.add(digest);
+                } else {
+                    votes.legacyVoters.add(new String(data, fields.voterStart, fields.voterEnd - fields.voterStart,
+                                                      StandardCharsets.UTF_8));
+                }
+                votes.count(LineScanner.indexOf(candidateIds, data, fields.candidateStart, fields.candidateEnd));
+            });
+            return votes;
+        }, ReplayedVotes::merge);
+    }
 
-                        votedVoters.add(voterHash);
+    /**
+     * Get the vote log file for the configured format
+     */
+    private File getVoteLogFile() {
+        return new File(BINARY_VOTE_LOG ? votesBinFile : votesFile);
+    }
 
-                        // Increment vote count for candidate
-                        if (voteCount.containsKey(candidateId)) {
-                            voteCount.put(candidateId, voteCount.get(candidateId) + 1);
+    /**
+     * Replay the memory-mapped binary vote log in parallel record ranges
+     */
+    private ReplayedVotes loadBinaryVotesData(long fromOffset) throws IOException {
+        File logFile = new File(votesBinFile);
+        int candidateCount = candidates.size();
+        long start = Math.max(BinaryVoteLog.HEADER_SIZE, fromOffset);
+        long[] chunks = ParallelFileReader.recordChunks(start, logFile.length(), BinaryVoteLog.RECORD_SIZE,
+                                                        startupChunkBytes());
+
+        // Damaged records are skipped; records after them are replayed as usual
+        ReplayedVotes replayed = ParallelFileReader.parse(chunks, (from, to) -> {
+            ReplayedVotes votes = new ReplayedVotes(candidateCount);
+            BinaryVoteLog.ReplayResult result = BinaryVoteLog.replay(logFile, from, to,
+                (epochNanos, voterDigest, candidateIndex) -> {
+                    if (candidateIndex >= 0 && candidateIndex < candidateCount) {
+                        if (BinaryVoteLog.isLegacyDigest(voterDigest)) {
+                            votes.legacyVoters.add(BinaryVoteLog.voterHashFromDigest(voterDigest));
+                        } else {
+                            votes.keyedVoters.add(voterDigest);
                         }
+                        votes.count(candidateIndex);
                     }
-                }
-            }
+                });
+            // Recovery has already cut a damaged tail, so damage at the end of a range is mid-log too
+            votes.damagedRecords = result.skippedRecords + result.trailingCorruptRecords();
+            return votes;
+        }, ReplayedVotes::merge);
+
+        if (replayed != null && replayed.damagedRecords > 0) {
+            System.err.println("Binary vote log: skipped " + replayed.damagedRecords + " damaged records");
         }
+        return replayed;
     }
 
     /**
      * Load session status
      */
     private void loadSessionStatus() throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(SESSION_FILE))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(sessionFile))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
@@ -306,21 +825,16 @@ public class DataManager {
      * Load recent activity from log
      */
     private void loadRecentActivity() throws IOException {
-        activityLog.clear();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACTIVITY_LOG))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty() && !line.startsWith("#")) {
-                    activityLog.add(line);
-                }
-            }
+        // Make queued entries visible to the reader below
+        if (auditLogWriter != null) {
+            auditLogWriter.flush();
         }
 
-        // Keep only last 100 entries to prevent memory issues
-        if (activityLog.size() > 100) {
-            activityLog = new ArrayList<>(activityLog.subList(activityLog.size() - 100, activityLog.size()));
+        activityLog.clear();
+
+        // Only the newest entries are kept, so read them from the end of the log
+        for (String entry : LogTail.readLastEntries(new File(activityLogFile), activityLog.capacity())) {
+            activityLog.add(entry);
         }
     }
 
@@ -332,33 +846,97 @@ public class DataManager {
     }
 
     /**
-     * Check if voter has already voted (using hash for anonymity)
+     * Check if voter has already voted. A bit test for ballots cast since
+     * startup and for voters already matched against the replayed log; only
+     * a voter's first lookup against the log derives their digest.
      */
     public boolean hasVoterVoted(String voterID) {
-        String voterHash = hashVoterID(voterID);
-        return votedVoters.contains(voterHash);
+        if (turnout.hasVoted(voterID)) {
+            return true;
+        }
+        int voterId = VoterRegistry.parseId(voterID);
+        LoggedTurnout replayed = logged;
+        return voterId >= 0 && !replayed.isEmpty() && replayed.contains(voterId, pseudonymizer);
+    }
+
+    /**
+     * Voters whose ballots were replayed from the vote log, by pseudonym. The
+     * sets are read-only once published. Each voter ID's match is remembered
+     * in two bitmaps, so later lookups are bit tests. A new instance is
+     * published whenever the log is reloaded or cleared, so a lookup racing
+     * with that only marks the old one.
+     */
+    private static class LoggedTurnout {
+        final DigestSet keyed;
+        final Set<String> legacy;
+        final TurnoutTracker matched = new TurnoutTracker(); // looked up and found in the log
+        final TurnoutTracker checked = new TurnoutTracker(); // looked up
+
+        LoggedTurnout(DigestSet keyed, Set<String> legacy) {
+            this.keyed = keyed;
+            this.legacy = legacy;
+        }
+
+        boolean isEmpty() {
+            return keyed.isEmpty() && legacy.isEmpty();
+        }
+
+        int size() {
+            return keyed.size() + legacy.size();
+        }
+
+        /**
+         * Whether the log held a ballot for this voter when it was loaded
+         */
+        boolean contains(int voterId, VoterPseudonymizer keys) {
+            if (checked.hasVoted(voterId)) {
+                return matched.hasVoted(voterId);
+            }
+
+            // Logs written before keyed pseudonyms identify voters by a legacy hash code
+            boolean found = (!keyed.isEmpty() && keyed.contains(keys.digest(voterId)))
+                || (!legacy.isEmpty()
+                    && legacy.contains(VoterPseudonymizer.legacyPseudonym(VoterRegistry.formatId(voterId))));
+            if (found) {
+                matched.markVoted(voterId);
+            }
+            checked.markVoted(voterId);
+            return found;
+        }
     }
 
     /**
-     * Hash voter ID for anonymity (simple hash for demo)
+     * Derive and cache a voter's pseudonym when they authenticate
      */
-    private String hashVoterID(String voterID) {
-        return "VOTER_" + Math.abs(voterID.hashCode());
+    public void beginVoterSession(String voterID) {
+        int id = VoterRegistry.parseId(voterID);
+        if (id >= 0) {
+            pseudonymizer.beginSession(id);
+        }
     }
 
     /**
-     * Record a vote
+     * Drop a voter's cached pseudonym when their session ends
      */
-    public boolean recordVote(String voterID, String candidateID) throws IOException {
-        if (!isVoterRegistered(voterID)) {
-            return false;
+    public void endVoterSession(String voterID) {
+        int id = VoterRegistry.parseId(voterID);
+        if (id >= 0) {
+            pseudonymizer.endSession(id);
         }
+    }
 
-        if (hasVoterVoted(voterID)) {
+    /**
+     * Record a vote. Safe to call from many threads at once: each voter is
+     * counted at most once no matter how many terminals submit for them.
+     */
+    public boolean recordVote(String voterID, String candidateID) throws IOException {
+        if (!isVoterRegistered(voterID)) {
             return false;
         }
 
-        if (!candidates.containsKey(candidateID)) {
+        // Indexes are never reused, so this stays valid if a candidate is added meanwhile
+        int candidate = candidates.indexOf(candidateID);
+        if (candidate < 0) {
             return false;
         }
 
@@ -366,55 +944,173 @@ public class DataManager {
             return false;
         }
 
-        // Record the vote
-        String voterHash = hashVoterID(voterID);
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        boolean checkpointDue;
+        voteLock.readLock().lock();
+        try {
+            // Atomically claim the voter's bit; a concurrent duplicate loses here
+            int voterId = VoterRegistry.parseId(voterID);
+            LoggedTurnout replayed = logged;
+            if (!replayed.isEmpty() && replayed.contains(voterId, pseudonymizer)) {
+                return false;
+            }
+            if (!turnout.markVoted(voterId)) {
+                return false;
+            }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(VOTES_FILE, true))) {
-            writer.println(timestamp + ":" + voterHash + ":" + candidateID);
+            // The keyed pseudonym identifies the voter in the log, never the ID itself
+            byte[] voterDigest = pseudonymizer.digest(voterId);
+            byte[] record;
+            try {
+                record = appendVoteRecord(voterDigest, candidateID, candidate);
+            } catch (IOException | RuntimeException e) {
+                // Not durable, so the voter may try again
+                turnout.unmark(voterId);
+                throw e;
+            }
+
+            voteTally.increment(candidate);
+            voteLogEnd.addAndGet(record.length);
+            uncheckpointedVoters.add(voterDigest);
+            checkpointDue = votesSinceCheckpoint.incrementAndGet() == CHECKPOINT_INTERVAL_VOTES;
+        } finally {
+            voteLock.readLock().unlock();
         }
 
-        // Update in-memory data
-        votedVoters.add(voterHash);
-        voteCount.put(candidateID, voteCount.get(candidateID) + 1);
+        if (checkpointDue) {
+            scheduleCheckpoint();
+        }
 
         return true;
     }
 
     /**
-     * Add a new candidate
+     * Encode a vote and append it to the journal
      */
-    public boolean addCandidate(String candidateID, String name, String party) throws IOException {
-        if (candidates.containsKey(candidateID)) {
-            return false; // Candidate already exists
+    private byte[] appendVoteRecord(byte[] voterDigest, String candidateID, int candidate) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+
+        byte[] record;
+        if (BINARY_VOTE_LOG) {
+            record = BinaryVoteLog.encodeRecord(BinaryVoteLog.toEpochNanos(now), voterDigest, candidate);
+        } else {
+            String timestamp = now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            String voterHash = VoterPseudonymizer.toPseudonym(voterDigest);
+            record = (VoteRecord.encode(timestamp, voterHash, candidateID) + System.lineSeparator())
+                .getBytes(StandardCharsets.UTF_8);
         }
 
-        // Add to file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(CANDIDATES_FILE, true))) {
-            writer.println(candidateID + ":" + name + ":" + party);
+        // Returns once the batch containing this vote has been forced to disk
+        voteJournal.append(record);
+        return record;
+    }
+
+    /**
+     * Queue a checkpoint on the checkpoint thread unless one is already waiting
+     */
+    private void scheduleCheckpoint() {
+        if (!checkpointQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            checkpointWriter.execute(() -> {
+                checkpointQueued.set(false);
+                writeCheckpoint();
+            });
+        } catch (RejectedExecutionException e) {
+            checkpointQueued.set(false); // shut down; the final checkpoint covers this ballot
         }
+    }
+
+    /**
+     * Write a tally checkpoint covering the vote log up to voteLogEnd
+     */
+    private void writeCheckpoint() {
+        checkpointLock.lock();
+        try {
+            long logOffset;
+            Map<String, Integer> countSnapshot;
+            LoggedTurnout replayed;
+
+            // Snapshot with no vote in flight so the tally matches the log offset exactly
+            voteLock.writeLock().lock();
+            try {
+                logOffset = voteLogEnd.get();
+                countSnapshot = snapshotVoteCount();
+                replayed = logged;
+                for (byte[] digest; (digest = uncheckpointedVoters.poll()) != null; ) {
+                    checkpointedVoters.add(digest);
+                }
+                votesSinceCheckpoint.set(0);
+            } finally {
+                voteLock.writeLock().unlock();
+            }
 
-        // Update in-memory data
-        candidates.put(candidateID, new String[]{name, party});
-        voteCount.put(candidateID, 0);
+            // Digests kept from the vote path; the checkpoint stores pseudonyms, never voter IDs
+            TallyCheckpoint.write(new File(checkpointFile), getVoteLogFile(), BINARY_VOTE_LOG,
+                                  logOffset, countSnapshot, Arrays.asList(replayed.keyed, checkpointedVoters),
+                                  replayed.legacy);
+        } catch (IOException e) {
+            // The vote log stays authoritative; the next checkpoint will retry
+            System.err.println("Failed to write tally checkpoint: " + e.getMessage());
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
 
-        return true;
+    /**
+     * Copy the live tally into a plain map keyed by candidate ID
+     */
+    private Map<String, Integer> snapshotVoteCount() {
+        Map<String, Integer> snapshot = new HashMap<>();
+        CandidateRegistry registry = candidates;
+        long[] counts = voteTally.snapshot();
+        for (int i = 0; i < counts.length; i++) {
+            snapshot.put(registry.getId(i), (int) counts[i]);
+        }
+        return snapshot;
     }
 
     /**
-     * Get all candidates as formatted strings
+     * Add a new candidate
      */
-    public List<String> getAllCandidates() {
-        List<String> candidateList = new ArrayList<>();
+    public boolean addCandidate(String candidateID, String name, String party) throws IOException {
+        voteLock.writeLock().lock();
+        try {
+            if (candidates.contains(candidateID)) {
+                return false; // Candidate already exists
+            }
+            CandidateRegistry next = candidates.with(candidateID, name, party);
+
+            // Rewrite the file with the new candidate; a crash leaves either the old or the new list
+            AtomicFiles.write(new File(candidatesFile), writer -> {
+                writeCandidatesHeader(writer);
+                for (int i = 0; i < next.size(); i++) {
+                    writer.println(next.getId(i) + ":" + next.getName(i) + ":" + next.getParty(i));
+                }
+            });
+
+            // Update in-memory data; the tally slot exists before the candidate becomes visible
+            voteTally = voteTally.resize(next.size());
+            candidates = next;
 
-        for (Map.Entry<String, String[]> entry : candidates.entrySet()) {
-            String id = entry.getKey();
-            String[] info = entry.getValue();
-            String formatted = id + " - " + info[0] + " (" + info[1] + ")";
-            candidateList.add(formatted);
+            return true;
+        } finally {
+            voteLock.writeLock().unlock();
         }
+    }
+
+    /**
+     * Get all candidates as formatted strings, in index order; the list is shared and unmodifiable
+     */
+    public List<String> getAllCandidates() {
+        return candidates.getDisplayList();
+    }
 
-        return candidateList;
+    /**
+     * Current candidate snapshot; indexes match getVoteCounts
+     */
+    public CandidateRegistry getCandidateRegistry() {
+        return candidates;
     }
 
     /**
@@ -428,38 +1124,77 @@ public class DataManager {
      * Get total votes cast
      */
     public int getTotalVotes() {
-        return votedVoters.size();
+        // Voters in the log cannot vote again, so the two never overlap
+        return (int) turnout.count() + logged.size();
+    }
+
+    /**
+     * Binary vote log records skipped on startup because they failed their checksum
+     */
+    public long getDamagedVoteRecords() {
+        return damagedVoteRecords;
     }
 
     /**
      * Get voting results
      */
     public Map<String, Integer> getVotingResults() {
-        Map<String, Integer> results = new HashMap<>();
+        CandidateRegistry registry = candidates;
+        long[] counts = getVoteCounts();
+        int size = Math.min(counts.length, registry.size());
 
-        for (Map.Entry<String, String[]> entry : candidates.entrySet()) {
-            String id = entry.getKey();
-            String[] info = entry.getValue();
-            String candidateName = info[0] + " (" + info[1] + ")";
-            int votes = voteCount.getOrDefault(id, 0);
-            results.put(candidateName, votes);
+        Map<String, Integer> results = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            results.put(registry.getResultLabel(i), (int) counts[i]);
         }
 
         return results;
     }
 
+    /**
+     * Votes per candidate index, one consistent snapshot across all candidates: read
+     * without locking when no vote lands in between, otherwise with voters held off. A
+     * candidate added meanwhile may have a count but not yet be in the registry read before.
+     */
+    public long[] getVoteCounts() {
+        long[] counts = voteTally.trySnapshot();
+        if (counts != null) {
+            return counts;
+        }
+
+        // Votes kept landing between reads; hold them off for one read
+        voteLock.writeLock().lock();
+        try {
+            return voteTally.snapshot();
+        } finally {
+            voteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get CAS contention statistics of the vote tally
+     */
+    public String getTallyContentionStats() {
+        return voteTally.getContentionReport(candidates.getIds());
+    }
+
     /**
      * Set session status
      */
     public void setSessionStatus(boolean active) throws IOException {
         sessionActive = active;
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(SESSION_FILE))) {
-            writer.println("# Session Status");
-            writer.println("# ACTIVE or INACTIVE");
-            writer.println(active ? "ACTIVE" : "INACTIVE");
-            writer.println(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-        }
+        AtomicFiles.write(new File(sessionFile), writer -> writeSession(writer, active));
+    }
+
+    /**
+     * Contents of session.txt
+     */
+    private static void writeSession(PrintWriter writer, boolean active) {
+        writer.println("# Session Status");
+        writer.println("# ACTIVE or INACTIVE");
+        writer.println(active ? "ACTIVE" : "INACTIVE");
+        writer.println(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
     }
 
     /**
@@ -473,23 +1208,59 @@ public class DataManager {
      * Clear all voting data (start fresh session)
      */
     public void clearVotingData() throws IOException {
-        // Clear votes file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(VOTES_FILE))) {
-            writer.println("# Vote Records");
-            writer.println("# Format: TIMESTAMP:VOTER_HASH:CANDIDATE_ID");
-            writer.println("# Voter identity is hashed for anonymity");
-            writer.println();
-        }
+        checkpointLock.lock();
+        voteLock.writeLock().lock();
+        try {
+            // Release the journal before truncating the file it appends to
+            if (voteJournal != null) {
+                voteJournal.close();
+                voteJournal = null;
+            }
+
+            // The old checkpoint describes the log being discarded
+            new File(checkpointFile).delete();
+
+            // Clear votes file
+            AtomicFiles.write(new File(votesFile), this::writeVotesHeader);
+            if (BINARY_VOTE_LOG) {
+                BinaryVoteLog.writeHeader(new File(votesBinFile));
+            }
+            openVoteJournal();
+
+            pseudonymizer = newElectionKey();
+            if (PRECOMPUTE_PSEUDONYMS) {
+                pseudonymizer.precompute(registeredVoters.toArray());
+            }
 
-        // Reset in-memory data
-        votedVoters.clear();
-        for (String candidateId : candidates.keySet()) {
-            voteCount.put(candidateId, 0);
+            // Reset in-memory data
+            turnout.clear();
+            logged = new LoggedTurnout(new DigestSet(), Collections.emptySet());
+            damagedVoteRecords = 0;
+            voteTally = new CandidateTally(candidates.size(), TALLY_STRIPES);
+            voteLogEnd.set(getVoteLogFile().length());
+            votesSinceCheckpoint.set(0);
+            uncheckpointedVoters.clear();
+            checkpointedVoters = new DigestSet();
+        } finally {
+            voteLock.writeLock().unlock();
+            checkpointLock.unlock();
         }
 
         logActivity("DATA_CLEAR", "SYSTEM", "All voting data cleared for new session");
     }
 
+    /**
+     * Key for a new session: the provisioned shared key if there is one, so
+     * booths of one election can be aggregated; otherwise a fresh random key
+     * so pseudonyms cannot be linked across sessions
+     */
+    private VoterPseudonymizer newElectionKey() throws IOException {
+        File keyFile = new File(electionKeyFile);
+        return SHARED_ELECTION_KEY != null
+            ? VoterPseudonymizer.provision(new File(SHARED_ELECTION_KEY), keyFile)
+            : VoterPseudonymizer.rotate(keyFile);
+    }
+
     /**
      * Log activity for audit trail
      */
@@ -497,28 +1268,36 @@ public class DataManager {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
         String logEntry = timestamp + ":" + action + ":" + user + ":" + details;
 
-        // Add to memory
+        // Add to memory, replacing the oldest entry once full
         activityLog.add(logEntry);
 
-        // Write to file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ACTIVITY_LOG, true))) {
-            writer.println(logEntry);
-        } catch (IOException e) {
-            System.err.println("Failed to write to activity log: " + e.getMessage());
+        // Hand off to the background writer; write directly before startup or after shutdown
+        AuditLogWriter writer = auditLogWriter;
+        if (writer != null && writer.append(logEntry)) {
+            return;
         }
-
-        // Keep memory log manageable
-        if (activityLog.size() > 100) {
-            activityLog.remove(0);
+        if (writer == null || writer.isClosed()) {
+            try (PrintWriter out = new PrintWriter(new FileWriter(activityLogFile, true))) {
+                out.println(logEntry);
+            } catch (IOException e) {
+                System.err.println("Failed to write to activity log: " + e.getMessage());
+            }
         }
     }
 
+    /**
+     * Activity log entries discarded because the writer queue was full (DROP policy)
+     */
+    public long getDroppedActivityCount() {
+        AuditLogWriter writer = auditLogWriter;
+        return writer == null ? 0 : writer.getDroppedCount();
+    }
+
     /**
      * Get recent activity entries
      */
     public List<String> getRecentActivity(int count) {
-        int startIndex = Math.max(0, activityLog.size() - count);
-        return new ArrayList<>(activityLog.subList(startIndex, activityLog.size()));
+        return activityLog.getLast(count);
     }
 
     /**
@@ -528,40 +1307,70 @@ public class DataManager {
         // Session state is automatically saved when changed
         // Activity log is automatically appended
         // Vote data is automatically saved when recorded
+        writeCheckpoint();
 
         logActivity("STATE_SAVE", "SYSTEM", "System state saved successfully");
     }
 
+    /**
+     * Release file resources held by the data layer
+     */
+    public void shutdown() {
+        try {
+            if (voteJournal != null) {
+                writeCheckpoint();
+                voteJournal.close();
+                voteJournal = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close vote journal: " + e.getMessage());
+        }
+
+        // Flush queued activity entries; later entries are written directly
+        AuditLogWriter writer = auditLogWriter;
+        auditLogWriter = null;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Failed to flush activity log: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Get registered voters list (for admin purposes)
      */
     public List<String> getRegisteredVoters() {
-        return new ArrayList<>(registeredVoters);
+        return registeredVoters.toList();
     }
 
     /**
      * Add more voters to the system (admin function)
      */
     public boolean addVoter(String voterID) throws IOException {
-        if (voterID.length() != 8 || !voterID.matches("\\d+")) {
+        if (VoterRegistry.parseId(voterID) < 0) {
             return false;
         }
 
-        if (registeredVoters.contains(voterID)) {
-            return false; // Already registered
-        }
+        rollLock.lock();
+        try {
+            if (registeredVoters.contains(voterID)) {
+                return false; // Already registered
+            }
 
-        if (registeredVoters.size() >= MAX_VOTERS) {
-            return false; // Maximum capacity reached
-        }
+            if (registeredVoters.size() >= MAX_VOTERS) {
+                return false; // Maximum capacity reached
+            }
 
-        // Add to file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(VOTERS_FILE, true))) {
-            writer.println(voterID);
-        }
+            // Add to file
+            AtomicFiles.appendLine(new File(votersFile), voterID);
 
-        // Update in-memory
-        registeredVoters.add(voterID);
+            // Update in-memory
+            registeredVoters.add(voterID);
+        } finally {
+            rollLock.unlock();
+        }
 
         return true;
     }
@@ -570,29 +1379,68 @@ public class DataManager {
      * Remove voter from system (admin function)
      */
     public boolean removeVoter(String voterID) throws IOException {
-        if (!registeredVoters.contains(voterID)) {
-            return false;
+        rollLock.lock();
+        try {
+            if (!registeredVoters.contains(voterID)) {
+                return false;
+            }
+
+            // Remove from memory
+            registeredVoters.remove(voterID);
+
+            // Rewrite the entire file
+            writeVotersFile(registeredVoters);
+        } finally {
+            rollLock.unlock();
         }
 
-        // Remove from memory
-        registeredVoters.remove(voterID);
+        return true;
+    }
 
-        // Rewrite the entire file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(VOTERS_FILE))) {
-            writer.println("# Registered Voters Database");
-            writer.println("# Format: AadhaarID");
-            writer.println("# Each ID is 8 digits, pre-registered for voting");
-            writer.println();
+    /**
+     * Register every voter in a roll file (admin function). IDs are read from
+     * the given comma-separated column; nothing changes if the roll would
+     * grow past the voter capacity.
+     */
+    public VoterRollImport.Result importVoters(File rollFile, int column) throws IOException {
+        return updateRoll(rollFile, column, VoterRollImport.Mode.ADD);
+    }
 
-            for (String id : registeredVoters) {
-                writer.println(id);
-            }
+    /**
+     * Remove every voter listed in a roll file (admin function)
+     */
+    public VoterRollImport.Result removeVoters(File rollFile, int column) throws IOException {
+        return updateRoll(rollFile, column, VoterRollImport.Mode.REMOVE);
+    }
 
-            writer.println();
-            writer.println("# Total registered voters: " + registeredVoters.size());
+    /**
+     * Apply a roll file to a copy of the roll, write voters.txt from it once
+     * and swap it in, so lookups see either the old roll or the new one
+     */
+    private VoterRollImport.Result updateRoll(File rollFile, int column, VoterRollImport.Mode mode)
+            throws IOException {
+        VoterRollImport.Result result;
+        rollLock.lock();
+        try {
+            long start = System.nanoTime();
+            VoterRegistry next = registeredVoters.copy();
+            VoterRollImport.Counts counts =
+                VoterRollImport.apply(rollFile, column, mode, next, ParallelFileReader.DEFAULT_CHUNK_BYTES);
+
+            boolean applied = mode == VoterRollImport.Mode.REMOVE || next.size() <= MAX_VOTERS;
+            if (applied && counts.changed > 0) {
+                writeVotersFile(next);
+                registeredVoters = next;
+            }
+            result = new VoterRollImport.Result(mode, counts, registeredVoters.size(), applied,
+                                                System.nanoTime() - start);
+        } finally {
+            rollLock.unlock();
         }
 
-        return true;
+        logActivity(mode == VoterRollImport.Mode.ADD ? "VOTERS_IMPORTED" : "VOTERS_REMOVED", "ADMIN",
+                    rollFile.getName() + ": " + result);
+        return result;
     }
 
     /**
@@ -609,10 +1457,11 @@ public class DataManager {
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalRegisteredVoters", registeredVoters.size());
         stats.put("totalCandidates", candidates.size());
-        stats.put("totalVotesCast", votedVoters.size());
+        int votesCast = getTotalVotes();
+        stats.put("totalVotesCast", votesCast);
         stats.put("sessionActive", sessionActive);
         stats.put("voterTurnout", registeredVoters.size() > 0 ? 
-                  (votedVoters.size() * 100.0 / registeredVoters.size()) : 0.0);
+                  (votesCast * 100.0 / registeredVoters.size()) : 0.0);
 
         return stats;
     }
@@ -624,16 +1473,16 @@ public class DataManager {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
             writer.println("Candidate_ID,Candidate_Name,Party,Vote_Count,Percentage");
 
-            int totalVotes = votedVoters.size();
+            int totalVotes = getTotalVotes();
+            CandidateRegistry registry = candidates;
+            long[] counts = getVoteCounts();
 
-            for (Map.Entry<String, String[]> entry : candidates.entrySet()) {
-                String id = entry.getKey();
-                String[] info = entry.getValue();
-                int votes = voteCount.getOrDefault(id, 0);
+            for (int i = 0; i < Math.min(counts.length, registry.size()); i++) {
+                long votes = counts[i];
                 double percentage = totalVotes > 0 ? (votes * 100.0 / totalVotes) : 0.0;
 
                 writer.printf("%s,%s,%s,%d,%.2f%%\n", 
-                            id, info[0], info[1], votes, percentage);
+                            registry.getId(i), registry.getName(i), registry.getParty(i), votes, percentage);
             }
         }
 
@@ -662,6 +1511,17 @@ public class DataManager {
             stats.append("- ").append(entry.getKey()).append(": ").append(entry.getValue()).append(" votes\n");
         }
 
+        stats.append("\nTally Contention:\n");
+        stats.append(getTallyContentionStats());
+
+        stats.append("\nVoter Registry:\n");
+        stats.append("- Capacity: ").append(MAX_VOTERS).append(" voters\n");
+        stats.append("- Memory: ").append(String.format("%.1f KB", registeredVoters.memoryBytes() / 1024.0)).append("\n");
+
+        stats.append("\nActivity Log:\n");
+        stats.append("- Write policy: ").append(AUDIT_POLICY).append(", queue capacity ").append(AUDIT_QUEUE_CAPACITY).append("\n");
+        stats.append("- Entries dropped: ").append(getDroppedActivityCount()).append("\n");
+
         return stats.toString();
     }
 }
@@ -0,0 +1,193 @@
+package utils;
+
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing set of 32-byte voter digests stored inline in a long array.
+ *
+ * Replayed vote logs hold one keyed pseudonym per ballot. Keeping the raw
+ * HMAC instead of its 70-character text form takes 32 bytes per slot and no
+ * object per voter. Each stored digest has a stable slot number, so callers
+ * can keep per-digest flags in a bitset alongside.
+ *
+ * Adds must come from one thread; lookups may run concurrently once adding is done.
+ */
+public class DigestSet {
+
+    public static final int DIGEST_SIZE = VoterPseudonymizer.DIGEST_SIZE;
+
+    private static final int WORDS = DIGEST_SIZE / 8;
+
+    private long[] table;
+    private long[] used;
+    private int mask;
+    private int size;
+
+    public DigestSet() {
+        this(16);
+    }
+
+    public DigestSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Add a digest
+     *
+     * @return false if it was already present
+     */
+    public boolean add(byte[] digest) {
+        return add(word(digest, 0), word(digest, 1), word(digest, 2), word(digest, 3));
+    }
+
+    /**
+     * Slot of a digest, or -1 if it is not present
+     */
+    public int indexOf(byte[] digest) {
+        return find(word(digest, 0), word(digest, 1), word(digest, 2), word(digest, 3));
+    }
+
+    public boolean contains(byte[] digest) {
+        return indexOf(digest) >= 0;
+    }
+
+    /**
+     * Add every digest of another set
+     */
+    public void addAll(DigestSet other) {
+        for (int slot = 0; slot <= other.mask; slot++) {
+            if (other.isUsed(slot)) {
+                int base = slot * WORDS;
+                add(other.table[base], other.table[base + 1], other.table[base + 2], other.table[base + 3]);
+            }
+        }
+    }
+
+    /**
+     * The digest in a slot, or null if the slot is empty
+     */
+    public byte[] get(int slot) {
+        if (slot < 0 || slot > mask || !isUsed(slot)) {
+            return null;
+        }
+        byte[] digest = new byte[DIGEST_SIZE];
+        for (int w = 0; w < WORDS; w++) {
+            long value = table[slot * WORDS + w];
+            for (int b = 0; b < 8; b++) {
+                digest[w * 8 + b] = (byte) (value >>> (56 - b * 8));
+            }
+        }
+        return digest;
+    }
+
+    /**
+     * Visit every digest; each is a fresh array
+     */
+    public void forEach(Consumer<byte[]> action) {
+        for (int slot = 0; slot <= mask; slot++) {
+            if (isUsed(slot)) {
+                action.accept(get(slot));
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Number of slots; slot numbers are below this
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Approximate heap used by the table
+     */
+    public long memoryBytes() {
+        return (table.length + used.length) * 8L;
+    }
+
+    private boolean add(long w0, long w1, long w2, long w3) {
+        if (find(w0, w1, w2, w3) >= 0) {
+            return false;
+        }
+        if ((size + 1) * 2 > capacity()) {
+            grow();
+        }
+        insert(w0, w1, w2, w3);
+        size++;
+        return true;
+    }
+
+    private int find(long w0, long w1, long w2, long w3) {
+        for (int slot = (int) mix(w0) & mask; isUsed(slot); slot = (slot + 1) & mask) {
+            int base = slot * WORDS;
+            if (table[base] == w0 && table[base + 1] == w1 && table[base + 2] == w2 && table[base + 3] == w3) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long w0, long w1, long w2, long w3) {
+        int slot = (int) mix(w0) & mask;
+        while (isUsed(slot)) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slot * WORDS;
+        table[base] = w0;
+        table[base + 1] = w1;
+        table[base + 2] = w2;
+        table[base + 3] = w3;
+        used[slot >>> 6] |= 1L << slot;
+    }
+
+    private void grow() {
+        long[] oldTable = table;
+        long[] oldUsed = used;
+        int oldCapacity = capacity();
+
+        allocate(oldCapacity * 2);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            if ((oldUsed[slot >>> 6] & (1L << slot)) != 0) {
+                int base = slot * WORDS;
+                insert(oldTable[base], oldTable[base + 1], oldTable[base + 2], oldTable[base + 3]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity * WORDS];
+        used = new long[(capacity + 63) >>> 6];
+        mask = capacity - 1;
+    }
+
+    private boolean isUsed(int slot) {
+        return (used[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private static long word(byte[] digest, int index) {
+        long value = 0;
+        for (int b = 0; b < 8; b++) {
+            value = (value << 8) | (digest[index * 8 + b] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * HMAC output is already uniform, but legacy or crafted input may not be
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
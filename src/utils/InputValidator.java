@@ -0,0 +1,248 @@
+package utils;
+
+/**
+ * Single-pass validation of login and admin input.
+ *
+ * Each check walks its input once without allocating (sanitize only
+ * allocates when it has to change its input) and gives the same verdict as the
+ * regular expressions and String.contains/replaceAll chains it replaces
+ * in VotingSecurityManager. Rejected voter IDs can be remembered in a
+ * RejectionCache so that an ID retried over and over is not checked again.
+ */
+public class InputValidator {
+
+    // Verdicts of checkAadhaar
+    public static final int VALID = 0;
+    public static final int MALFORMED = 1;
+    public static final int SEQUENTIAL = 2;
+    public static final int REPEATED = 3;
+
+    public static final int MAX_INPUT_LENGTH = 100;
+
+    // Characters isValidInput rejects and sanitize removes
+    private static final long[] REJECTED_CHARS = asciiMask("<>\\'\"");
+    private static final long[] UNSAFE_CHARS = asciiMask("<>\"'&;");
+
+    /**
+     * Bounded cache of rejected inputs and their verdicts.
+     *
+     * Direct-mapped: each input has one slot and a newer rejection simply
+     * replaces whatever was there, so the cache never grows and needs no
+     * locking. Entries are immutable, which makes racing reads and writes safe.
+     */
+    public static class RejectionCache {
+        private final Entry[] slots;
+        private final int mask;
+
+        private static class Entry {
+            final String input;
+            final int verdict;
+
+            Entry(String input, int verdict) {
+                this.input = input;
+                this.verdict = verdict;
+            }
+        }
+
+        public RejectionCache(int capacity) {
+            int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            this.slots = new Entry[size];
+            this.mask = size - 1;
+        }
+
+        /**
+         * Cached verdict for an input, or -1 if it is not cached
+         */
+        public int get(String input) {
+            Entry entry = slots[spread(input.hashCode()) & mask];
+            return entry != null && entry.input.equals(input) ? entry.verdict : -1;
+        }
+
+        public void put(String input, int verdict) {
+            slots[spread(input.hashCode()) & mask] = new Entry(input, verdict);
+        }
+
+        public int capacity() {
+            return slots.length;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Check an Aadhaar ID: exactly 8 ASCII digits, not an ascending run such
+     * as 12345678, and not one digit repeated
+     */
+    public static int checkAadhaar(String id) {
+        if (id == null || id.length() != 8) {
+            return MALFORMED;
+        }
+
+        char first = id.charAt(0);
+        if (first < '0' || first > '9') {
+            return MALFORMED;
+        }
+        boolean sequential = true;
+        boolean repeated = true;
+        for (int i = 1; i < 8; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return MALFORMED;
+            }
+            sequential &= c == id.charAt(i - 1) + 1;
+            repeated &= c == first;
+        }
+
+        if (sequential) {
+            return SEQUENTIAL;
+        }
+        return repeated ? REPEATED : VALID;
+    }
+
+    /**
+     * Basic input check: not blank, at most 100 characters, and free of < > \ ' "
+     */
+    public static boolean isValidInput(String input) {
+        if (input == null || input.length() > MAX_INPUT_LENGTH) {
+            return false;
+        }
+        boolean content = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c < 128 && isMarked(REJECTED_CHARS, c)) {
+                return false;
+            }
+            content |= c > ' ';
+        }
+        return content;
+    }
+
+    /**
+     * Remove < > " ' &amp; ; then trim and cut to 100 characters. Input that
+     * needs none of this is returned as is.
+     */
+    public static String sanitize(String input) {
+        if (input == null) {
+            return "";
+        }
+
+        int length = input.length();
+        boolean clean = length <= MAX_INPUT_LENGTH
+                        && (length == 0 || (input.charAt(0) > ' ' && input.charAt(length - 1) > ' '));
+        for (int i = 0; clean && i < length; i++) {
+            clean = !isUnsafe(input.charAt(i));
+        }
+        if (clean) {
+            return input;
+        }
+
+        char[] kept = new char[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (!isUnsafe(c)) {
+                kept[count++] = c;
+            }
+        }
+
+        int start = 0;
+        int end = count;
+        while (start < end && kept[start] <= ' ') {
+            start++;
+        }
+        while (end > start && kept[end - 1] <= ' ') {
+            end--;
+        }
+        return new String(kept, start, Math.min(end - start, MAX_INPUT_LENGTH));
+    }
+
+    /**
+     * 1 to 10 letters, digits or underscores
+     */
+    public static boolean isValidCandidateID(String candidateID) {
+        if (candidateID == null || candidateID.isEmpty() || candidateID.length() > 10) {
+            return false;
+        }
+        for (int i = 0; i < candidateID.length(); i++) {
+            char c = candidateID.charAt(i);
+            if (!isAsciiLetter(c) && !isAsciiDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * After trimming, 2 to 50 letters and whitespace
+     */
+    public static boolean isValidName(String name) {
+        return isTrimmedText(name, 2, 50, false);
+    }
+
+    /**
+     * After trimming, 2 to 30 letters, digits and whitespace
+     */
+    public static boolean isValidPartyName(String party) {
+        return isTrimmedText(party, 2, 30, true);
+    }
+
+    private static boolean isTrimmedText(String text, int minLength, int maxLength, boolean digits) {
+        if (text == null) {
+            return false;
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (end - start < minLength || end - start > maxLength) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isAsciiLetter(c) && !isRegexSpace(c) && !(digits && isAsciiDigit(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUnsafe(char c) {
+        return c < 128 && isMarked(UNSAFE_CHARS, c);
+    }
+
+    /**
+     * Bit set over ASCII with a bit for each character of the string
+     */
+    private static long[] asciiMask(String chars) {
+        long[] mask = new long[2];
+        for (int i = 0; i < chars.length(); i++) {
+            mask[chars.charAt(i) >>> 6] |= 1L << chars.charAt(i);
+        }
+        return mask;
+    }
+
+    private static boolean isMarked(long[] mask, char c) {
+        return (mask[c >>> 6] & (1L << c)) != 0;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Characters matched by \s in a regular expression
+     */
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,190 @@
+package utils;
+
+import java.util.zip.CRC32;
+
+/**
+ * Allocation-free parsing of data file lines held as bytes.
+ *
+ * Lines are given as a range of a byte array, as delivered by
+ * ParallelFileReader. Surrounding whitespace is ignored the way String.trim()
+ * ignores it, and fields are located by index instead of being split into
+ * substrings, so scanning a file creates no objects per line.
+ */
+public class LineScanner {
+
+    /**
+     * Positions of the fields of a vote log line, filled in by locateVoteFields
+     */
+    public static class VoteFields {
+        public int timestampStart;
+        public int voterStart;
+        public int voterEnd;
+        public int candidateStart;
+        public int candidateEnd;
+        final CRC32 crc = new CRC32();
+    }
+
+    /**
+     * First position at or after from that is not whitespace
+     */
+    public static int trimStart(byte[] data, int from, int to) {
+        while (from < to && (data[from] & 0xFF) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Position just past the last byte before to that is not whitespace
+     */
+    public static int trimEnd(byte[] data, int from, int to) {
+        while (to > from && (data[to - 1] & 0xFF) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Voter ID on a line of voters.txt, or -1 unless the trimmed line is exactly 8 digits
+     */
+    public static int parseVoterId(byte[] data, int from, int to) {
+        int start = trimStart(data, from, to);
+        int end = trimEnd(data, start, to);
+        if (end - start != 8) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    /**
+     * Locate TIMESTAMP:VOTER_HASH:CANDIDATE_ID on a vote log line. The
+     * timestamp contains colons, so fields are found from the right; a line
+     * is accepted exactly when VoteRecord.parse would accept it.
+     *
+     * @return false for blanks, comments, malformed lines and checksum mismatches
+     */
+    public static boolean locateVoteFields(byte[] data, int from, int to, VoteFields fields) {
+        int start = trimStart(data, from, to);
+        int end = trimEnd(data, start, to);
+        if (start == end || data[start] == '#') {
+            return false;
+        }
+
+        int checksumStart = end - VoteRecord.CHECKSUM_LENGTH;
+        if (checksumStart > start && data[checksumStart] == VoteRecord.CHECKSUM_SEPARATOR) {
+            long stored = parseHex(data, checksumStart + 1, end);
+            fields.crc.reset();
+            fields.crc.update(data, start, checksumStart - start);
+            if (stored != fields.crc.getValue()) {
+                return false;
+            }
+            end = checksumStart;
+        }
+
+        int candidateSep = lastIndexOf(data, start, end, (byte) ':');
+        if (candidateSep <= start || candidateSep == end - 1) {
+            return false;
+        }
+
+        int voterSep = lastIndexOf(data, start, candidateSep, (byte) ':');
+        if (voterSep <= start || voterSep == candidateSep - 1) {
+            return false;
+        }
+
+        fields.timestampStart = start;
+        fields.voterStart = voterSep + 1;
+        fields.voterEnd = candidateSep;
+        fields.candidateStart = candidateSep + 1;
+        fields.candidateEnd = end;
+        return true;
+    }
+
+    /**
+     * Value of a range of hex digits, or -1 if it holds anything else
+     */
+    private static long parseHex(byte[] data, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(data[i], 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Position of the last occurrence of a byte in a range, or -1
+     */
+    public static int lastIndexOf(byte[] data, int from, int to, byte value) {
+        for (int i = to - 1; i >= from; i--) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if a range holds exactly the given bytes
+     */
+    public static boolean rangeEquals(byte[] data, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (data[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Index of the entry equal to a range, or -1; meant for short tables such as candidate IDs
+     */
+    public static int indexOf(byte[][] table, byte[] data, int from, int to) {
+        for (int i = 0; i < table.length; i++) {
+            if (rangeEquals(data, from, to, table[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Locate the leading fields of a non-empty colon-separated line without
+     * splitting it. ends[i] receives the end of field i; field i starts just
+     * after ends[i - 1], and field 0 at 0.
+     *
+     * @return how many of the first ends.length fields String.split(":") would
+     *         keep, which drops trailing empty fields
+     */
+    public static int colonFields(String line, int[] ends) {
+        int lastContent = line.length() - 1;
+        while (lastContent >= 0 && line.charAt(lastContent) == ':') {
+            lastContent--;
+        }
+
+        int fields = 0;
+        int start = 0;
+        while (fields < ends.length && start <= lastContent) {
+            int colon = line.indexOf(':', start);
+            ends[fields++] = colon < 0 ? line.length() : colon;
+            if (colon < 0) {
+                break;
+            }
+            start = colon + 1;
+        }
+        return fields;
+    }
+}
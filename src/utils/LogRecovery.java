@@ -0,0 +1,142 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Crash recovery for the vote logs, run before the journal reopens them.
+ *
+ * The vote journal acknowledges a ballot only after the batch holding it
+ * has been forced to disk, so anything damaged at the end of a log after a
+ * crash belongs to a batch that was never acknowledged: an unterminated
+ * text line, a partial binary record, a zero-filled block, or a record
+ * whose checksum fails. Such a tail is cut off so the next append starts
+ * on a clean record boundary instead of running on from the torn one.
+ * Damage in the middle of a log is left in place: replay skips text lines
+ * that fail their checksum, and binary records that fail theirs are stepped
+ * over and counted (DataManager.getDamagedVoteRecords()). Ballots after the
+ * damage are replayed as usual.
+ */
+public class LogRecovery {
+
+    // How far back from the end to look for a damaged tail; far more than one group-commit batch
+    private static final int TAIL_WINDOW = 4 << 20;
+
+    /**
+     * What recovery removed from the end of a log
+     */
+    public static class Result {
+        public final long truncatedBytes;
+        public final int droppedRecords; // complete but damaged records among the truncated bytes
+
+        Result(long truncatedBytes, int droppedRecords) {
+            this.truncatedBytes = truncatedBytes;
+            this.droppedRecords = droppedRecords;
+        }
+
+        public boolean isClean() {
+            return truncatedBytes == 0;
+        }
+    }
+
+    /**
+     * Cut an unterminated last line and any damaged records before it from a text vote log
+     */
+    public static Result recoverTextLog(File log) throws IOException {
+        if (!log.exists()) {
+            return new Result(0, 0);
+        }
+
+        try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            int window = (int) Math.min(size, TAIL_WINDOW);
+            long base = size - window;
+            byte[] tail = read(channel, base, window);
+
+            int keep = LineScanner.lastIndexOf(tail, 0, window, (byte) '\n') + 1;
+            if (keep == 0 && base > 0) {
+                return new Result(0, 0); // one line longer than the window; not a torn record
+            }
+
+            int dropped = 0;
+            LineScanner.VoteFields fields = new LineScanner.VoteFields();
+            while (keep > 0) {
+                int lineStart = LineScanner.lastIndexOf(tail, 0, keep - 1, (byte) '\n') + 1;
+                if ((lineStart == 0 && base > 0) || !isDamagedLine(tail, lineStart, keep - 1, fields)) {
+                    break;
+                }
+                keep = lineStart;
+                dropped++;
+            }
+
+            return truncate(channel, base + keep, size, dropped);
+        }
+    }
+
+    /**
+     * A line with NUL bytes (a block never written) or a checksummed record that fails its checksum
+     */
+    private static boolean isDamagedLine(byte[] data, int from, int to, LineScanner.VoteFields fields) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == 0) {
+                return true;
+            }
+        }
+        int end = LineScanner.trimEnd(data, from, to);
+        int checksumStart = end - VoteRecord.CHECKSUM_LENGTH;
+        return checksumStart > from && data[checksumStart] == VoteRecord.CHECKSUM_SEPARATOR
+               && !LineScanner.locateVoteFields(data, from, to, fields);
+    }
+
+    /**
+     * Cut a partial last record and any records failing their CRC before it from a binary vote log
+     */
+    public static Result recoverBinaryLog(File log) throws IOException {
+        if (!log.exists()) {
+            return new Result(0, 0);
+        }
+
+        long size = log.length();
+        if (size < BinaryVoteLog.HEADER_SIZE) {
+            // Crashed while the header was being created; the log held no records
+            BinaryVoteLog.writeHeader(log);
+            return new Result(size, 0);
+        }
+
+        try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = size - (size - BinaryVoteLog.HEADER_SIZE) % BinaryVoteLog.RECORD_SIZE;
+            long records = (end - BinaryVoteLog.HEADER_SIZE) / BinaryVoteLog.RECORD_SIZE;
+            int window = (int) Math.min(records, TAIL_WINDOW / BinaryVoteLog.RECORD_SIZE) * BinaryVoteLog.RECORD_SIZE;
+            byte[] tail = read(channel, end - window, window);
+
+            int keep = window;
+            int dropped = 0;
+            while (keep > 0 && !BinaryVoteLog.isIntactRecord(tail, keep - BinaryVoteLog.RECORD_SIZE)) {
+                keep -= BinaryVoteLog.RECORD_SIZE;
+                dropped++;
+            }
+
+            return truncate(channel, end - window + keep, size, dropped);
+        }
+    }
+
+    private static Result truncate(FileChannel channel, long validEnd, long size, int dropped) throws IOException {
+        if (validEnd < size) {
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        return new Result(size - validEnd, dropped);
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Vote log shrank during recovery");
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,71 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Reads the last entries of a text log by scanning backwards from the end,
+ * so startup cost depends on the entries wanted, not on the log size.
+ */
+public class LogTail {
+
+    private static final int BLOCK_SIZE = 8192;
+
+    /**
+     * Last maxEntries lines that are neither blank nor # comments, oldest first.
+     * Lines are trimmed; a missing file yields an empty list.
+     */
+    public static List<String> readLastEntries(File file, int maxEntries) throws IOException {
+        List<String> newestFirst = new ArrayList<>();
+        if (maxEntries <= 0 || !file.exists()) {
+            return newestFirst;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = channel.size();
+            byte[] carry = new byte[0]; // start of a line whose beginning has not been read yet
+
+            while (position > 0 && newestFirst.size() < maxEntries) {
+                int length = (int) Math.min(BLOCK_SIZE, position);
+                position -= length;
+
+                byte[] buffer = new byte[length + carry.length];
+                ByteBuffer block = ByteBuffer.wrap(buffer, 0, length);
+                while (block.hasRemaining()) {
+                    if (channel.read(block, position + block.position()) < 0) {
+                        throw new EOFException("Log shrank while reading: " + file);
+                    }
+                }
+                System.arraycopy(carry, 0, buffer, length, carry.length);
+
+                // Every newline closes the line after it; the text before the first one is carried over
+                int end = buffer.length;
+                for (int i = buffer.length - 1; i >= 0 && newestFirst.size() < maxEntries; i--) {
+                    if (buffer[i] == '\n') {
+                        addEntry(newestFirst, buffer, i + 1, end);
+                        end = i;
+                    }
+                }
+                carry = Arrays.copyOf(buffer, end);
+            }
+
+            if (position == 0 && newestFirst.size() < maxEntries) {
+                addEntry(newestFirst, carry, 0, carry.length);
+            }
+        }
+
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    private static void addEntry(List<String> entries, byte[] buffer, int from, int to) {
+        String line = new String(buffer, from, to - from, StandardCharsets.UTF_8).trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+            entries.add(line);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package utils;
+
+import java.security.SecureRandom;
+import java.util.*;
+
+/**
+ * Failed-login throttling per account, safe for concurrent terminals.
+ *
+ * Each account keeps the times of its last maxFailures failures on the
+ * System.nanoTime clock; when that many fall inside the sliding window the
+ * account is locked for the lockout period. Accounts live in a fixed-size
+ * set-associative table: a username hashes to a bucket of a few slots held
+ * in flat arrays, guarded by one of a set of striped locks, so a check is
+ * a short scan of adjacent slots and memory stays bounded however many
+ * distinct usernames are tried. An account with no lock in force and no
+ * failure inside the window is free to be replaced. When a bucket is full
+ * the least recently failed unlocked account makes room, so a flood of new
+ * usernames does not unlock an account that is currently locked.
+ *
+ * Usernames are hashed with a random seed drawn per table rather than with
+ * String.hashCode, so nobody can work out offline a set of usernames that
+ * share an account's bucket and push its failures out.
+ */
+public class LoginThrottle {
+
+    /**
+     * Receives each tracked account with its failures inside the window and the lock time left
+     */
+    public interface Visitor {
+        void visit(String key, int recentFailures, long lockRemainingNanos);
+    }
+
+    private static final int WAYS = 4;
+    private static final int STRIPES = 64;
+
+    private final int maxFailures;
+    private final long windowNanos;
+    private final long lockoutNanos;
+    private final int bucketMask;
+    private final int seed = new SecureRandom().nextInt();
+    private final Object[] locks = new Object[STRIPES];
+
+    // Slot s of bucket b is index b * WAYS + s; all guarded by the bucket's stripe lock
+    private final String[] keys;
+    private final int[] hashes;
+    private final long[] failureTimes;   // maxFailures per slot, a ring
+    private final int[] failureCounts;   // failures recorded in the ring, at most maxFailures
+    private final int[] nextFailure;
+    private final long[] lastFailure;
+    private final boolean[] locked;
+    private final long[] lockedUntil;
+    private final long[] evictions = new long[STRIPES];
+
+    /**
+     * Lock an account for lockoutNanos once maxFailures failures fall within windowNanos,
+     * tracking about capacity accounts at most
+     */
+    public LoginThrottle(int maxFailures, long windowNanos, long lockoutNanos, int capacity) {
+        if (maxFailures < 1 || windowNanos < 1 || lockoutNanos < 1) {
+            throw new IllegalArgumentException("maxFailures, window and lockout must be positive");
+        }
+        int buckets = Integer.highestOneBit(Math.max(STRIPES, capacity / WAYS - 1)) << 1;
+        int slots = buckets * WAYS;
+
+        this.maxFailures = maxFailures;
+        this.windowNanos = windowNanos;
+        this.lockoutNanos = lockoutNanos;
+        this.bucketMask = buckets - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.keys = new String[slots];
+        this.hashes = new int[slots];
+        this.failureTimes = new long[slots * maxFailures];
+        this.failureCounts = new int[slots];
+        this.nextFailure = new int[slots];
+        this.lastFailure = new long[slots];
+        this.locked = new boolean[slots];
+        this.lockedUntil = new long[slots];
+    }
+
+    /**
+     * Whether the account is locked now
+     */
+    public boolean isLocked(String key) {
+        long now = System.nanoTime();
+        int hash = hash(key);
+        int bucket = hash & bucketMask;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int slot = find(bucket, hash, key);
+            return slot >= 0 && isLocked(slot, now);
+        }
+    }
+
+    /**
+     * Record a failed login
+     *
+     * @return true if this failure locked the account
+     */
+    public boolean recordFailure(String key) {
+        long now = System.nanoTime();
+        int hash = hash(key);
+        int bucket = hash & bucketMask;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int slot = find(bucket, hash, key);
+            if (slot < 0) {
+                slot = claim(bucket, hash, key, now);
+            } else if (isLocked(slot, now)) {
+                return false;
+            }
+
+            failureTimes[slot * maxFailures + nextFailure[slot]] = now;
+            nextFailure[slot] = (nextFailure[slot] + 1) % maxFailures;
+            failureCounts[slot] = Math.min(failureCounts[slot] + 1, maxFailures);
+            lastFailure[slot] = now;
+            if (recentFailures(slot, now) < maxFailures) {
+                return false;
+            }
+            locked[slot] = true;
+            lockedUntil[slot] = now + lockoutNanos;
+            failureCounts[slot] = 0;
+            return true;
+        }
+    }
+
+    /**
+     * Forget an account's failures, e.g. after a successful login
+     */
+    public void reset(String key) {
+        int hash = hash(key);
+        int bucket = hash & bucketMask;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int slot = find(bucket, hash, key);
+            if (slot >= 0) {
+                keys[slot] = null;
+            }
+        }
+    }
+
+    /**
+     * Lock an account for a given time regardless of its failures
+     */
+    public void lock(String key, long durationNanos) {
+        long now = System.nanoTime();
+        int hash = hash(key);
+        int bucket = hash & bucketMask;
+        synchronized (locks[bucket & (STRIPES - 1)]) {
+            int slot = find(bucket, hash, key);
+            if (slot < 0) {
+                slot = claim(bucket, hash, key, now);
+            }
+            locked[slot] = true;
+            lockedUntil[slot] = now + durationNanos;
+        }
+    }
+
+    /**
+     * Visit every account with failures inside the window or a lock in force.
+     * The visitor runs under a stripe lock and must not call back into the throttle.
+     */
+    public void forEach(Visitor visitor) {
+        for (int bucket = 0; bucket <= bucketMask; bucket++) {
+            synchronized (locks[bucket & (STRIPES - 1)]) {
+                long now = System.nanoTime();
+                for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+                    if (keys[slot] != null && !isExpired(slot, now)) {
+                        visitor.visit(keys[slot], recentFailures(slot, now),
+                                      isLocked(slot, now) ? lockedUntil[slot] - now : 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget every account
+     */
+    public void clear() {
+        for (int bucket = 0; bucket <= bucketMask; bucket++) {
+            synchronized (locks[bucket & (STRIPES - 1)]) {
+                Arrays.fill(keys, bucket * WAYS, (bucket + 1) * WAYS, null);
+            }
+        }
+    }
+
+    /**
+     * Accounts currently held, including expired ones whose slots have not been reused yet
+     */
+    public int size() {
+        int size = 0;
+        for (int bucket = 0; bucket <= bucketMask; bucket++) {
+            synchronized (locks[bucket & (STRIPES - 1)]) {
+                for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+                    if (keys[slot] != null) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Most accounts the table can hold
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Accounts with recent failures or a lock that were pushed out because their bucket was full
+     */
+    public long getEvictions() {
+        long total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (locks[i]) {
+                total += evictions[i];
+            }
+        }
+        return total;
+    }
+
+    private int find(int bucket, int hash, String key) {
+        for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+            if (hashes[slot] == hash && keys[slot] != null && keys[slot].equals(key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Take a slot in the bucket for a new account: a free or expired one, else the
+     * least recently failed unlocked one, else the lock that ends soonest
+     */
+    private int claim(int bucket, int hash, String key, long now) {
+        int victim = -1;
+        boolean victimLocked = true;
+        for (int slot = bucket * WAYS; slot < (bucket + 1) * WAYS; slot++) {
+            if (keys[slot] == null || isExpired(slot, now)) {
+                victim = slot;
+                victimLocked = false;
+                break;
+            }
+            boolean slotLocked = isLocked(slot, now);
+            if (victim < 0 || (victimLocked && !slotLocked)
+                    || (victimLocked == slotLocked && (slotLocked
+                        ? lockedUntil[slot] - lockedUntil[victim] < 0
+                        : lastFailure[slot] - lastFailure[victim] < 0))) {
+                victim = slot;
+                victimLocked = slotLocked;
+            }
+        }
+        if (keys[victim] != null && !isExpired(victim, now)) {
+            evictions[bucket & (STRIPES - 1)]++;
+        }
+
+        keys[victim] = key;
+        hashes[victim] = hash;
+        failureCounts[victim] = 0;
+        nextFailure[victim] = 0;
+        lastFailure[victim] = now;
+        locked[victim] = false;
+        return victim;
+    }
+
+    private boolean isLocked(int slot, long now) {
+        return locked[slot] && now - lockedUntil[slot] < 0;
+    }
+
+    private int recentFailures(int slot, long now) {
+        int recent = 0;
+        int base = slot * maxFailures;
+        for (int i = 1; i <= failureCounts[slot]; i++) {
+            long at = failureTimes[base + (nextFailure[slot] - i + maxFailures) % maxFailures];
+            if (now - at < windowNanos) {
+                recent++;
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * Nothing left to remember: no lock in force and no failure inside the window
+     */
+    private boolean isExpired(int slot, long now) {
+        return !isLocked(slot, now) && now - lastFailure[slot] >= windowNanos;
+    }
+
+    /**
+     * FNV-1a over the characters, starting from the seed
+     */
+    private int hash(String key) {
+        int h = seed;
+        if (key != null) {
+            for (int i = 0; i < key.length(); i++) {
+                h = (h ^ key.charAt(i)) * 0x01000193;
+            }
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,176 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Concurrent bitset over a fixed index range, allocated in 8 KB pages.
+ *
+ * Pages are created on the first set bit in their range, so sparse sets
+ * stay small while a full set costs one bit per index. Bits are flipped
+ * with CAS, which makes set() an atomic test-and-set.
+ */
+public class PagedBitSet {
+
+    // 2^16 bits per page = 1024 longs = 8 KB
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+    private static final int PAGE_WORDS = 1 << (PAGE_SHIFT - 6);
+
+    private final int bits;
+    private final int pageCount;
+    private final AtomicReferenceArray<AtomicLongArray> pages;
+
+    /**
+     * Create an empty set for indexes 0 to bits - 1
+     */
+    public PagedBitSet(int bits) {
+        this.bits = bits;
+        this.pageCount = (int) (((long) bits + PAGE_MASK) >>> PAGE_SHIFT);
+        this.pages = new AtomicReferenceArray<>(pageCount);
+    }
+
+    public boolean get(int index) {
+        AtomicLongArray page = pages.get(index >>> PAGE_SHIFT);
+        return page != null && (page.get((index & PAGE_MASK) >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Set a bit
+     *
+     * @return false if it was already set
+     */
+    public boolean set(int index) {
+        checkIndex(index);
+        AtomicLongArray page = pageFor(index);
+        int word = (index & PAGE_MASK) >>> 6;
+        long bit = 1L << index;
+
+        while (true) {
+            long current = page.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (page.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Clear a bit
+     *
+     * @return false if it was not set
+     */
+    public boolean clear(int index) {
+        checkIndex(index);
+        AtomicLongArray page = pages.get(index >>> PAGE_SHIFT);
+        if (page == null) {
+            return false;
+        }
+        int word = (index & PAGE_MASK) >>> 6;
+        long bit = 1L << index;
+
+        while (true) {
+            long current = page.get(word);
+            if ((current & bit) == 0) {
+                return false;
+            }
+            if (page.compareAndSet(word, current, current & ~bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Number of set bits, counted with popcount over the allocated pages
+     */
+    public long cardinality() {
+        long count = 0;
+        for (int p = 0; p < pageCount; p++) {
+            AtomicLongArray page = pages.get(p);
+            if (page != null) {
+                for (int w = 0; w < PAGE_WORDS; w++) {
+                    count += Long.bitCount(page.get(w));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Release every page. Callers must ensure no sets race with the clear.
+     */
+    public void clearAll() {
+        for (int p = 0; p < pageCount; p++) {
+            pages.set(p, null);
+        }
+    }
+
+    /**
+     * Independent copy of the set. Callers must ensure no sets or clears race with the copy.
+     */
+    public PagedBitSet copy() {
+        PagedBitSet copy = new PagedBitSet(bits);
+        long[] words = new long[PAGE_WORDS];
+        for (int p = 0; p < pageCount; p++) {
+            AtomicLongArray page = pages.get(p);
+            if (page != null) {
+                for (int w = 0; w < PAGE_WORDS; w++) {
+                    words[w] = page.get(w);
+                }
+                copy.pages.set(p, new AtomicLongArray(words));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Visit set indexes in ascending order
+     */
+    public void forEach(IntConsumer action) {
+        for (int p = 0; p < pageCount; p++) {
+            AtomicLongArray page = pages.get(p);
+            if (page == null) {
+                continue;
+            }
+            for (int w = 0; w < PAGE_WORDS; w++) {
+                long word = page.get(w);
+                while (word != 0) {
+                    action.accept((p << PAGE_SHIFT) + (w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Approximate heap used by the pages and the page directory
+     */
+    public long memoryBytes() {
+        long bytes = 16 + 4L * pageCount;
+        for (int p = 0; p < pageCount; p++) {
+            if (pages.get(p) != null) {
+                bytes += 16 + 8L * PAGE_WORDS;
+            }
+        }
+        return bytes;
+    }
+
+    private AtomicLongArray pageFor(int index) {
+        int p = index >>> PAGE_SHIFT;
+        AtomicLongArray page = pages.get(p);
+        if (page == null) {
+            pages.compareAndSet(p, null, new AtomicLongArray(PAGE_WORDS));
+            page = pages.get(p);
+        }
+        return page;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= bits) {
+            throw new IndexOutOfBoundsException("Bit " + index + " of " + bits);
+        }
+    }
+}
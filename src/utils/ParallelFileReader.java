@@ -0,0 +1,257 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Splits a large file into byte ranges and parses them on the fork-join pool.
+ *
+ * Line files are cut just after a newline so that no line spans two chunks.
+ * Each chunk is parsed into its own partial result and the partials are
+ * merged in file order, so a merge can stop at the first chunk that asks it
+ * to (for example one that hit a corrupt record).
+ */
+public class ParallelFileReader {
+
+    public static final long DEFAULT_CHUNK_BYTES = Long.getLong("voting.startup.chunkBytes", 8L << 20);
+
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final int SCAN_BUFFER_SIZE = 1 << 12;
+
+    /**
+     * Parses one byte range into a partial result
+     */
+    public interface ChunkParser<A> {
+        A parse(long from, long to) throws IOException;
+    }
+
+    /**
+     * Receives one line as a range of a reused buffer, without its line terminator
+     */
+    public interface LineVisitor {
+        void visit(byte[] data, int start, int end);
+    }
+
+    /**
+     * Chunk boundaries for a line file from a byte offset, each boundary just
+     * after a newline. The last boundary is the end of the file, or with
+     * completeLinesOnly the end of the last complete line.
+     */
+    public static long[] lineChunks(File file, long fromOffset, long chunkBytes, boolean completeLinesOnly)
+            throws IOException {
+        chunkBytes = Math.max(1, Math.min(chunkBytes, MAX_CHUNK_BYTES));
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = Math.min(Math.max(0, fromOffset), size);
+            long end = completeLinesOnly ? lastLineEnd(channel, start, size) : size;
+
+            LongList bounds = new LongList();
+            bounds.add(start);
+            long position = start;
+            while (end - position > chunkBytes) {
+                long next = nextLineStart(channel, position + chunkBytes, end);
+                if (next >= end) {
+                    break;
+                }
+                bounds.add(next);
+                position = next;
+            }
+            if (end > start) {
+                bounds.add(end);
+            }
+            return bounds.toArray();
+        }
+    }
+
+    /**
+     * Chunk boundaries for fixed-size records between two offsets, each on a record boundary
+     */
+    public static long[] recordChunks(long fromOffset, long toOffset, int recordSize, long chunkBytes) {
+        long records = Math.max(0, (toOffset - fromOffset) / recordSize);
+        long recordsPerChunk = Math.max(1, Math.min(chunkBytes, MAX_CHUNK_BYTES) / recordSize);
+
+        LongList bounds = new LongList();
+        bounds.add(fromOffset);
+        for (long done = 0; done < records; ) {
+            done = Math.min(records, done + recordsPerChunk);
+            bounds.add(fromOffset + done * recordSize);
+        }
+        return bounds.toArray();
+    }
+
+    /**
+     * Parse every chunk on the common fork-join pool and merge the partials in file order
+     *
+     * @return the merged result, or null if there were no chunks
+     */
+    public static <A> A parse(long[] bounds, ChunkParser<A> parser, BinaryOperator<A> merge) throws IOException {
+        if (bounds.length < 2) {
+            return null;
+        }
+        try {
+            return ForkJoinPool.commonPool().invoke(new ChunkTask<>(bounds, 0, bounds.length - 1, parser, merge));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Visit the lines of one byte range. A trailing line without a newline is visited too.
+     */
+    public static void forEachLine(File file, long from, long to, LineVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            byte[] data = new byte[READ_BUFFER_SIZE];
+            int filled = 0;
+            long position = from;
+
+            while (position < to) {
+                if (filled == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2); // a line longer than the buffer
+                }
+                ByteBuffer target = ByteBuffer.wrap(data, filled, (int) Math.min(data.length - filled, to - position));
+                int read = channel.read(target, position);
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+
+                int end = filled + read;
+                int lineStart = 0;
+                for (int newline = indexOfNewline(data, filled, end); newline >= 0;
+                     newline = indexOfNewline(data, newline + 1, end)) {
+                    visitor.visit(data, lineStart, newline);
+                    lineStart = newline + 1;
+                }
+
+                // Keep the unfinished line at the front of the buffer
+                filled = end - lineStart;
+                System.arraycopy(data, lineStart, data, 0, filled);
+            }
+
+            if (filled > 0) {
+                visitor.visit(data, 0, filled);
+            }
+        }
+    }
+
+    /**
+     * Position of the first newline in a range, or -1
+     */
+    private static int indexOfNewline(byte[] data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Offset just past the first newline at or after a position, or the end if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * Offset just past the last newline after start, or start if there is none
+     */
+    private static long lastLineEnd(FileChannel channel, long start, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long blockEnd = size;
+        while (blockEnd > start) {
+            long blockStart = Math.max(start, blockEnd - buffer.capacity());
+            buffer.clear();
+            buffer.limit((int) (blockEnd - blockStart));
+            while (buffer.hasRemaining() && channel.read(buffer, blockStart + buffer.position()) > 0) {
+                // keep reading until the block is full
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return blockStart + i + 1;
+                }
+            }
+            blockEnd = blockStart;
+        }
+        return start;
+    }
+
+    /**
+     * Parses a run of chunks, splitting it in half until one chunk is left
+     */
+    @SuppressWarnings("serial") // never serialized; ForkJoinTask is Serializable only by inheritance
+    private static class ChunkTask<A> extends RecursiveTask<A> {
+        private final long[] bounds;
+        private final int first;
+        private final int last;
+        private final ChunkParser<A> parser;
+        private final BinaryOperator<A> merge;
+
+        ChunkTask(long[] bounds, int first, int last, ChunkParser<A> parser, BinaryOperator<A> merge) {
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+            this.parser = parser;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (last - first == 1) {
+                try {
+                    return parser.parse(bounds[first], bounds[last]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int middle = (first + last) >>> 1;
+            ChunkTask<A> right = new ChunkTask<>(bounds, middle, last, parser, merge);
+            right.fork();
+            A left = new ChunkTask<>(bounds, first, middle, parser, merge).compute();
+            return merge.apply(left, right.join());
+        }
+    }
+
+    /**
+     * Growable list of offsets
+     */
+    private static class LongList {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
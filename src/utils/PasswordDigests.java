@@ -0,0 +1,152 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Password hashing and verification for the admin login.
+ *
+ * A stored hash is either the 64 hex digits of a single SHA-256 of the
+ * password, as always used here, or "pbkdf2:ITERATIONS:SALT:HASH" for the
+ * slow PBKDF2-HMAC-SHA256 mode, with salt and hash in hex. Each thread
+ * keeps its own SHA-256 and PBKDF2 instances and hex buffer, so a login
+ * does no provider lookup, and digests are compared as bytes in constant
+ * time.
+ */
+public class PasswordDigests {
+
+    public static final String PBKDF2_PREFIX = "pbkdf2:";
+
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_SIZE = 16;
+    private static final int PBKDF2_BITS = 256;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<SecretKeyFactory> PBKDF2 = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(PBKDF2_ALGORITHM + " is not available", e);
+        }
+    });
+
+    private static final ThreadLocal<char[]> HEX_BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
+    private static final SecureRandom SALTS = new SecureRandom();
+
+    /**
+     * SHA-256 of the password's UTF-8 bytes
+     */
+    public static byte[] sha256(String password) {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        return md.digest(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * PBKDF2-HMAC-SHA256 of the password
+     */
+    public static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, PBKDF2_BITS);
+        try {
+            return PBKDF2.get().generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 derivation failed", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Hash a password for storage: single SHA-256 when iterations is 0, PBKDF2 with a fresh salt otherwise
+     */
+    public static String hash(String password, int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("iterations must not be negative");
+        }
+        if (iterations == 0) {
+            return toHex(sha256(password));
+        }
+        byte[] salt = new byte[SALT_SIZE];
+        SALTS.nextBytes(salt);
+        return PBKDF2_PREFIX + iterations + ":" + toHex(salt) + ":" + toHex(pbkdf2(password, salt, iterations));
+    }
+
+    /**
+     * Check a password against a stored hash; false for a hash that cannot be parsed
+     */
+    public static boolean verify(String password, String storedHash) {
+        if (password == null || storedHash == null) {
+            return false;
+        }
+        if (!storedHash.startsWith(PBKDF2_PREFIX)) {
+            byte[] expected = fromHex(storedHash);
+            return expected != null && MessageDigest.isEqual(sha256(password), expected);
+        }
+
+        int saltStart = storedHash.indexOf(':', PBKDF2_PREFIX.length()) + 1;
+        int hashStart = storedHash.indexOf(':', saltStart) + 1;
+        if (saltStart == 0 || hashStart == 0) {
+            return false;
+        }
+        int iterations;
+        try {
+            iterations = Integer.parseInt(storedHash.substring(PBKDF2_PREFIX.length(), saltStart - 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        byte[] salt = fromHex(storedHash.substring(saltStart, hashStart - 1));
+        byte[] expected = fromHex(storedHash.substring(hashStart));
+        if (iterations < 1 || salt == null || expected == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(pbkdf2(password, salt, iterations), expected);
+    }
+
+    /**
+     * Lowercase hex of the bytes, built in the calling thread's buffer
+     */
+    public static String toHex(byte[] bytes) {
+        char[] text = HEX_BUFFER.get();
+        if (text.length < bytes.length * 2) {
+            text = new char[bytes.length * 2];
+            HEX_BUFFER.set(text);
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            text[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            text[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(text, 0, bytes.length * 2);
+    }
+
+    /**
+     * Bytes of a hex string in either case, or null if it is not an even number of hex digits
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex.isEmpty() || hex.length() % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+}
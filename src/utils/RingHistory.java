@@ -0,0 +1,79 @@
+package utils;
+
+import java.util.*;
+
+/**
+ * Fixed-capacity history that keeps the most recent entries.
+ *
+ * Appending overwrites the oldest entry once full, so every add is O(1).
+ * The last N entries can be copied into a caller-owned array without
+ * allocating. All methods are safe to call from concurrent threads.
+ */
+public class RingHistory<T> {
+
+    private final Object[] entries;
+    private long appended = 0;
+
+    /**
+     * Create a history holding at most capacity entries
+     */
+    public RingHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.entries = new Object[capacity];
+    }
+
+    /**
+     * Append an entry, replacing the oldest one when full
+     */
+    public synchronized void add(T entry) {
+        entries[(int) (appended % entries.length)] = entry;
+        appended++;
+    }
+
+    /**
+     * Copy up to the last n entries, oldest first, into dest
+     *
+     * @return number of entries copied
+     */
+    public synchronized int copyLast(int n, T[] dest) {
+        int count = Math.min(Math.min(n, dest.length), size());
+        long first = appended - count;
+        for (int i = 0; i < count; i++) {
+            dest[i] = entry(first + i);
+        }
+        return count;
+    }
+
+    /**
+     * The last n entries, oldest first, as a new list
+     */
+    public synchronized List<T> getLast(int n) {
+        int count = Math.max(0, Math.min(n, size()));
+        List<T> last = new ArrayList<>(count);
+        long first = appended - count;
+        for (int i = 0; i < count; i++) {
+            last.add(entry(first + i));
+        }
+        return last;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(appended, entries.length);
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(entries, null);
+        appended = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T entry(long sequence) {
+        return (T) entries[(int) (sequence % entries.length)];
+    }
+}
@@ -0,0 +1,322 @@
+package utils;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Login sessions keyed by their secure tokens, with idle and absolute timeouts.
+ *
+ * Validating a token is one concurrent map lookup and a clock comparison.
+ * Expiry is driven by a hashed timing wheel: each session sits in the slot
+ * of the tick when it would next expire, and a background thread clears
+ * the slots as their ticks pass. Use only refreshes the idle time stamp;
+ * a session still in use when its slot comes round is moved to the slot
+ * of its new deadline, so no pass ever scans all sessions. A session past
+ * its deadline is refused even if its slot has not been cleared yet. The
+ * number of live sessions is capped; at the cap new sessions are refused
+ * rather than ending someone else's.
+ */
+public class SessionStore implements Closeable {
+
+    /**
+     * Told about every session that timed out, on the expiry thread or the one that found it expired
+     */
+    public interface ExpiryListener {
+        void expired(Session session);
+    }
+
+    /**
+     * One authenticated user at one terminal
+     */
+    public static class Session {
+        public final String token;
+        public final String userId;
+        public final String userType;
+        final long createdNanos;
+        volatile long lastUsedNanos;
+
+        // Timing wheel links, guarded by the wheel lock; slot < 0 when not on the wheel
+        Session prev;
+        Session next;
+        int slot = -1;
+
+        Session(String token, String userId, String userType, long now) {
+            this.token = token;
+            this.userId = userId;
+            this.userType = userType;
+            this.createdNanos = now;
+            this.lastUsedNanos = now;
+        }
+
+        /**
+         * When the session expires unless it is used again
+         */
+        long deadline(long idleNanos, long absoluteNanos) {
+            long idleDeadline = lastUsedNanos + idleNanos;
+            long absoluteDeadline = createdNanos + absoluteNanos;
+            return idleDeadline - absoluteDeadline < 0 ? idleDeadline : absoluteDeadline;
+        }
+    }
+
+    private final long idleNanos;
+    private final long absoluteNanos;
+    private final int maxSessions;
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final List<ExpiryListener> listeners = new ArrayList<>();
+
+    // Guarded by wheel
+    private final Session[] wheel;
+    private long currentTick;
+
+    private ScheduledExecutorService expirer;
+
+    /**
+     * Sessions end idleNanos after last use and absoluteNanos after creation;
+     * at most maxSessions live at once; expiry runs every tickNanos
+     */
+    public SessionStore(long idleNanos, long absoluteNanos, int maxSessions, long tickNanos) {
+        if (idleNanos < 1 || absoluteNanos < 1 || maxSessions < 1 || tickNanos < 1) {
+            throw new IllegalArgumentException("timeouts, cap and tick must be positive");
+        }
+        this.idleNanos = idleNanos;
+        this.absoluteNanos = absoluteNanos;
+        this.maxSessions = maxSessions;
+        this.tickNanos = tickNanos;
+
+        // One turn of the wheel covers the longest time a session can wait in it
+        long ticks = Math.min(Math.max(idleNanos, absoluteNanos) / tickNanos + 2, 1 << 20);
+        this.wheel = new Session[Integer.highestOneBit((int) ticks - 1) << 1];
+    }
+
+    /**
+     * Run expiry on a daemon thread once per tick
+     */
+    public synchronized void start() {
+        if (expirer != null) {
+            return;
+        }
+        expirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expirer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expirer.scheduleWithFixedDelay(this::expire, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void addListener(ExpiryListener listener) {
+        synchronized (listeners) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Open a session under a new token
+     *
+     * @return the session, or null if the store is at its cap
+     */
+    public Session create(String token, String userId, String userType) {
+        if (live.incrementAndGet() > maxSessions) {
+            // Sessions past their deadline may not have been cleared yet
+            expire();
+            if (live.get() > maxSessions) {
+                live.decrementAndGet();
+                return null;
+            }
+        }
+
+        long now = System.nanoTime();
+        Session session = new Session(token, userId, userType, now);
+        if (sessions.putIfAbsent(token, session) != null) {
+            live.decrementAndGet();
+            throw new IllegalArgumentException("Session token already in use");
+        }
+        synchronized (wheel) {
+            schedule(session, session.deadline(idleNanos, absoluteNanos));
+        }
+        return session;
+    }
+
+    /**
+     * The live session for a token, marking it used; null if unknown or expired
+     */
+    public Session validate(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - session.deadline(idleNanos, absoluteNanos) >= 0) {
+            if (unlink(session)) {
+                notifyExpired(Collections.singletonList(session));
+            }
+            return null;
+        }
+        session.lastUsedNanos = now;
+        return session;
+    }
+
+    /**
+     * End a session, e.g. on logout; listeners are not told
+     *
+     * @return the session ended, or null if there was none
+     */
+    public Session remove(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        return session != null && unlink(session) ? session : null;
+    }
+
+    /**
+     * End every session; listeners are not told
+     *
+     * @return the sessions ended
+     */
+    public List<Session> clear() {
+        List<Session> ended = new ArrayList<>();
+        for (Session session : sessions.values()) {
+            if (unlink(session)) {
+                ended.add(session);
+            }
+        }
+        return ended;
+    }
+
+    /**
+     * Clear the wheel slots whose ticks have passed
+     *
+     * @return number of sessions that expired
+     */
+    public int expire() {
+        long now = System.nanoTime();
+        long tick = (now - origin) / tickNanos;
+        List<Session> expired = new ArrayList<>();
+
+        synchronized (wheel) {
+            // After a long pause every slot is due once; a full turn visits them all
+            long from = Math.max(currentTick + 1, tick - wheel.length + 1);
+            for (long t = from; t <= tick; t++) {
+                currentTick = t;
+                int slot = (int) (t & (wheel.length - 1));
+                Session session = wheel[slot];
+                wheel[slot] = null;
+                while (session != null) {
+                    Session next = session.next;
+                    session.prev = null;
+                    session.next = null;
+                    session.slot = -1;
+
+                    long deadline = session.deadline(idleNanos, absoluteNanos);
+                    if (now - deadline >= 0) {
+                        if (sessions.remove(session.token, session)) {
+                            live.decrementAndGet();
+                            expired.add(session);
+                        }
+                    } else {
+                        // Used since it was scheduled; wait for the new deadline
+                        schedule(session, deadline);
+                    }
+                    session = next;
+                }
+            }
+            currentTick = Math.max(currentTick, tick);
+        }
+
+        notifyExpired(expired);
+        return expired.size();
+    }
+
+    /**
+     * Snapshot of the live sessions
+     */
+    public List<Session> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    public int size() {
+        return Math.min(live.get(), sessions.size());
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (expirer != null) {
+            expirer.shutdownNow();
+            expirer = null;
+        }
+    }
+
+    /**
+     * Put a session in the slot of the tick at or after its deadline. Callers hold the wheel lock.
+     */
+    private void schedule(Session session, long deadline) {
+        long tick = Math.max((deadline - origin + tickNanos - 1) / tickNanos, currentTick + 1);
+        tick = Math.min(tick, currentTick + wheel.length);
+        int slot = (int) (tick & (wheel.length - 1));
+
+        session.slot = slot;
+        session.prev = null;
+        session.next = wheel[slot];
+        if (session.next != null) {
+            session.next.prev = session;
+        }
+        wheel[slot] = session;
+    }
+
+    /**
+     * Drop a session from the map and the wheel
+     *
+     * @return false if it had already ended
+     */
+    private boolean unlink(Session session) {
+        if (!sessions.remove(session.token, session)) {
+            return false;
+        }
+        live.decrementAndGet();
+        synchronized (wheel) {
+            if (session.slot >= 0) {
+                if (session.prev != null) {
+                    session.prev.next = session.next;
+                } else {
+                    wheel[session.slot] = session.next;
+                }
+                if (session.next != null) {
+                    session.next.prev = session.prev;
+                }
+                session.prev = null;
+                session.next = null;
+                session.slot = -1;
+            }
+        }
+        return true;
+    }
+
+    private void notifyExpired(List<Session> expired) {
+        if (expired.isEmpty()) {
+            return;
+        }
+        List<ExpiryListener> current;
+        synchronized (listeners) {
+            current = new ArrayList<>(listeners);
+        }
+        for (Session session : expired) {
+            for (ExpiryListener listener : current) {
+                try {
+                    listener.expired(session);
+                } catch (RuntimeException e) {
+                    System.err.println("Session expiry listener failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
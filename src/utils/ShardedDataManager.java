@@ -0,0 +1,400 @@
+package utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Many independent elections in one process, one per constituency.
+ *
+ * Each constituency owns a range of 8-digit voter IDs and a data directory
+ * below the root directory with its own roll, candidates, vote log, tally
+ * and session. The ranges are listed in shards.txt in the root directory:
+ *
+ *   # Format: CONSTITUENCY:FIRST_ID:LAST_ID
+ *   NORTH:10000000:39999999
+ *
+ * A shard's DataManager is created on first access and shut down again
+ * once the shard has been idle for a while, so memory and open files scale
+ * with the shards in use rather than with the number of constituencies.
+ * Shutting a shard down writes its tally checkpoint, so loading it again
+ * only replays the votes recorded since.
+ */
+public class ShardedDataManager implements Closeable {
+
+    public static final String SHARDS_FILE = "shards.txt";
+
+    // Shut a shard down after this long without access
+    private static final long DEFAULT_IDLE_MILLIS = Long.getLong("voting.shards.idleMillis", 10 * 60 * 1000L);
+
+    private final File rootDir;
+    private final File shardsFile;
+    private final long idleNanos;
+
+    // Constituency -> shard, and first ID of each range -> shard for routing
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+    private volatile NavigableMap<Integer, Shard> ranges = new TreeMap<>();
+
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * Work to run against one shard's data while it is guaranteed to stay loaded
+     */
+    public interface ShardTask<T> {
+        T run(DataManager shard) throws IOException;
+    }
+
+    /**
+     * One constituency: its ID range, directory and, while loaded, its DataManager.
+     * Users hold the read lock; loading and eviction take the write lock.
+     */
+    private static class Shard {
+        final String name;
+        final int firstId;
+        final int lastId;
+        final File dir;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile DataManager manager; // written under the write lock
+        volatile long lastAccessNanos;
+
+        Shard(String name, int firstId, int lastId, File dir) {
+            this.name = name;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.dir = dir;
+        }
+    }
+
+    /**
+     * Open the constituencies listed under a root directory, evicting shards idle for the default time
+     */
+    public ShardedDataManager(File rootDir) throws IOException {
+        this(rootDir, DEFAULT_IDLE_MILLIS);
+    }
+
+    /**
+     * Open the constituencies listed under a root directory
+     *
+     * @param idleMillis shut a loaded shard down after this long without access
+     */
+    public ShardedDataManager(File rootDir, long idleMillis) throws IOException {
+        if (idleMillis < 1) {
+            throw new IllegalArgumentException("idleMillis must be at least 1");
+        }
+        this.rootDir = rootDir;
+        this.shardsFile = new File(rootDir, SHARDS_FILE);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+
+        if (!rootDir.exists()) {
+            rootDir.mkdirs();
+        }
+        if (!shardsFile.exists()) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(shardsFile))) {
+                writer.println("# Constituency Shards");
+                writer.println("# Format: CONSTITUENCY:FIRST_ID:LAST_ID");
+                writer.println("# Each constituency keeps its data in a directory of the same name");
+                writer.println();
+            }
+        }
+        loadShards();
+
+        // Check a few times per idle period so a shard is evicted soon after it goes idle
+        long checkMillis = Math.max(1, Math.min(idleMillis / 4, 60_000));
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> evictIdleShards(idleNanos), checkMillis, checkMillis,
+                                       TimeUnit.MILLISECONDS);
+
+        System.out.println("ShardedDataManager initialized with " + shards.size() + " constituencies");
+    }
+
+    /**
+     * Read the constituency ranges from shards.txt
+     */
+    private void loadShards() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(shardsFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    String[] parts = line.split(":");
+                    int firstId = parts.length == 3 ? VoterRegistry.parseId(parts[1]) : -1;
+                    int lastId = parts.length == 3 ? VoterRegistry.parseId(parts[2]) : -1;
+                    if (firstId < 0 || lastId < 0) {
+                        throw new IOException("Malformed shard entry in " + shardsFile + ": " + line);
+                    }
+                    register(parts[0], firstId, lastId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a constituency to the routing table
+     */
+    private synchronized void register(String name, int firstId, int lastId) throws IOException {
+        String problem = checkConstituency(name, firstId, lastId);
+        if (problem != null) {
+            throw new IOException(problem);
+        }
+
+        Shard shard = new Shard(name, firstId, lastId, new File(rootDir, name));
+        NavigableMap<Integer, Shard> updated = new TreeMap<>(ranges);
+        updated.put(firstId, shard);
+        shards.put(name, shard);
+        ranges = updated;
+    }
+
+    /**
+     * Why a constituency cannot be added, or null if it can: names double as
+     * directory names, and each voter ID belongs to at most one constituency
+     */
+    private String checkConstituency(String name, int firstId, int lastId) {
+        if (!InputValidator.isValidCandidateID(name)) {
+            return "Invalid constituency name: " + name;
+        }
+        if (shards.containsKey(name)) {
+            return "Duplicate constituency: " + name;
+        }
+        if (firstId < 0 || lastId < 0 || firstId > lastId) {
+            return "Invalid voter ID range for constituency " + name;
+        }
+        Map.Entry<Integer, Shard> below = ranges.floorEntry(lastId);
+        if (below != null && below.getValue().lastId >= firstId) {
+            return "Voter ID range of " + name + " overlaps constituency " + below.getValue().name;
+        }
+        return null;
+    }
+
+    /**
+     * Add a constituency for a range of voter IDs; its data directory is created on first access
+     */
+    public synchronized boolean addConstituency(String name, String firstID, String lastID) throws IOException {
+        int firstId = VoterRegistry.parseId(firstID);
+        int lastId = VoterRegistry.parseId(lastID);
+        if (checkConstituency(name, firstId, lastId) != null) {
+            return false;
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(shardsFile, true))) {
+            writer.println(name + ":" + firstID + ":" + lastID);
+        }
+        register(name, firstId, lastId);
+        return true;
+    }
+
+    /**
+     * Constituency whose range holds a voter ID, or null if none does
+     */
+    public String getConstituency(String voterID) {
+        Shard shard = route(voterID);
+        return shard == null ? null : shard.name;
+    }
+
+    private Shard route(String voterID) {
+        int id = VoterRegistry.parseId(voterID);
+        if (id < 0) {
+            return null;
+        }
+        Map.Entry<Integer, Shard> entry = ranges.floorEntry(id);
+        return entry != null && id <= entry.getValue().lastId ? entry.getValue() : null;
+    }
+
+    /**
+     * Names of all constituencies, loaded or not, in voter ID order
+     */
+    public List<String> getConstituencies() {
+        List<String> names = new ArrayList<>();
+        for (Shard shard : ranges.values()) {
+            names.add(shard.name);
+        }
+        return names;
+    }
+
+    /**
+     * Run a task on a constituency's data, loading the shard first if needed
+     *
+     * @throws IllegalArgumentException if there is no such constituency
+     */
+    public <T> T withConstituency(String constituency, ShardTask<T> task) throws IOException {
+        Shard shard = constituency == null ? null : shards.get(constituency);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown constituency: " + constituency);
+        }
+        return run(shard, task);
+    }
+
+    /**
+     * Run a task on the data of the constituency a voter belongs to
+     *
+     * @throws IllegalArgumentException if no constituency covers the voter ID
+     */
+    public <T> T withVoter(String voterID, ShardTask<T> task) throws IOException {
+        Shard shard = route(voterID);
+        if (shard == null) {
+            throw new IllegalArgumentException("No constituency for voter ID");
+        }
+        return run(shard, task);
+    }
+
+    /**
+     * Check if a voter is on the roll of their constituency
+     */
+    public boolean isVoterRegistered(String voterID) throws IOException {
+        Shard shard = route(voterID);
+        return shard != null && run(shard, data -> data.isVoterRegistered(voterID));
+    }
+
+    /**
+     * Check if a voter has already voted in their constituency
+     */
+    public boolean hasVoterVoted(String voterID) throws IOException {
+        Shard shard = route(voterID);
+        return shard != null && run(shard, data -> data.hasVoterVoted(voterID));
+    }
+
+    /**
+     * Record a vote in the voter's constituency, for a candidate standing there
+     */
+    public boolean recordVote(String voterID, String candidateID) throws IOException {
+        Shard shard = route(voterID);
+        return shard != null && run(shard, data -> data.recordVote(voterID, candidateID));
+    }
+
+    /**
+     * Run a task holding the shard's read lock, so it cannot be evicted underneath the task
+     */
+    private <T> T run(Shard shard, ShardTask<T> task) throws IOException {
+        DataManager data = acquire(shard);
+        try {
+            return task.run(data);
+        } finally {
+            shard.lastAccessNanos = System.nanoTime();
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Take the shard's read lock with its DataManager loaded
+     */
+    private DataManager acquire(Shard shard) throws IOException {
+        shard.lock.readLock().lock();
+        if (shard.manager != null) {
+            return shard.manager;
+        }
+        shard.lock.readLock().unlock();
+
+        // Load under the write lock, then downgrade to the read lock
+        shard.lock.writeLock().lock();
+        try {
+            if (shard.manager == null) {
+                shard.manager = load(shard);
+            }
+            shard.lastAccessNanos = System.nanoTime();
+            shard.lock.readLock().lock();
+            return shard.manager;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Open a shard's DataManager. A new shard starts with an empty roll
+     * rather than the sample voters, which would fall outside its range.
+     */
+    private DataManager load(Shard shard) throws IOException {
+        if (!shard.dir.exists()) {
+            shard.dir.mkdirs();
+        }
+        File voters = new File(shard.dir, "voters.txt");
+        if (!voters.exists()) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(voters))) {
+                writer.println("# Registered Voters Database");
+                writer.println("# Format: AadhaarID");
+                writer.println("# Constituency " + shard.name + ": IDs " + VoterRegistry.formatId(shard.firstId) +
+                               " to " + VoterRegistry.formatId(shard.lastId));
+                writer.println();
+            }
+        }
+
+        DataManager manager = new DataManager(shard.dir);
+        try {
+            manager.initializeDataFiles();
+        } catch (IOException | RuntimeException e) {
+            manager.shutdown();
+            throw e;
+        }
+        System.out.println("Loaded constituency shard " + shard.name);
+        return manager;
+    }
+
+    /**
+     * Shut down shards idle for longer than the given time and not in use
+     *
+     * @return number of shards evicted
+     */
+    public int evictIdleShards(long idleNanos) {
+        int evicted = 0;
+        long now = System.nanoTime();
+        for (Shard shard : shards.values()) {
+            if (now - shard.lastAccessNanos >= idleNanos && evict(shard, false)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Shut a shard's DataManager down unless a task is using it; close waits for running tasks
+     */
+    private boolean evict(Shard shard, boolean wait) {
+        if (wait) {
+            shard.lock.writeLock().lock();
+        } else if (!shard.lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            if (shard.manager == null) {
+                return false;
+            }
+            shard.manager.logActivity("SHARD_EVICT", "SYSTEM", "Constituency shard unloaded");
+            shard.manager.shutdown();
+            shard.manager = null;
+            System.out.println("Unloaded constituency shard " + shard.name);
+            return true;
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of shards whose data is currently in memory
+     */
+    public int getLoadedShardCount() {
+        int loaded = 0;
+        for (Shard shard : shards.values()) {
+            if (shard.manager != null) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Stop evicting and shut every loaded shard down
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        for (Shard shard : shards.values()) {
+            evict(shard, true);
+        }
+    }
+}
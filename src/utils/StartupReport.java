@@ -0,0 +1,27 @@
+package utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Startup time and idle memory figures, printed by both the GUI and the
+ * headless entry points so the two modes can be compared.
+ */
+public class StartupReport {
+
+    /**
+     * Summarize time since JVM start, heap in use after a GC and loaded classes
+     */
+    public static String summarize(String mode) {
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        System.gc();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+        int loadedClasses = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+
+        return String.format("[%s] started in %d ms, idle heap %.1f MB, non-heap %.1f MB, %d classes loaded",
+                             mode, uptimeMillis, heap.getUsed() / 1048576.0, nonHeap.getUsed() / 1048576.0,
+                             loadedClasses);
+    }
+}
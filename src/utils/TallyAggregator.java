@@ -0,0 +1,412 @@
+package utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Merged tally over the vote logs of many booths.
+ *
+ * Every booth is a data directory as written by DataManager, either copied
+ * from the booth machine or shared with it. The logs are read in windows of
+ * bounded size, the booths of each window in parallel, and the ballots are
+ * then counted in booth order. A voter is counted once across all booths:
+ * the first ballot counted wins and later ones are reported as duplicates.
+ *
+ * Each booth remembers how far its log has been counted, so refresh() only
+ * reads what was appended since the last call. A log that shrank, or whose
+ * bytes before that offset changed, was cleared or replaced, and the whole
+ * aggregate is then rebuilt.
+ *
+ * Voters are recognised by pseudonym, so ballots only deduplicate across
+ * booths that share one election.key. The booths of an election are given
+ * the same key with voting.election.keyFile; refresh() refuses to count
+ * booths whose keys differ.
+ */
+public class TallyAggregator {
+
+    // Bytes of each booth's log read per window
+    private static final long WINDOW_BYTES = Long.getLong("voting.aggregate.windowBytes", 64L << 20);
+
+    private final List<Booth> booths = new ArrayList<>();
+
+    // Candidates in the order they were first seen in any booth
+    private final List<String> candidateOrder = new ArrayList<>();
+    private final Map<String, Integer> candidateIndex = new HashMap<>();
+    private final Map<String, String> candidateLabels = new HashMap<>();
+    private long[] counts = new long[0];
+
+    // Voters counted so far
+    private DigestSet countedVoters = new DigestSet();
+    private final Set<String> countedLegacyVoters = new HashSet<>();
+    private long duplicateBallots;
+    private long rebuilds;
+
+    /**
+     * One booth's data directory and how far its vote log has been counted
+     */
+    private static class Booth {
+        final String name;
+        final File dir;
+        final File log;
+        final boolean binary;
+        long offset;
+        long fingerprint; // of the bytes just before offset, as in TallyCheckpoint
+        long ballots;
+        long duplicates;
+        long skippedRecords;
+        long corruptOffset = -1;
+
+        // Booth candidate index -> aggregate candidate index
+        byte[][] candidateIds = new byte[0][];
+        int[] aggregateIndex = new int[0];
+
+        Booth(String name, File dir) {
+            this.name = name;
+            this.dir = dir;
+            File binaryLog = new File(dir, "votes.bin");
+            this.binary = binaryLog.exists();
+            this.log = binary ? binaryLog : new File(dir, "votes.txt");
+        }
+    }
+
+    /**
+     * Ballots read from one window of a booth's log, in log order
+     */
+    private static class Ballots {
+        byte[] digests = new byte[64 * DigestSet.DIGEST_SIZE];
+        int[] candidates = new int[64];
+        String[] legacyVoters; // only allocated once a legacy pseudonym turns up
+        int size;
+        long end;
+
+        void add(byte[] digest, String legacyVoter, int candidate) {
+            if (size == candidates.length) {
+                candidates = Arrays.copyOf(candidates, size * 2);
+                digests = Arrays.copyOf(digests, size * 2 * DigestSet.DIGEST_SIZE);
+                if (legacyVoters != null) {
+                    legacyVoters = Arrays.copyOf(legacyVoters, size * 2);
+                }
+            }
+            if (legacyVoter != null) {
+                if (legacyVoters == null) {
+                    legacyVoters = new String[candidates.length];
+                }
+                legacyVoters[size] = legacyVoter;
+            } else {
+                System.arraycopy(digest, 0, digests, size * DigestSet.DIGEST_SIZE, DigestSet.DIGEST_SIZE);
+            }
+            candidates[size++] = candidate;
+        }
+    }
+
+    /**
+     * Add a booth's data directory; its votes are counted on the next refresh
+     */
+    public synchronized void addBooth(String name, File dataDir) {
+        for (Booth booth : booths) {
+            if (booth.name.equals(name)) {
+                throw new IllegalArgumentException("Duplicate booth: " + name);
+            }
+        }
+        booths.add(new Booth(name, dataDir));
+    }
+
+    /**
+     * Count everything appended to the booths' logs since the last refresh
+     *
+     * @return number of ballots read
+     */
+    public synchronized long refresh() throws IOException {
+        checkElectionKeys();
+
+        for (Booth booth : booths) {
+            if (booth.log.length() < booth.offset ||
+                TallyCheckpoint.fingerprint(booth.log, booth.offset) != booth.fingerprint) {
+                System.out.println("Vote log of booth " + booth.name + " was reset; rebuilding the tally");
+                reset();
+                break;
+            }
+        }
+
+        for (Booth booth : booths) {
+            loadCandidates(booth);
+        }
+
+        long read = 0;
+        boolean progress = true;
+        while (progress) {
+            List<Ballots> windows = readWindows();
+            progress = false;
+            for (int i = 0; i < booths.size(); i++) {
+                Ballots ballots = windows.get(i);
+                if (ballots != null) {
+                    Booth booth = booths.get(i);
+                    count(booth, ballots);
+                    booth.fingerprint = TallyCheckpoint.fingerprint(booth.log, booth.offset);
+                    read += ballots.size;
+                    progress = true;
+                }
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Forget all counted votes so the next refresh reads every log from the start
+     */
+    private void reset() {
+        for (Booth booth : booths) {
+            booth.offset = 0;
+            booth.fingerprint = 0;
+            booth.ballots = 0;
+            booth.duplicates = 0;
+            booth.skippedRecords = 0;
+            booth.corruptOffset = -1;
+        }
+        Arrays.fill(counts, 0);
+        countedVoters = new DigestSet();
+        countedLegacyVoters.clear();
+        duplicateBallots = 0;
+        rebuilds++;
+    }
+
+    /**
+     * Read the booth's candidate list, adding new candidates to the aggregate
+     */
+    private void loadCandidates(Booth booth) throws IOException {
+        File file = new File(booth.dir, "candidates.txt");
+        List<byte[]> ids = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        int[] fieldEnds = new int[3];
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    // ID:NAME:PARTY, the first listing of an ID counts, as in DataManager
+                    if (!line.isEmpty() && !line.startsWith("#") && LineScanner.colonFields(line, fieldEnds) >= 3) {
+                        String id = line.substring(0, fieldEnds[0]);
+                        if (seen.add(id)) {
+                            String label = line.substring(fieldEnds[0] + 1, fieldEnds[1]) + " (" +
+                                           line.substring(fieldEnds[1] + 1, fieldEnds[2]) + ")";
+                            ids.add(id.getBytes(StandardCharsets.UTF_8));
+                            indexes.add(candidateIndexOf(id, label));
+                        }
+                    }
+                }
+            }
+        }
+
+        booth.candidateIds = ids.toArray(new byte[0][]);
+        booth.aggregateIndex = indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int candidateIndexOf(String id, String label) {
+        Integer index = candidateIndex.get(id);
+        if (index == null) {
+            index = candidateOrder.size();
+            candidateIndex.put(id, index);
+            candidateOrder.add(id);
+            candidateLabels.put(id, label);
+            counts = Arrays.copyOf(counts, candidateOrder.size());
+        }
+        return index;
+    }
+
+    /**
+     * Read the next window of every booth's log in parallel
+     *
+     * @return per booth, the ballots read, or null where there was nothing new
+     */
+    private List<Ballots> readWindows() throws IOException {
+        try {
+            return Arrays.asList(booths.parallelStream().map(booth -> {
+                try {
+                    return booth.binary ? readBinaryWindow(booth) : readTextWindow(booth);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toArray(Ballots[]::new));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Ballots on the complete lines of the next window of a text log
+     */
+    private static Ballots readTextWindow(Booth booth) throws IOException {
+        if (!booth.log.exists()) {
+            return null;
+        }
+        long[] bounds = ParallelFileReader.lineChunks(booth.log, booth.offset, WINDOW_BYTES, true);
+        if (bounds.length < 2) {
+            return null;
+        }
+
+        Ballots ballots = new Ballots();
+        LineScanner.VoteFields fields = new LineScanner.VoteFields();
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+        ParallelFileReader.forEachLine(booth.log, bounds[0], bounds[1], (data, start, end) -> {
+            if (!LineScanner.locateVoteFields(data, start, end, fields)) {
+                return;
+            }
+            int candidate = LineScanner.indexOf(booth.candidateIds, data, fields.candidateStart, fields.candidateEnd);
+            if (candidate < 0) {
+                return; // not a candidate of this booth; DataManager does not count it either
+            }
+            if (VoterPseudonymizer.digestOf(data, fields.voterStart, fields.voterEnd, digest)) {
+                ballots.add(digest, null, booth.aggregateIndex[candidate]);
+            } else {
+                ballots.add(null, new String(data, fields.voterStart, fields.voterEnd - fields.voterStart,
+                                             StandardCharsets.UTF_8), booth.aggregateIndex[candidate]);
+            }
+        });
+        ballots.end = bounds[1];
+        return ballots;
+    }
+
+    /**
+     * Ballots in the whole records of the next window of a binary log, up to any corrupt record
+     */
+    private static Ballots readBinaryWindow(Booth booth) throws IOException {
+        long start = Math.max(BinaryVoteLog.HEADER_SIZE, booth.offset);
+        long recordsPerWindow = Math.max(1, WINDOW_BYTES / BinaryVoteLog.RECORD_SIZE);
+        long end = Math.min(booth.log.length(), start + recordsPerWindow * BinaryVoteLog.RECORD_SIZE);
+        if (!booth.log.exists() || end - start < BinaryVoteLog.RECORD_SIZE) {
+            return null;
+        }
+
+        Ballots ballots = new Ballots();
+        BinaryVoteLog.ReplayResult result = BinaryVoteLog.replay(booth.log, start, end,
+            (epochNanos, voterDigest, candidate) -> {
+                if (candidate >= 0 && candidate < booth.aggregateIndex.length) {
+                    if (BinaryVoteLog.isLegacyDigest(voterDigest)) {
+                        ballots.add(null, BinaryVoteLog.voterHashFromDigest(voterDigest),
+                                    booth.aggregateIndex[candidate]);
+                    } else {
+                        ballots.add(voterDigest, null, booth.aggregateIndex[candidate]);
+                    }
+                }
+            });
+
+        // Damage followed by intact records is skipped; a damaged last record may be one still
+        // being written, so it is read again on the next refresh
+        booth.skippedRecords += result.skippedRecords;
+        booth.corruptOffset = result.trailingCorruptRecords() > 0 ? result.validEndOffset : -1;
+        if (result.validEndOffset == start) {
+            return null;
+        }
+        ballots.end = result.validEndOffset;
+        return ballots;
+    }
+
+    /**
+     * Count a booth's ballots in log order, skipping voters already counted
+     */
+    private void count(Booth booth, Ballots ballots) {
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+        for (int i = 0; i < ballots.size; i++) {
+            boolean first;
+            String legacyVoter = ballots.legacyVoters == null ? null : ballots.legacyVoters[i];
+            if (legacyVoter != null) {
+                first = countedLegacyVoters.add(legacyVoter);
+            } else {
+                System.arraycopy(ballots.digests, i * DigestSet.DIGEST_SIZE, digest, 0, DigestSet.DIGEST_SIZE);
+                first = countedVoters.add(digest);
+            }
+
+            if (first) {
+                counts[ballots.candidates[i]]++;
+            } else {
+                booth.duplicates++;
+                duplicateBallots++;
+            }
+        }
+        booth.ballots += ballots.size;
+        booth.offset = ballots.end;
+    }
+
+    /**
+     * Votes per candidate ID, in the order candidates were first seen
+     */
+    public synchronized Map<String, Long> getTally() {
+        Map<String, Long> tally = new LinkedHashMap<>();
+        for (int i = 0; i < candidateOrder.size(); i++) {
+            tally.put(candidateOrder.get(i), counts[i]);
+        }
+        return tally;
+    }
+
+    /**
+     * "Name (Party)" of a candidate as listed by the first booth that has it
+     */
+    public synchronized String getCandidateLabel(String candidateID) {
+        return candidateLabels.get(candidateID);
+    }
+
+    /**
+     * Distinct voters counted across all booths
+     */
+    public synchronized long getTotalVotes() {
+        return countedVoters.size() + countedLegacyVoters.size();
+    }
+
+    /**
+     * Ballots not counted because the voter had already been counted
+     */
+    public synchronized long getDuplicateBallots() {
+        return duplicateBallots;
+    }
+
+    /**
+     * How often a reset booth log forced the aggregate to be rebuilt
+     */
+    public synchronized long getRebuildCount() {
+        return rebuilds;
+    }
+
+    /**
+     * One line per booth: ballots read, duplicates and how far the log was read
+     */
+    public synchronized List<String> getBoothReport() {
+        List<String> report = new ArrayList<>();
+        for (Booth booth : booths) {
+            report.add(booth.name + ": " + booth.ballots + " ballots, " + booth.duplicates + " duplicates, " +
+                       booth.offset + " of " + booth.log.length() + " bytes of " + booth.log.getName() +
+                       (booth.skippedRecords > 0 ? ", " + booth.skippedRecords + " damaged records skipped" : "") +
+                       (booth.corruptOffset >= 0 ? ", waiting at corrupt record at offset " + booth.corruptOffset : ""));
+        }
+        return report;
+    }
+
+    /**
+     * Fail unless every booth has the same election key, since otherwise a
+     * voter who voted at two booths could not be recognised and would be
+     * counted twice. The key is read again on each refresh because a booth
+     * that starts a session without a shared key generates a new one.
+     */
+    private void checkElectionKeys() throws IOException {
+        byte[] reference = null;
+        String referenceBooth = null;
+        for (Booth booth : booths) {
+            File keyFile = new File(booth.dir, "election.key");
+            if (!keyFile.exists()) {
+                throw new IOException("Booth " + booth.name + " has no election.key");
+            }
+            byte[] key = Files.readAllBytes(keyFile.toPath());
+            if (reference == null) {
+                reference = key;
+                referenceBooth = booth.name;
+            } else if (!Arrays.equals(reference, key)) {
+                throw new IOException("Booth " + booth.name + " uses a different election key than booth " +
+                                      referenceBooth + "; give all booths the same key with " +
+                                      "-Dvoting.election.keyFile");
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time snapshot of the tally and the part of the vote log it covers.
+ *
+ * On startup the latest checkpoint is loaded and only the log tail after
+ * logOffset is replayed. Keyed voter pseudonyms are stored as raw 32-byte
+ * digests and read straight into a DigestSet; only legacy pseudonyms are
+ * stored as text. Checkpoints are written to a temporary file and renamed
+ * into place, so a crash never leaves a half-written checkpoint.
+ */
+public class TallyCheckpoint {
+
+    private static final int MAGIC = 0x44564350; // "DVCP"
+    private static final int VERSION = 2;
+    private static final int FINGERPRINT_BYTES = 64;
+
+    private final boolean binaryLog;
+    private final long logOffset;
+    private final Map<String, Integer> voteCount;
+    private final DigestSet keyedVoters;
+    private final Set<String> legacyVoters;
+
+    private TallyCheckpoint(boolean binaryLog, long logOffset, Map<String, Integer> voteCount,
+                            DigestSet keyedVoters, Set<String> legacyVoters) {
+        this.binaryLog = binaryLog;
+        this.logOffset = logOffset;
+        this.voteCount = voteCount;
+        this.keyedVoters = keyedVoters;
+        this.legacyVoters = legacyVoters;
+    }
+
+    /**
+     * Atomically write a checkpoint covering the vote log up to logOffset.
+     * The keyed voter sets must be disjoint; they are stored as one. Writes
+     * to the same file share its temporary file, so callers serialize them.
+     */
+    public static void write(File checkpointFile, File voteLog, boolean binaryLog, long logOffset,
+                             Map<String, Integer> voteCount, List<DigestSet> keyedVoters,
+                             Collection<String> legacyVoters) throws IOException {
+        File tempFile = new File(checkpointFile.getPath() + ".tmp");
+        long fingerprint = fingerprint(voteLog, logOffset);
+
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(binaryLog);
+            out.writeLong(logOffset);
+            out.writeLong(fingerprint);
+
+            out.writeInt(voteCount.size());
+            for (Map.Entry<String, Integer> entry : voteCount.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+
+            int keyedCount = 0;
+            for (DigestSet voters : keyedVoters) {
+                keyedCount += voters.size();
+            }
+            out.writeInt(keyedCount);
+            for (DigestSet voters : keyedVoters) {
+                for (int slot = 0; slot < voters.capacity(); slot++) {
+                    byte[] digest = voters.get(slot);
+                    if (digest != null) {
+                        out.write(digest);
+                    }
+                }
+            }
+
+            out.writeInt(legacyVoters.size());
+            for (String voterHash : legacyVoters) {
+                out.writeUTF(voterHash);
+            }
+
+            out.flush();
+            long crc = checked.getChecksum().getValue();
+            out.writeLong(crc);
+            out.flush();
+            fileOut.getFD().sync();
+        }
+
+        AtomicFiles.commit(tempFile, checkpointFile);
+    }
+
+    /**
+     * Read a checkpoint if it exists, is intact and still matches the vote log.
+     *
+     * @return the checkpoint, or null if it cannot be used
+     */
+    public static TallyCheckpoint read(File checkpointFile, File voteLog, boolean binaryLog) {
+        if (!checkpointFile.exists()) {
+            return null;
+        }
+
+        try (FileInputStream fileIn = new FileInputStream(checkpointFile)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(fileIn, 1 << 16), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+
+            boolean checkpointBinary = in.readBoolean();
+            long logOffset = in.readLong();
+            long logFingerprint = in.readLong();
+
+            int candidateCount = in.readInt();
+            Map<String, Integer> voteCount = new HashMap<>(candidateCount * 2);
+            for (int i = 0; i < candidateCount; i++) {
+                voteCount.put(in.readUTF(), in.readInt());
+            }
+
+            int keyedCount = in.readInt();
+            DigestSet keyedVoters = new DigestSet(keyedCount);
+            byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+            for (int i = 0; i < keyedCount; i++) {
+                in.readFully(digest);
+                keyedVoters.add(digest);
+            }
+
+            int legacyCount = in.readInt();
+            Set<String> legacyVoters = new HashSet<>(Math.max(16, (int) (legacyCount / 0.75f) + 1));
+            for (int i = 0; i < legacyCount; i++) {
+                legacyVoters.add(in.readUTF());
+            }
+
+            long expectedCrc = checked.getChecksum().getValue();
+            if (in.readLong() != expectedCrc) {
+                return null;
+            }
+
+            if (checkpointBinary != binaryLog || voteLog.length() < logOffset ||
+                fingerprint(voteLog, logOffset) != logFingerprint) {
+                return null; // Log was cleared, replaced or switched format since the checkpoint
+            }
+
+            return new TallyCheckpoint(checkpointBinary, logOffset, voteCount, keyedVoters, legacyVoters);
+
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable tally checkpoint: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * CRC of the log bytes just before the offset, to detect a replaced log
+     */
+    static long fingerprint(File voteLog, long offset) throws IOException {
+        int length = (int) Math.min(FINGERPRINT_BYTES, offset);
+        if (length == 0) {
+            return 0; // CRC of no bytes; the log need not exist yet
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        try (FileChannel channel = FileChannel.open(voteLog.toPath(), StandardOpenOption.READ)) {
+            long position = offset - length;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        return crc.getValue();
+    }
+
+    public boolean isBinaryLog() {
+        return binaryLog;
+    }
+
+    public long getLogOffset() {
+        return logOffset;
+    }
+
+    public Map<String, Integer> getVoteCount() {
+        return voteCount;
+    }
+
+    /**
+     * Raw digests of the keyed pseudonyms of everyone who had voted
+     */
+    public DigestSet getKeyedVoters() {
+        return keyedVoters;
+    }
+
+    /**
+     * Legacy pseudonyms of everyone who had voted, from logs written before keyed pseudonyms
+     */
+    public Set<String> getLegacyVoters() {
+        return legacyVoters;
+    }
+}
@@ -0,0 +1,67 @@
+package utils;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Who has voted in the current session, one bit per 8-digit voter ID.
+ *
+ * Casting claims the voter's bit with an atomic test-and-set, so concurrent
+ * terminals can never both succeed for the same voter. Checks parse the ID
+ * in place and never allocate; turnout is a popcount over the bitmap.
+ */
+public class TurnoutTracker {
+
+    private final PagedBitSet voted = new PagedBitSet(VoterRegistry.ID_SPACE);
+
+    /**
+     * Claim a voter's ballot
+     *
+     * @return false if the voter had already voted
+     */
+    public boolean markVoted(int voterId) {
+        return voted.set(voterId);
+    }
+
+    /**
+     * Release a claim whose ballot could not be recorded
+     */
+    public void unmark(int voterId) {
+        voted.clear(voterId);
+    }
+
+    public boolean hasVoted(int voterId) {
+        return voterId >= 0 && voterId < VoterRegistry.ID_SPACE && voted.get(voterId);
+    }
+
+    /**
+     * Check an ID in its 8-digit form; malformed IDs have never voted
+     */
+    public boolean hasVoted(String voterID) {
+        return hasVoted(VoterRegistry.parseId(voterID));
+    }
+
+    /**
+     * Number of voters who have voted
+     */
+    public long count() {
+        return voted.cardinality();
+    }
+
+    /**
+     * Forget all participation, e.g. for a new session
+     */
+    public void clear() {
+        voted.clearAll();
+    }
+
+    /**
+     * Visit the IDs of voters who have voted, ascending
+     */
+    public void forEach(IntConsumer action) {
+        voted.forEach(action);
+    }
+
+    public long memoryBytes() {
+        return voted.memoryBytes();
+    }
+}
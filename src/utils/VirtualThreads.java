@@ -0,0 +1,47 @@
+package utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread support that degrades gracefully on older JDKs.
+ *
+ * The sources target Java 8, so JDK 21 virtual thread APIs are looked up
+ * reflectively. When they are missing, a cached platform thread pool is
+ * used instead.
+ */
+public class VirtualThreads {
+
+    private static final Method NEW_PER_TASK_EXECUTOR = findPerTaskExecutor();
+
+    private static Method findPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Check if this JDK provides virtual threads
+     */
+    public static boolean isAvailable() {
+        return NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Executor that runs every task on its own virtual thread, or a cached
+     * platform thread pool when virtual threads are unavailable
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (NEW_PER_TASK_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("Failed to create virtual thread executor: " + e.getMessage());
+            }
+        }
+        return Executors.newCachedThreadPool();
+    }
+}
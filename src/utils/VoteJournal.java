@@ -0,0 +1,291 @@
+package utils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group-commit journal for vote records.
+ *
+ * Records appended within the same batch window are written with a single
+ * channel write and made durable with a single force(). Callers of append()
+ * only return once the batch holding their record is on disk.
+ *
+ * If a batch cannot be written or forced, the file is cut back to where the
+ * batch started before its callers are told, so a ballot reported as failed
+ * is never found in the log later. If even that fails, the journal refuses
+ * further records.
+ */
+public class VoteJournal implements Closeable {
+
+    private final File file;
+    private final FileChannel channel;
+    private final long batchWindowNanos;
+    private final int maxBatchRecords;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition recordsAvailable = lock.newCondition();
+    private final Condition batchCommitted = lock.newCondition();
+
+    private Batch currentBatch = new Batch();
+    private boolean closed = false;
+    private IOException failure; // set once a failed batch could not be removed from the file
+    private final Thread committer;
+
+    // Statistics
+    private long batchesCommitted = 0;
+    private long recordsCommitted = 0;
+
+    /**
+     * A group of records committed together
+     */
+    private static class Batch {
+        final List<byte[]> records = new ArrayList<>();
+        int totalBytes = 0;
+        long firstRecordNanos = 0;
+        long startOffset = -1; // file size before the batch was written
+        boolean done = false;
+        IOException error;
+    }
+
+    /**
+     * Open the journal in append mode
+     *
+     * @param file file to append records to
+     * @param batchWindowMicros how long to wait for more records after the first one of a batch
+     * @param maxBatchRecords commit immediately once this many records are waiting
+     */
+    public VoteJournal(File file, long batchWindowMicros, int maxBatchRecords) throws IOException {
+        this(file, FileChannel.open(file.toPath(),
+                                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND),
+             batchWindowMicros, maxBatchRecords);
+    }
+
+    /**
+     * Journal on a channel already open for appending to file
+     */
+    VoteJournal(File file, FileChannel channel, long batchWindowMicros, int maxBatchRecords) {
+        if (maxBatchRecords < 1) {
+            throw new IllegalArgumentException("maxBatchRecords must be at least 1");
+        }
+
+        this.file = file;
+        this.channel = channel;
+        this.batchWindowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, batchWindowMicros));
+        this.maxBatchRecords = maxBatchRecords;
+
+        this.committer = new Thread(this::commitLoop, "vote-journal-" + file.getName());
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Append a text record (a newline is added) and wait until it is durable
+     */
+    public void appendLine(String line) throws IOException {
+        append((line + System.lineSeparator()).getBytes("UTF-8"));
+    }
+
+    /**
+     * Append a raw record and wait until it is durable
+     */
+    public void append(byte[] record) throws IOException {
+        Batch batch;
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Vote journal is closed: " + file);
+            }
+            if (failure != null) {
+                throw new IOException("Vote journal stopped after a failed write: " + file, failure);
+            }
+
+            batch = currentBatch;
+            if (batch.records.isEmpty()) {
+                batch.firstRecordNanos = System.nanoTime();
+                recordsAvailable.signal();
+            }
+            batch.records.add(record);
+            batch.totalBytes += record.length;
+
+            if (batch.records.size() >= maxBatchRecords) {
+                recordsAvailable.signal();
+            }
+
+            boolean interrupted = false;
+            while (!batch.done) {
+                try {
+                    batchCommitted.await();
+                } catch (InterruptedException e) {
+                    // The record is already queued, so keep waiting for its outcome
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (batch.error != null) {
+            throw new IOException("Vote journal write failed", batch.error);
+        }
+    }
+
+    /**
+     * Background loop: collect a batch, write it, force it, wake its callers
+     */
+    private void commitLoop() {
+        while (true) {
+            Batch batch;
+
+            lock.lock();
+            try {
+                while (!closed && currentBatch.records.isEmpty()) {
+                    recordsAvailable.awaitUninterruptibly();
+                }
+                if (currentBatch.records.isEmpty()) {
+                    return; // closed and drained
+                }
+
+                // Hold the batch open for the window unless it fills up first
+                long deadline = currentBatch.firstRecordNanos + batchWindowNanos;
+                long remaining;
+                while (!closed && currentBatch.records.size() < maxBatchRecords &&
+                       (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        recordsAvailable.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+
+                batch = currentBatch;
+                currentBatch = new Batch();
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = writeBatch(batch);
+            IOException rollBackError = error == null ? null : rollBack(batch, error);
+
+            lock.lock();
+            try {
+                if (rollBackError != null) {
+                    failure = rollBackError;
+                }
+                batch.error = error;
+                batch.done = true;
+                if (error == null) {
+                    batchesCommitted++;
+                    recordsCommitted += batch.records.size();
+                }
+                batchCommitted.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write all records of a batch with one write call and one force
+     */
+    private IOException writeBatch(Batch batch) {
+        try {
+            batch.startOffset = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(batch.totalBytes);
+            for (byte[] record : batch.records) {
+                buffer.put(record);
+            }
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            return null;
+
+        } catch (IOException e) {
+            System.err.println("Vote journal write failed: " + e.getMessage());
+            return e;
+        }
+    }
+
+    /**
+     * Cut whatever part of a failed batch reached the file
+     *
+     * @return null once the file ends where the batch started, else the error that prevented it
+     */
+    private IOException rollBack(Batch batch, IOException error) {
+        if (batch.startOffset < 0) {
+            return null; // failed before anything was written
+        }
+        try {
+            if (channel.size() > batch.startOffset) {
+                channel.truncate(batch.startOffset);
+            }
+            channel.force(true);
+            return null;
+        } catch (IOException e) {
+            System.err.println("Vote journal could not remove a failed batch: " + e.getMessage());
+            e.addSuppressed(error);
+            return e;
+        }
+    }
+
+    /**
+     * Get number of batches written so far
+     */
+    public long getBatchesCommitted() {
+        lock.lock();
+        try {
+            return batchesCommitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get number of records written so far
+     */
+    public long getRecordsCommitted() {
+        lock.lock();
+        try {
+            return recordsCommitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commit any waiting records and close the underlying channel
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            recordsAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        channel.close();
+    }
+}
@@ -0,0 +1,301 @@
+package utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a data directory's vote log and pushes tally changes to subscribers.
+ *
+ * Only the bytes appended since the last check are parsed: complete lines
+ * of votes.txt, or whole records of votes.bin up to the first corrupt one.
+ * A background thread wakes on file system change events where the
+ * WatchService delivers them and polls the file size in any case, since
+ * events are not reliable on network and synced file systems. A log that
+ * gets shorter, or whose bytes before the counted offset change, was
+ * cleared or replaced; the tally then starts over and subscribers receive
+ * a reset.
+ *
+ * Records are counted as DataManager replays them, for candidates listed
+ * in candidates.txt, so the follower agrees with a full reload of the log.
+ */
+public class VoteLogFollower implements Closeable {
+
+    /**
+     * Receives tally changes on the follower's thread
+     */
+    public interface Listener {
+        void onDelta(TallyDelta delta);
+    }
+
+    /**
+     * Change in votes per candidate ID since the previous delta, and the totals after it
+     */
+    public static class TallyDelta {
+        public final boolean reset;       // totals start over; changes are relative to zero
+        public final Map<String, Long> changes;
+        public final Map<String, Long> totals;
+        public final long logOffset;
+
+        TallyDelta(boolean reset, Map<String, Long> changes, Map<String, Long> totals, long logOffset) {
+            this.reset = reset;
+            this.changes = Collections.unmodifiableMap(changes);
+            this.totals = Collections.unmodifiableMap(totals);
+            this.logOffset = logOffset;
+        }
+    }
+
+    private final File dataDir;
+    private final File log;
+    private final boolean binary;
+    private final long pollMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private long offset;
+    private long fingerprint; // of the bytes just before offset, as in TallyCheckpoint
+    private List<String> candidateOrder = new ArrayList<>();
+    private byte[][] candidateIds = new byte[0][];
+    private long candidatesModified = -1;
+    private long candidatesLength = -1;
+    private final Map<String, Long> totals = new LinkedHashMap<>();
+
+    private volatile boolean closed;
+    private Thread follower;
+
+    /**
+     * Follow the vote log of a data directory, checking it at least every pollMillis
+     */
+    public VoteLogFollower(File dataDir, long pollMillis) {
+        if (pollMillis < 1) {
+            throw new IllegalArgumentException("pollMillis must be at least 1");
+        }
+        this.dataDir = dataDir;
+        File binaryLog = new File(dataDir, "votes.bin");
+        this.binary = binaryLog.exists();
+        this.log = binary ? binaryLog : new File(dataDir, "votes.txt");
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Subscribe to tally changes; the listener first receives the current totals as a reset
+     */
+    public synchronized void subscribe(Listener listener) {
+        listener.onDelta(new TallyDelta(true, new LinkedHashMap<>(totals), new LinkedHashMap<>(totals), offset));
+        listeners.add(listener);
+    }
+
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Start following on a daemon thread
+     */
+    public synchronized void start() {
+        if (follower != null) {
+            return;
+        }
+        follower = new Thread(this::follow, "vote-log-follower");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    private void follow() {
+        WatchService watcher = null;
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            dataDir.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                                      StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Polling alone still picks up every change
+            watcher = null;
+        }
+
+        try {
+            while (!closed) {
+                try {
+                    poll();
+                } catch (IOException e) {
+                    System.err.println("Failed to read vote log " + log + ": " + e.getMessage());
+                }
+
+                if (watcher != null) {
+                    WatchKey key = watcher.poll(pollMillis, TimeUnit.MILLISECONDS);
+                    if (key != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                } else {
+                    Thread.sleep(pollMillis);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closing
+        } finally {
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    // nothing left to release
+                }
+            }
+        }
+    }
+
+    /**
+     * Read what was appended to the log since the last check and notify subscribers
+     *
+     * @return the delta sent, or null if nothing changed
+     */
+    public synchronized TallyDelta poll() throws IOException {
+        if (!log.exists()) {
+            return null;
+        }
+
+        boolean reset = false;
+        if (log.length() < offset || TallyCheckpoint.fingerprint(log, offset) != fingerprint) {
+            offset = 0;
+            fingerprint = 0;
+            totals.replaceAll((id, votes) -> 0L);
+            reset = true;
+        }
+        loadCandidates();
+
+        long[] counts = new long[candidateIds.length];
+        long end = binary ? readBinary(counts) : readText(counts);
+        if (end == offset && !reset) {
+            return null;
+        }
+        offset = end;
+        fingerprint = TallyCheckpoint.fingerprint(log, offset);
+
+        Map<String, Long> changes = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            String id = candidateOrder.get(i);
+            if (counts[i] > 0 || reset) {
+                changes.put(id, counts[i]);
+            }
+            totals.merge(id, counts[i], Long::sum);
+        }
+
+        TallyDelta delta = new TallyDelta(reset, changes, new LinkedHashMap<>(totals), offset);
+        for (Listener listener : listeners) {
+            try {
+                listener.onDelta(delta);
+            } catch (RuntimeException e) {
+                System.err.println("Vote log listener failed: " + e.getMessage());
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Re-read candidates.txt when it has changed
+     */
+    private void loadCandidates() throws IOException {
+        File file = new File(dataDir, "candidates.txt");
+        // Candidates are only ever appended, so the length tells a change the timestamp may miss
+        if (!file.exists() || (file.lastModified() == candidatesModified && file.length() == candidatesLength)) {
+            return;
+        }
+        candidatesModified = file.lastModified();
+        candidatesLength = file.length();
+
+        List<String> order = new ArrayList<>();
+        int[] fieldEnds = new int[3];
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#") && LineScanner.colonFields(line, fieldEnds) >= 3) {
+                    String id = line.substring(0, fieldEnds[0]);
+                    if (!order.contains(id)) {
+                        order.add(id);
+                    }
+                }
+            }
+        }
+
+        candidateOrder = order;
+        candidateIds = new byte[order.size()][];
+        for (int i = 0; i < candidateIds.length; i++) {
+            candidateIds[i] = order.get(i).getBytes(StandardCharsets.UTF_8);
+            totals.putIfAbsent(order.get(i), 0L);
+        }
+    }
+
+    /**
+     * Count the complete lines appended to the text log
+     *
+     * @return offset just past the last complete line
+     */
+    private long readText(long[] counts) throws IOException {
+        long[] bounds = ParallelFileReader.lineChunks(log, offset, Long.MAX_VALUE, true);
+        if (bounds.length < 2) {
+            return offset;
+        }
+
+        LineScanner.VoteFields fields = new LineScanner.VoteFields();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            ParallelFileReader.forEachLine(log, bounds[i], bounds[i + 1], (data, start, end) -> {
+                if (LineScanner.locateVoteFields(data, start, end, fields)) {
+                    int candidate = LineScanner.indexOf(candidateIds, data, fields.candidateStart, fields.candidateEnd);
+                    if (candidate >= 0) {
+                        counts[candidate]++;
+                    }
+                }
+            });
+        }
+        return bounds[bounds.length - 1];
+    }
+
+    /**
+     * Count the whole records appended to the binary log, stopping at a corrupt or unfinished one
+     *
+     * @return offset just past the last valid record
+     */
+    private long readBinary(long[] counts) throws IOException {
+        long start = Math.max(BinaryVoteLog.HEADER_SIZE, offset);
+        if (log.length() - start < BinaryVoteLog.RECORD_SIZE) {
+            return offset;
+        }
+        BinaryVoteLog.ReplayResult result = BinaryVoteLog.replay(log, start, (epochNanos, voterDigest, candidate) -> {
+            if (candidate >= 0 && candidate < counts.length) {
+                counts[candidate]++;
+            }
+        });
+        return result.records > 0 ? result.validEndOffset : offset;
+    }
+
+    /**
+     * Votes per candidate ID counted so far
+     */
+    public synchronized Map<String, Long> getTotals() {
+        return new LinkedHashMap<>(totals);
+    }
+
+    /**
+     * Stop following; subscribers receive no further deltas
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread;
+        synchronized (this) {
+            thread = follower;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        listeners.clear();
+    }
+}
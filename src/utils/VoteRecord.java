@@ -0,0 +1,106 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * A single ballot as stored in the text vote log.
+ *
+ * Text records have the form TIMESTAMP:VOTER_HASH:CANDIDATE_ID|CRC, where
+ * CRC is the CRC-32 of the text before the bar in 8 hex digits. The ISO
+ * timestamp itself contains colons, so fields are located from the right.
+ * A record whose checksum does not match was torn or damaged and is
+ * rejected; records written before checksums were added have none and are
+ * accepted as they are.
+ */
+public class VoteRecord {
+
+    public static final char CHECKSUM_SEPARATOR = '|';
+    public static final int CHECKSUM_LENGTH = 9; // separator and 8 hex digits
+
+    private final String timestamp;
+    private final String voterHash;
+    private final String candidateId;
+
+    public VoteRecord(String timestamp, String voterHash, String candidateId) {
+        this.timestamp = timestamp;
+        this.voterHash = voterHash;
+        this.candidateId = candidateId;
+    }
+
+    /**
+     * Parse a line of the text vote log, or return null for comments, blanks and malformed lines
+     */
+    public static VoteRecord parse(String line) {
+        if (line == null) {
+            return null;
+        }
+
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+            return null;
+        }
+
+        int checksumStart = line.length() - CHECKSUM_LENGTH;
+        if (checksumStart > 0 && line.charAt(checksumStart) == CHECKSUM_SEPARATOR) {
+            long stored;
+            try {
+                stored = Long.parseLong(line.substring(checksumStart + 1), 16);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            line = line.substring(0, checksumStart);
+            if (stored != checksum(line)) {
+                return null;
+            }
+        }
+
+        int candidateSep = line.lastIndexOf(':');
+        if (candidateSep <= 0 || candidateSep == line.length() - 1) {
+            return null;
+        }
+
+        int voterSep = line.lastIndexOf(':', candidateSep - 1);
+        if (voterSep <= 0 || voterSep == candidateSep - 1) {
+            return null;
+        }
+
+        return new VoteRecord(line.substring(0, voterSep),
+                              line.substring(voterSep + 1, candidateSep),
+                              line.substring(candidateSep + 1));
+    }
+
+    /**
+     * Format as a line of the text vote log (without line separator)
+     */
+    public String toLine() {
+        return encode(timestamp, voterHash, candidateId);
+    }
+
+    /**
+     * A checksummed line of the text vote log (without line separator)
+     */
+    public static String encode(String timestamp, String voterHash, String candidateId) {
+        String record = timestamp + ":" + voterHash + ":" + candidateId;
+        String crc = Long.toHexString(checksum(record));
+        return record + CHECKSUM_SEPARATOR + "00000000".substring(crc.length()) + crc;
+    }
+
+    private static long checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public String getVoterHash() {
+        return voterHash;
+    }
+
+    public String getCandidateId() {
+        return candidateId;
+    }
+}
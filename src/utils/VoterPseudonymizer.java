@@ -0,0 +1,297 @@
+package utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keyed voter pseudonyms: "VOTER_" followed by the hex HMAC-SHA256 of the
+ * 8-digit voter ID under a per-election key.
+ *
+ * Without the key, pseudonyms cannot be linked back to voter IDs. Distinct
+ * IDs only collide if SHA-256 does. A pseudonym is derived once when a
+ * voter authenticates and kept until their session ends. Optionally, the
+ * whole roll is derived in parallel at session start.
+ */
+public class VoterPseudonymizer {
+
+    public static final String PREFIX = "VOTER_";
+    public static final int DIGEST_SIZE = 32;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_SIZE = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final byte[] PREFIX_BYTES = PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    // Value of each ASCII hex digit in either case, -1 for every other byte
+    private static final byte[] HEX_VALUES = new byte[256];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[Character.forDigit(i, 16)] = (byte) i;
+            HEX_VALUES[Character.toUpperCase(Character.forDigit(i, 16))] = (byte) i;
+        }
+    }
+
+    // Voters between authentication and ballot; beyond this, pseudonyms are derived on demand
+    private static final int MAX_SESSION_CACHE = 100_000;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final Map<Integer, byte[]> sessionCache = new ConcurrentHashMap<>();
+
+    // Precomputed IDs are bucketed by their top bits so a lookup only searches one bucket
+    private static final int BUCKET_SHIFT = 11;
+
+    private volatile Precomputed precomputed = new Precomputed(new int[0], new byte[0]);
+
+    /**
+     * Digests derived ahead of time: sorted IDs, their digests at the same
+     * rank, and the first rank of every bucket
+     */
+    private static class Precomputed {
+        final int[] ids;
+        final byte[] digests;
+        final int[] bucketStart;
+
+        Precomputed(int[] ids, byte[] digests) {
+            this.ids = ids;
+            this.digests = digests;
+            this.bucketStart = new int[(VoterRegistry.ID_SPACE >>> BUCKET_SHIFT) + 2];
+
+            int rank = 0;
+            for (int bucket = 0; bucket < bucketStart.length; bucket++) {
+                while (rank < ids.length && (ids[rank] >>> BUCKET_SHIFT) < bucket) {
+                    rank++;
+                }
+                bucketStart[bucket] = rank;
+            }
+        }
+
+        int rankOf(int voterId) {
+            if (voterId < 0 || voterId >= VoterRegistry.ID_SPACE) {
+                return -1;
+            }
+            int bucket = voterId >>> BUCKET_SHIFT;
+            int rank = Arrays.binarySearch(ids, bucketStart[bucket], bucketStart[bucket + 1], voterId);
+            return rank >= 0 ? rank : -1;
+        }
+    }
+
+    public VoterPseudonymizer(byte[] keyBytes) {
+        this.key = new SecretKeySpec(keyBytes.clone(), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Load the election key, creating a new random one if the file does not exist
+     */
+    public static VoterPseudonymizer open(File keyFile) throws IOException {
+        if (!keyFile.exists()) {
+            return rotate(keyFile);
+        }
+        byte[] keyBytes = Files.readAllBytes(keyFile.toPath());
+        if (keyBytes.length != KEY_SIZE) {
+            throw new IOException("Election key must be " + KEY_SIZE + " bytes: " + keyFile);
+        }
+        return new VoterPseudonymizer(keyBytes);
+    }
+
+    /**
+     * Replace the election key with a fresh random one, written atomically
+     */
+    public static VoterPseudonymizer rotate(File keyFile) throws IOException {
+        byte[] keyBytes = new byte[KEY_SIZE];
+        new SecureRandom().nextBytes(keyBytes);
+        writeKey(keyFile, keyBytes);
+        return new VoterPseudonymizer(keyBytes);
+    }
+
+    /**
+     * Use an election key issued to every booth of an election, so their
+     * pseudonyms match. It is copied to keyFile, where aggregation compares
+     * the keys of the booths.
+     */
+    public static VoterPseudonymizer provision(File sharedKeyFile, File keyFile) throws IOException {
+        if (!sharedKeyFile.isFile()) {
+            throw new FileNotFoundException("Provisioned election key not found: " + sharedKeyFile);
+        }
+        byte[] keyBytes = Files.readAllBytes(sharedKeyFile.toPath());
+        if (keyBytes.length != KEY_SIZE) {
+            throw new IOException("Election key must be " + KEY_SIZE + " bytes: " + sharedKeyFile);
+        }
+        if (!keyFile.exists() || !Arrays.equals(keyBytes, Files.readAllBytes(keyFile.toPath()))) {
+            writeKey(keyFile, keyBytes);
+        }
+        return new VoterPseudonymizer(keyBytes);
+    }
+
+    private static void writeKey(File keyFile, byte[] keyBytes) throws IOException {
+        File temp = new File(keyFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(keyBytes);
+            out.getFD().sync();
+        }
+        Files.move(temp.toPath(), keyFile.toPath(),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * HMAC-SHA256 of the 8-digit form of a voter ID, from the session cache
+     * or the precomputed roll when available. The array may be the cached
+     * one and must not be modified.
+     */
+    public byte[] digest(int voterId) {
+        byte[] cached = sessionCache.get(voterId);
+        return cached != null ? cached : derive(voterId);
+    }
+
+    /**
+     * Pseudonym of a voter, in text form
+     */
+    public String pseudonym(int voterId) {
+        return toPseudonym(digest(voterId));
+    }
+
+    /**
+     * Derive and cache a voter's digest when their session starts
+     */
+    public void beginSession(int voterId) {
+        if (sessionCache.size() < MAX_SESSION_CACHE) {
+            sessionCache.computeIfAbsent(voterId, this::derive);
+        }
+    }
+
+    /**
+     * Forget a voter's cached pseudonym
+     */
+    public void endSession(int voterId) {
+        sessionCache.remove(voterId);
+    }
+
+    /**
+     * Derive digests for a whole roll in parallel, e.g. at session start.
+     * Costs 36 bytes per voter.
+     */
+    public void precompute(int[] voterIds) {
+        int[] ids = voterIds.clone();
+        Arrays.sort(ids);
+        byte[] digests = new byte[ids.length * DIGEST_SIZE];
+
+        IntStream.range(0, ids.length).parallel().forEach(rank ->
+            System.arraycopy(computeDigest(ids[rank]), 0, digests, rank * DIGEST_SIZE, DIGEST_SIZE));
+        precomputed = new Precomputed(ids, digests);
+    }
+
+    public int getPrecomputedCount() {
+        return precomputed.ids.length;
+    }
+
+    /**
+     * Text form of a digest
+     */
+    public static String toPseudonym(byte[] digest) {
+        char[] text = new char[PREFIX.length() + digest.length * 2];
+        PREFIX.getChars(0, PREFIX.length(), text, 0);
+        int pos = PREFIX.length();
+        for (byte b : digest) {
+            text[pos++] = HEX[(b >> 4) & 0xF];
+            text[pos++] = HEX[b & 0xF];
+        }
+        return new String(text);
+    }
+
+    /**
+     * Raw digest of a keyed pseudonym, or null if the text is not one
+     */
+    public static byte[] digestOf(String pseudonym) {
+        if (!isKeyed(pseudonym)) {
+            return null;
+        }
+        byte[] digest = new byte[DIGEST_SIZE];
+        for (int i = 0; i < DIGEST_SIZE; i++) {
+            int pos = PREFIX.length() + i * 2;
+            digest[i] = (byte) ((Character.digit(pseudonym.charAt(pos), 16) << 4)
+                                | Character.digit(pseudonym.charAt(pos + 1), 16));
+        }
+        return digest;
+    }
+
+    /**
+     * Decode a keyed pseudonym held as ASCII bytes into a digest, without allocating
+     *
+     * @return false if the range is not a keyed pseudonym
+     */
+    public static boolean digestOf(byte[] text, int from, int to, byte[] digest) {
+        if (to - from != PREFIX.length() + DIGEST_SIZE * 2) {
+            return false;
+        }
+        for (int i = 0; i < PREFIX_BYTES.length; i++) {
+            if (text[from + i] != PREFIX_BYTES[i]) {
+                return false;
+            }
+        }
+        int invalid = 0;
+        for (int i = 0, pos = from + PREFIX_BYTES.length; i < DIGEST_SIZE; i++, pos += 2) {
+            int high = HEX_VALUES[text[pos] & 0xFF];
+            int low = HEX_VALUES[text[pos + 1] & 0xFF];
+            invalid |= high | low; // negative if either is not a hex digit
+            digest[i] = (byte) ((high << 4) | low);
+        }
+        return invalid >= 0;
+    }
+
+    /**
+     * Check if a pseudonym has the keyed form (as opposed to a legacy hash code)
+     */
+    public static boolean isKeyed(String pseudonym) {
+        if (pseudonym.length() != PREFIX.length() + DIGEST_SIZE * 2 || !pseudonym.startsWith(PREFIX)) {
+            return false;
+        }
+        for (int i = PREFIX.length(); i < pseudonym.length(); i++) {
+            if (Character.digit(pseudonym.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pseudonym format written before keyed pseudonyms, still needed to match old vote logs
+     */
+    public static String legacyPseudonym(String voterID) {
+        return PREFIX + Math.abs(voterID.hashCode());
+    }
+
+    private byte[] derive(int voterId) {
+        Precomputed table = precomputed;
+        int rank = table.rankOf(voterId);
+        if (rank >= 0) {
+            return Arrays.copyOfRange(table.digests, rank * DIGEST_SIZE, (rank + 1) * DIGEST_SIZE);
+        }
+        return computeDigest(voterId);
+    }
+
+    private byte[] computeDigest(int voterId) {
+        byte[] text = VoterRegistry.formatId(voterId).getBytes(StandardCharsets.US_ASCII);
+        return macs.get().doFinal(text);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package utils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Registered voters stored as bits over the 8-digit Aadhaar ID space.
+ *
+ * Every ID from 00000000 to 99999999 owns one bit of a PagedBitSet, so the
+ * full roll of 10^8 IDs takes 12.5 MB while small rolls only allocate the
+ * pages their IDs fall in. Lookups parse the ID in place and never
+ * allocate. Adds and removes are safe to run concurrently with lookups.
+ */
+public class VoterRegistry {
+
+    public static final int ID_SPACE = 100_000_000;
+
+    private final PagedBitSet ids;
+    private final AtomicInteger size;
+
+    public VoterRegistry() {
+        this(new PagedBitSet(ID_SPACE), 0);
+    }
+
+    private VoterRegistry(PagedBitSet ids, int size) {
+        this.ids = ids;
+        this.size = new AtomicInteger(size);
+    }
+
+    /**
+     * Numeric value of an exactly-8-digit ID, or -1 if it is not one
+     */
+    public static int parseId(CharSequence voterID) {
+        if (voterID == null || voterID.length() != 8) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = 0; i < 8; i++) {
+            int digit = voterID.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            id = id * 10 + digit;
+        }
+        return id;
+    }
+
+    /**
+     * The 8-digit form of an ID, with leading zeros
+     */
+    public static String formatId(int id) {
+        char[] digits = new char[8];
+        formatId(id, digits);
+        return new String(digits);
+    }
+
+    /**
+     * Write the 8-digit form of an ID into the first 8 chars of a buffer
+     */
+    public static void formatId(int id, char[] digits) {
+        for (int i = 7; i >= 0; i--) {
+            digits[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+    }
+
+    /**
+     * Check if an ID is registered; IDs that are not 8 digits never are
+     */
+    public boolean contains(String voterID) {
+        int id = parseId(voterID);
+        return id >= 0 && contains(id);
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < ID_SPACE && ids.get(id);
+    }
+
+    /**
+     * Register an ID
+     *
+     * @return false if it was already registered
+     */
+    public boolean add(int id) {
+        checkId(id);
+        if (!ids.set(id)) {
+            return false;
+        }
+        size.incrementAndGet();
+        return true;
+    }
+
+    public boolean add(String voterID) {
+        int id = parseId(voterID);
+        if (id < 0) {
+            throw new IllegalArgumentException("Voter ID must be exactly 8 digits: " + voterID);
+        }
+        return add(id);
+    }
+
+    /**
+     * Unregister an ID
+     *
+     * @return false if it was not registered
+     */
+    public boolean remove(int id) {
+        checkId(id);
+        if (!ids.clear(id)) {
+            return false;
+        }
+        size.decrementAndGet();
+        return true;
+    }
+
+    public boolean remove(String voterID) {
+        int id = parseId(voterID);
+        return id >= 0 && remove(id);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Drop every registration. Callers must ensure no adds race with the clear.
+     */
+    public void clear() {
+        ids.clearAll();
+        size.set(0);
+    }
+
+    /**
+     * Independent copy of the registry. Callers must ensure no adds or removes race with the copy.
+     */
+    public VoterRegistry copy() {
+        return new VoterRegistry(ids.copy(), size());
+    }
+
+    /**
+     * Visit registered IDs in ascending order
+     */
+    public void forEach(IntConsumer action) {
+        ids.forEach(action);
+    }
+
+    /**
+     * Registered IDs, ascending
+     */
+    public int[] toArray() {
+        int[] array = new int[size()];
+        int[] next = new int[1];
+        forEach(id -> {
+            if (next[0] < array.length) {
+                array[next[0]++] = id;
+            }
+        });
+        return next[0] == array.length ? array : Arrays.copyOf(array, next[0]);
+    }
+
+    /**
+     * Registered IDs as 8-digit strings, ascending
+     */
+    public List<String> toList() {
+        List<String> list = new ArrayList<>(size());
+        forEach(id -> list.add(formatId(id)));
+        return list;
+    }
+
+    /**
+     * Approximate heap used by the bit pages and the page directory
+     */
+    public long memoryBytes() {
+        return ids.memoryBytes();
+    }
+
+    private static void checkId(int id) {
+        if (id < 0 || id >= ID_SPACE) {
+            throw new IllegalArgumentException("Voter ID out of range: " + id);
+        }
+    }
+}
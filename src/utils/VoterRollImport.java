@@ -0,0 +1,154 @@
+package utils;
+
+import java.io.*;
+
+/**
+ * Bulk registration and removal of voters from a roll file.
+ *
+ * A roll has one voter per line with the 8-digit ID in a given column of
+ * comma-separated fields; column 0 of a plain list of IDs works too.
+ * Quotes and whitespace around a field are ignored, commas inside quotes
+ * do not split it, and blank lines and lines starting with '#' are
+ * skipped. The file is split into byte ranges that are parsed on the
+ * fork-join pool, each ID applied straight to a copy of the roll. Its
+ * bits are flipped with test-and-set, which drops IDs repeated in the file
+ * or already in the desired state without any extra bookkeeping. The
+ * caller writes the copy out in one pass and swaps it in whole.
+ */
+public class VoterRollImport {
+
+    public enum Mode {
+        ADD,
+        REMOVE
+    }
+
+    /**
+     * What one bulk update found and did
+     */
+    public static class Result {
+        public final Mode mode;
+        public final long rows;      // lines other than blanks and comments
+        public final long changed;   // voters added or removed
+        public final long unchanged; // already registered, repeated, or (removing) not registered
+        public final long invalid;   // no 8-digit ID in the column, e.g. a header row
+        public final int voters;     // roll size afterwards
+        public final boolean applied; // false if the roll would have exceeded the voter capacity
+        public final long nanos;
+
+        Result(Mode mode, Counts counts, int voters, boolean applied, long nanos) {
+            this.mode = mode;
+            this.rows = counts.rows;
+            this.changed = counts.changed;
+            this.unchanged = counts.unchanged;
+            this.invalid = counts.invalid;
+            this.voters = voters;
+            this.applied = applied;
+            this.nanos = nanos;
+        }
+
+        public double rowsPerSecond() {
+            return nanos > 0 ? rows * 1e9 / nanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %d rows: %d %s, %d unchanged, %d invalid; %d voters%s; %.0f rows/sec",
+                                 mode, rows, changed, mode == Mode.ADD ? "added" : "removed", unchanged, invalid,
+                                 voters, applied ? "" : " (not applied: over capacity)", rowsPerSecond());
+        }
+    }
+
+    /**
+     * Row counts of one byte range, summed across ranges
+     */
+    static class Counts {
+        long rows;
+        long changed;
+        long unchanged;
+        long invalid;
+
+        Counts add(Counts other) {
+            rows += other.rows;
+            changed += other.changed;
+            unchanged += other.unchanged;
+            invalid += other.invalid;
+            return this;
+        }
+    }
+
+    private static final int SKIP = -2;
+
+    /**
+     * Apply every ID in a roll file to a registry, in parallel byte ranges
+     */
+    static Counts apply(File rollFile, int column, Mode mode, VoterRegistry roll, long chunkBytes)
+            throws IOException {
+        if (column < 0) {
+            throw new IllegalArgumentException("column must not be negative");
+        }
+        if (!rollFile.isFile()) {
+            throw new FileNotFoundException("Voter roll not found: " + rollFile);
+        }
+
+        long[] chunks = ParallelFileReader.lineChunks(rollFile, 0, chunkBytes, false);
+        Counts counts = ParallelFileReader.parse(chunks, (from, to) -> {
+            Counts partial = new Counts();
+            ParallelFileReader.forEachLine(rollFile, from, to, (data, start, end) -> {
+                int id = parseField(data, start, end, column);
+                if (id == SKIP) {
+                    return;
+                }
+                partial.rows++;
+                if (id < 0) {
+                    partial.invalid++;
+                } else if (mode == Mode.ADD ? roll.add(id) : roll.remove(id)) {
+                    partial.changed++;
+                } else {
+                    partial.unchanged++;
+                }
+            });
+            return partial;
+        }, Counts::add);
+        return counts != null ? counts : new Counts();
+    }
+
+    /**
+     * Voter ID in a column of a roll line, -1 if the field is not 8 digits, SKIP for blanks and comments
+     */
+    static int parseField(byte[] data, int from, int to, int column) {
+        int start = LineScanner.trimStart(data, from, to);
+        if (start == to || data[start] == '#') {
+            return SKIP;
+        }
+
+        // Find the column, stepping over commas inside quotes
+        boolean quoted = false;
+        int field = 0;
+        int fieldStart = start;
+        int fieldEnd = to;
+        for (int i = start; i < to; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                if (field == column) {
+                    fieldEnd = i;
+                    break;
+                }
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+        if (field != column) {
+            return -1;
+        }
+
+        fieldStart = LineScanner.trimStart(data, fieldStart, fieldEnd);
+        fieldEnd = LineScanner.trimEnd(data, fieldStart, fieldEnd);
+        if (fieldEnd - fieldStart >= 2 && data[fieldStart] == '"' && data[fieldEnd - 1] == '"') {
+            fieldStart++;
+            fieldEnd--;
+        }
+        return LineScanner.parseVoterId(data, fieldStart, fieldEnd);
+    }
+}
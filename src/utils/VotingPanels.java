@@ -2,7 +2,6 @@ package utils;
 
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Map;
 import main.VotingSystemApp;
 
 public class VotingPanels {
@@ -20,12 +19,14 @@ public class VotingPanels {
     private TextField candidateIdField, candidateNameField, candidatePartyField;
     private Button addCandidateButton, startSessionButton, stopSessionButton, viewResultsButton, logoutAdminButton;
     private java.awt.List candidatesList;
+    private CandidateRegistry candidatesListed; // what candidatesList shows, null before first fill
 
     private TextField voterIdField;
     private Button voterLoginButton, backToMainButton;
     private TextArea voterInfoArea;
 
     private java.awt.List votingCandidatesList;
+    private CandidateRegistry ballotListed; // what votingCandidatesList shows, null while it shows a message
     private Button castVoteButton, cancelVoteButton;
     private Label selectedCandidateLabel;
     private String selectedCandidateId = "";
@@ -324,10 +325,10 @@ public class VotingPanels {
             @Override
             public void itemStateChanged(ItemEvent e) {
                 if (e.getStateChange() == ItemEvent.SELECTED) {
-                    String selected = votingCandidatesList.getSelectedItem();
-                    if (selected != null) {
-                        selectedCandidateId = selected.split(" - ")[0];
-                        selectedCandidateLabel.setText("Selected: " + selected);
+                    int selected = votingCandidatesList.getSelectedIndex();
+                    if (selected >= 0 && ballotListed != null) {
+                        selectedCandidateId = ballotListed.getId(selected);
+                        selectedCandidateLabel.setText("Selected: " + ballotListed.getDisplay(selected));
                         castVoteButton.setEnabled(true);
                     }
                 }
@@ -416,21 +417,25 @@ public class VotingPanels {
 
     private void drawResultsChart(Graphics g) {
         try {
-            Map<String, Integer> results = dataManager.getVotingResults();
-            if (results.isEmpty()) {
+            CandidateRegistry registry = dataManager.getCandidateRegistry();
+            long[] counts = dataManager.getVoteCounts();
+            int shown = Math.min(registry.size(), counts.length);
+            if (shown == 0) {
                 g.setColor(Color.GRAY);
                 g.setFont(new Font("Arial", Font.PLAIN, 14));
                 g.drawString("No votes cast yet", 50, 100);
                 return;
             }
             int y = 30;
-            int maxVotes = results.values().stream().mapToInt(Integer::intValue).max().orElse(1);
-            for (Map.Entry<String, Integer> entry : results.entrySet()) {
-                String candidate = entry.getKey();
-                int votes = entry.getValue();
+            long maxVotes = 1;
+            for (int i = 0; i < shown; i++) {
+                maxVotes = Math.max(maxVotes, counts[i]);
+            }
+            for (int i = 0; i < shown; i++) {
+                long votes = counts[i];
                 g.setColor(Color.BLACK);
-                g.drawString(candidate, 10, y);
-                int barWidth = (votes * 300) / maxVotes;
+                g.drawString(registry.getResultLabel(i), 10, y);
+                int barWidth = (int) (votes * 300 / maxVotes);
                 g.setColor(VotingSystemApp.PRIMARY_COLOR);
                 g.fillRect(10, y + 5, barWidth, 20);
                 g.setColor(Color.WHITE);
@@ -464,9 +469,15 @@ public class VotingPanels {
                 status.append(activity).append("\n");
             }
             adminStatusArea.setText(status.toString());
-            candidatesList.removeAll();
-            for (String candidate : dataManager.getAllCandidates()) {
-                candidatesList.add(candidate);
+
+            // Refill the list only when the candidates have changed since it was filled
+            CandidateRegistry registry = dataManager.getCandidateRegistry();
+            if (registry != candidatesListed) {
+                candidatesList.removeAll();
+                for (String candidate : registry.getDisplayList()) {
+                    candidatesList.add(candidate);
+                }
+                candidatesListed = registry;
             }
             boolean sessionActive = app.isSessionActive();
             startSessionButton.setEnabled(!sessionActive);
@@ -478,49 +489,64 @@ public class VotingPanels {
 
     private void updateVotingPanel() {
         try {
-            votingCandidatesList.removeAll();
             if (!app.isSessionActive()) {
-                votingCandidatesList.add("No active voting session");
-                castVoteButton.setEnabled(false);
+                showBallotMessage("No active voting session");
                 return;
             }
-            java.util.List<String> candidates = dataManager.getAllCandidates();
-            for (String candidate : candidates) {
-                votingCandidatesList.add(candidate);
+            CandidateRegistry registry = dataManager.getCandidateRegistry();
+            if (registry.size() == 0) {
+                showBallotMessage("No candidates available");
+                return;
             }
-            if (candidates.isEmpty()) {
-                votingCandidatesList.add("No candidates available");
-                castVoteButton.setEnabled(false);
+
+            // Refill the ballot only when the candidates have changed since it was filled
+            if (registry != ballotListed) {
+                votingCandidatesList.removeAll();
+                for (String candidate : registry.getDisplayList()) {
+                    votingCandidatesList.add(candidate);
+                }
+                ballotListed = registry;
             }
         } catch (Exception e) {
-            votingCandidatesList.removeAll();
-            votingCandidatesList.add("Error loading candidates");
-            castVoteButton.setEnabled(false);
+            showBallotMessage("Error loading candidates");
         }
     }
 
+    private void showBallotMessage(String message) {
+        ballotListed = null;
+        votingCandidatesList.removeAll();
+        votingCandidatesList.add(message);
+        castVoteButton.setEnabled(false);
+    }
+
     private void updateResultsPanel() {
         try {
-            Map<String, Integer> results = dataManager.getVotingResults();
+            CandidateRegistry registry = dataManager.getCandidateRegistry();
+            long[] counts = dataManager.getVoteCounts();
+            int shown = Math.min(registry.size(), counts.length);
             StringBuilder resultText = new StringBuilder();
             resultText.append("ELECTION RESULTS SUMMARY\n");
             resultText.append("========================\n\n");
-            if (results.isEmpty()) {
+            if (shown == 0) {
                 resultText.append("No votes have been cast yet.\n");
             } else {
-                int totalVotes = results.values().stream().mapToInt(Integer::intValue).sum();
+                long totalVotes = 0;
+                int winner = 0;
+                for (int i = 0; i < shown; i++) {
+                    totalVotes += counts[i];
+                    if (counts[i] > counts[winner]) {
+                        winner = i;
+                    }
+                }
                 resultText.append("Total Votes Cast: ").append(totalVotes).append("\n\n");
-                String winner = results.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse("No winner");
-                int maxVotes = results.values().stream().mapToInt(Integer::intValue).max().orElse(0);
-                resultText.append("WINNER: ").append(winner).append(" (").append(maxVotes).append(" votes)\n");
+                resultText.append("WINNER: ").append(registry.getResultLabel(winner)).append(" (").append(counts[winner]).append(" votes)\n");
                 for (int i = 0; i < 50; i++) resultText.append("=");
                 resultText.append("\n\n");
                 resultText.append("DETAILED RESULTS:\n");
-                for (Map.Entry<String, Integer> entry : results.entrySet()) {
-                    String candidate = entry.getKey();
-                    int votes = entry.getValue();
+                for (int i = 0; i < shown; i++) {
+                    long votes = counts[i];
                     double percentage = (totalVotes > 0) ? (votes * 100.0 / totalVotes) : 0;
-                    resultText.append(String.format("%-30s: %3d votes (%.1f%%)\n", candidate, votes, percentage));
+                    resultText.append(String.format("%-30s: %3d votes (%.1f%%)\n", registry.getResultLabel(i), votes, percentage));
                 }
             }
             resultText.append("\n\nSession Status: ").append(app.isSessionActive() ? "ACTIVE" : "CLOSED");
@@ -539,6 +565,10 @@ public class VotingPanels {
         voterIdField.setText("");
         selectedCandidateId = "";
         selectedCandidateLabel.setText("No candidate selected");
+        int selected = votingCandidatesList.getSelectedIndex();
+        if (selected >= 0) {
+            votingCandidatesList.deselect(selected); // the ballot is kept between voters
+        }
         castVoteButton.setEnabled(false);
         candidateIdField.setText("");
         candidateNameField.setText("");
@@ -595,6 +625,9 @@ public class VotingPanels {
                     app.stopVotingSession();
                     break;
                 case "VIEW RESULTS":
+                    if (!app.checkAdminSession("Only administrators can view results here.")) {
+                        return;
+                    }
                     updateResultsPanel();
                     app.showPanel(VotingSystemApp.RESULTS_PANEL);
                     break;
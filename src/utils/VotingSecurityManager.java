@@ -1,31 +1,40 @@
 package utils;
 
 import java.io.*;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 import java.time.LocalDateTime;
 
 public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
 
     // Security constants
     private static final String ADMIN_USERNAME = "admin";
-    private static final String ADMIN_PASSWORD_HASH = hashPassword("admin123");
+    // 0 keeps the single SHA-256 hash; otherwise PBKDF2 iterations (see bench.PasswordHashBenchmark)
+    private static final int PASSWORD_KDF_ITERATIONS = Integer.getInteger("voting.password.iterations", 0);
+    private static final String ADMIN_PASSWORD_HASH = PasswordDigests.hash("admin123", PASSWORD_KDF_ITERATIONS);
     private static final int MAX_LOGIN_ATTEMPTS = 3;
     private static final int LOCKOUT_DURATION_MINUTES = 15;
-
-    // Security patterns for validation
-    private static final Pattern AADHAAR_PATTERN = Pattern.compile("^\\d{8}$");
-    private static final Pattern CANDIDATE_ID_PATTERN = Pattern.compile("^[A-Za-z0-9_]{1,10}$");
-    private static final Pattern NAME_PATTERN = Pattern.compile("^[A-Za-z\\s]{2,50}$");
-    private static final Pattern PARTY_PATTERN = Pattern.compile("^[A-Za-z0-9\\s]{2,30}$");
-
-    // Security state tracking
-    private Map<String, Integer> loginAttempts;
-    private Map<String, LocalDateTime> lockedAccounts;
-    private Set<String> activeSessions;
-    private List<String> securityEvents;
+    private static final int EMERGENCY_LOCKOUT_HOURS = 1;
+    private static final int SECURITY_EVENT_HISTORY_SIZE = 200;
+
+    // Recently rejected voter IDs, so IDs retried during a login rush are not checked again
+    private static final int REJECTED_ID_CACHE_SIZE = 4096;
+
+    // Session timeouts and the most sessions open at once
+    private static final int SESSION_IDLE_SECONDS = Integer.getInteger("voting.session.idleSeconds", 600);
+    private static final int SESSION_MAX_SECONDS = Integer.getInteger("voting.session.maxSeconds", 12 * 3600);
+    private static final int MAX_SESSIONS = Integer.getInteger("voting.session.max", 100_000);
+    private static final int SESSIONS_LISTED_IN_REPORT = 20;
+
+    // Most usernames whose failed logins are tracked at once
+    private static final int THROTTLE_CAPACITY = Integer.getInteger("voting.throttle.capacity", 65536);
+
+    // Security state tracking, shared by concurrent request threads
+    private LoginThrottle loginThrottle;
+    private SessionStore activeSessions;
+    private RingHistory<String> securityEvents;
+    private InputValidator.RejectionCache rejectedIds;
     private SecureRandom secureRandom;
 
     // Data reference for validation
@@ -35,10 +44,15 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
      * Constructor
      */
     public VotingSecurityManager() {
-        this.loginAttempts = new HashMap<>();
-        this.lockedAccounts = new HashMap<>();
-        this.activeSessions = new HashSet<>();
-        this.securityEvents = new ArrayList<>();
+        long lockout = TimeUnit.MINUTES.toNanos(LOCKOUT_DURATION_MINUTES);
+        this.loginThrottle = new LoginThrottle(MAX_LOGIN_ATTEMPTS, lockout, lockout, THROTTLE_CAPACITY);
+        this.activeSessions = new SessionStore(TimeUnit.SECONDS.toNanos(SESSION_IDLE_SECONDS),
+                                               TimeUnit.SECONDS.toNanos(SESSION_MAX_SECONDS),
+                                               MAX_SESSIONS, TimeUnit.SECONDS.toNanos(1));
+        this.activeSessions.addListener(session -> endSession(session, "SESSION_EXPIRED", "Session timed out"));
+        this.activeSessions.start();
+        this.securityEvents = new RingHistory<>(SECURITY_EVENT_HISTORY_SIZE);
+        this.rejectedIds = new InputValidator.RejectionCache(REJECTED_ID_CACHE_SIZE);
         this.secureRandom = new SecureRandom();
 
         System.out.println("VotingSecurityManager initialized with enhanced protection");
@@ -69,13 +83,12 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
                 return false;
             }
 
-            // Check credentials
-            boolean authenticated = ADMIN_USERNAME.equals(username) && 
-                                  verifyPassword(password, ADMIN_PASSWORD_HASH);
+            // Check credentials; the password is always verified so a wrong username takes as long
+            boolean passwordMatches = verifyPassword(password, ADMIN_PASSWORD_HASH);
+            boolean authenticated = ADMIN_USERNAME.equals(username) && passwordMatches;
 
             if (authenticated) {
                 resetLoginAttempts(username);
-                addActiveSession(username);
                 logSecurityEvent("ADMIN_AUTH_SUCCESS", username, "Admin authentication successful");
                 return true;
             } else {
@@ -107,19 +120,25 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
                 return false;
             }
 
+            // Derive the voter's pseudonym once, for the check below and for the ballot
+            if (dataManager != null) {
+                dataManager.beginVoterSession(aadhaarID);
+            }
+
             // Check if voter has already voted
             if (dataManager != null && dataManager.hasVoterVoted(aadhaarID)) {
+                dataManager.endVoterSession(aadhaarID);
                 logSecurityEvent("VOTER_AUTH_ALREADY_VOTED", aadhaarID, "Voter has already cast vote");
                 return false;
             }
 
             // Check session status
             if (dataManager != null && !dataManager.isSessionActive()) {
+                dataManager.endVoterSession(aadhaarID);
                 logSecurityEvent("VOTER_AUTH_SESSION_INACTIVE", aadhaarID, "Voting session not active");
                 return false;
             }
 
-            addActiveSession(aadhaarID);
             logSecurityEvent("VOTER_AUTH_SUCCESS", aadhaarID, "Voter authentication successful");
             return true;
 
@@ -133,55 +152,25 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
      * Validate Aadhaar ID format and security
      */
     public boolean isValidAadhaarID(String aadhaarID) {
-        if (aadhaarID == null || aadhaarID.trim().isEmpty()) {
+        if (aadhaarID == null) {
             return false;
         }
 
-        // Check format (8 digits)
-        if (!AADHAAR_PATTERN.matcher(aadhaarID).matches()) {
-            return false;
+        // Format (8 digits), sequential numbers (e.g., 12345678) and repeated digits (e.g., 11111111)
+        int verdict = rejectedIds.get(aadhaarID);
+        if (verdict < 0) {
+            verdict = InputValidator.checkAadhaar(aadhaarID);
+            if (verdict != InputValidator.VALID) {
+                rejectedIds.put(aadhaarID, verdict);
+            }
         }
 
-        // Additional security checks
-        // Check for sequential numbers (e.g., 12345678)
-        if (isSequential(aadhaarID)) {
+        if (verdict == InputValidator.SEQUENTIAL) {
             logSecurityEvent("AADHAAR_VALIDATION", aadhaarID, "Sequential number pattern detected");
-            return false;
-        }
-
-        // Check for repeated digits (e.g., 11111111)
-        if (isRepeatedDigits(aadhaarID)) {
+        } else if (verdict == InputValidator.REPEATED) {
             logSecurityEvent("AADHAAR_VALIDATION", aadhaarID, "Repeated digits pattern detected");
-            return false;
-        }
-
-        return true;
-    }
-
-    /**
-     * Check if string contains sequential numbers
-     */
-    private boolean isSequential(String str) {
-        for (int i = 0; i < str.length() - 1; i++) {
-            if (Character.getNumericValue(str.charAt(i + 1)) != 
-                Character.getNumericValue(str.charAt(i)) + 1) {
-                return false;
-            }
         }
-        return true;
-    }
-
-    /**
-     * Check if string contains all repeated digits
-     */
-    private boolean isRepeatedDigits(String str) {
-        char firstChar = str.charAt(0);
-        for (int i = 1; i < str.length(); i++) {
-            if (str.charAt(i) != firstChar) {
-                return false;
-            }
-        }
-        return true;
+        return verdict == InputValidator.VALID;
     }
 
     /**
@@ -197,122 +186,58 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
      * Validate candidate ID
      */
     public boolean isValidCandidateID(String candidateID) {
-        return candidateID != null && CANDIDATE_ID_PATTERN.matcher(candidateID).matches();
+        return InputValidator.isValidCandidateID(candidateID);
     }
 
     /**
      * Validate candidate name
      */
     public boolean isValidName(String name) {
-        return name != null && NAME_PATTERN.matcher(name.trim()).matches();
+        return InputValidator.isValidName(name);
     }
 
     /**
      * Validate party name
      */
     public boolean isValidPartyName(String party) {
-        return party != null && PARTY_PATTERN.matcher(party.trim()).matches();
+        return InputValidator.isValidPartyName(party);
     }
 
     /**
-     * Sanitize input string
+     * Sanitize input string: drop < > " ' & ; then trim and limit to 100 characters
      */
     public String sanitizeInput(String input) {
-        if (input == null) {
-            return "";
-        }
-
-        // Remove potentially dangerous characters
-        String sanitized = input.replaceAll("[<>\"'&;]", "");
-
-
-        // Trim whitespace
-        sanitized = sanitized.trim();
-
-        // Limit length
-        if (sanitized.length() > 100) {
-            sanitized = sanitized.substring(0, 100);
-        }
-
-        return sanitized;
+        return InputValidator.sanitize(input);
     }
 
     /**
      * Check if input is valid (basic validation)
      */
     private boolean isValidInput(String input) {
-        return input != null && 
-               !input.trim().isEmpty() && 
-               input.length() <= 100 &&
-               !input.contains("<") && 
-               !input.contains(">") &&
-               !input.contains("\\") &&
-               !input.contains("'") &&
-               !input.contains("\"");
+        return InputValidator.isValidInput(input);
     }
 
     /**
-     * Hash password for secure storage
-     */
-    private static String hashPassword(String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes("UTF-8"));
-            StringBuilder hexString = new StringBuilder();
-
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-
-            return hexString.toString();
-
-        } catch (Exception e) {
-            throw new RuntimeException("Password hashing failed", e);
-        }
-    }
-
-    /**
-     * Verify password against hash
+     * Verify password against hash, comparing digests in constant time
      */
     private boolean verifyPassword(String password, String hash) {
-        return hashPassword(password).equals(hash);
+        return PasswordDigests.verify(password, hash);
     }
 
     /**
      * Check if account is locked
      */
     private boolean isAccountLocked(String username) {
-        if (!lockedAccounts.containsKey(username)) {
-            return false;
-        }
-
-        LocalDateTime lockTime = lockedAccounts.get(username);
-        LocalDateTime unlockTime = lockTime.plusMinutes(LOCKOUT_DURATION_MINUTES);
-
-        if (LocalDateTime.now().isAfter(unlockTime)) {
-            lockedAccounts.remove(username);
-            resetLoginAttempts(username);
-            return false;
-        }
-
-        return true;
+        return loginThrottle.isLocked(username);
     }
 
     /**
-     * Increment login attempts for user
+     * Record a failed login; the account locks once MAX_LOGIN_ATTEMPTS fail within the lockout window
      */
     private void incrementLoginAttempts(String username) {
-        int attempts = loginAttempts.getOrDefault(username, 0) + 1;
-        loginAttempts.put(username, attempts);
-
-        if (attempts >= MAX_LOGIN_ATTEMPTS) {
-            lockedAccounts.put(username, LocalDateTime.now());
-            logSecurityEvent("ACCOUNT_LOCKED", username, 
-                           "Account locked after " + attempts + " failed attempts");
+        if (loginThrottle.recordFailure(username)) {
+            logSecurityEvent("ACCOUNT_LOCKED", username,
+                           "Account locked after " + MAX_LOGIN_ATTEMPTS + " failed attempts");
         }
     }
 
@@ -320,29 +245,58 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
      * Reset login attempts for user
      */
     private void resetLoginAttempts(String username) {
-        loginAttempts.remove(username);
+        loginThrottle.reset(username);
+    }
+
+    /**
+     * Open a session for an authenticated user
+     *
+     * @return the session token, or null if the session limit is reached
+     */
+    public String openSession(String userID, String userType) {
+        String token = generateSecureToken();
+        if (activeSessions.create(token, userID, userType) == null) {
+            if ("VOTER".equals(userType) && dataManager != null) {
+                dataManager.endVoterSession(userID);
+            }
+            logSecurityEvent("SESSION_REJECTED", userID, "Limit of " + MAX_SESSIONS + " active sessions reached");
+            return null;
+        }
+        return token;
+    }
+
+    /**
+     * The live session for a token, refreshing its idle timeout; null if unknown or expired
+     */
+    public SessionStore.Session getSession(String token) {
+        return activeSessions.validate(token);
     }
 
     /**
-     * Add active session
+     * End the session of a token, e.g. on logout or after a ballot
      */
-    private void addActiveSession(String userID) {
-        activeSessions.add(userID);
+    public void closeSession(String token) {
+        SessionStore.Session session = activeSessions.remove(token);
+        if (session != null) {
+            endSession(session, "SESSION_END", "User session ended");
+        }
     }
 
     /**
-     * Remove active session
+     * Release what a session held once it has left the store
      */
-    public void removeActiveSession(String userID) {
-        activeSessions.remove(userID);
-        logSecurityEvent("SESSION_END", userID, "User session ended");
+    private void endSession(SessionStore.Session session, String eventType, String description) {
+        if ("VOTER".equals(session.userType) && dataManager != null) {
+            dataManager.endVoterSession(session.userId);
+        }
+        logSecurityEvent(eventType, session.userId, description);
     }
 
     /**
-     * Check if session is active
+     * Stop the session expiry thread
      */
-    public boolean isSessionActive(String userID) {
-        return activeSessions.contains(userID);
+    public void shutdown() {
+        activeSessions.close();
     }
 
     /**
@@ -352,13 +306,9 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
         String timestamp = LocalDateTime.now().toString();
         String event = timestamp + " | " + eventType + " | " + userID + " | " + description;
 
+        // Keep only recent events; the oldest is overwritten once full
         securityEvents.add(event);
 
-        // Keep only recent events to prevent memory issues
-        if (securityEvents.size() > 200) {
-            securityEvents.remove(0);
-        }
-
         // Also log to DataManager if available
         if (dataManager != null) {
             dataManager.logActivity("SECURITY_" + eventType, userID, description);
@@ -463,8 +413,7 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
      * Get security events for monitoring
      */
     public List<String> getRecentSecurityEvents(int count) {
-        int startIndex = Math.max(0, securityEvents.size() - count);
-        return new ArrayList<>(securityEvents.subList(startIndex, securityEvents.size()));
+        return securityEvents.getLast(count);
     }
 
     /**
@@ -473,17 +422,15 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
     public List<String> checkForSuspiciousActivity() {
         List<String> suspiciousActivities = new ArrayList<>();
 
-        // Check for multiple failed login attempts from same user
-        for (Map.Entry<String, Integer> entry : loginAttempts.entrySet()) {
-            if (entry.getValue() >= 2) {
-                suspiciousActivities.add("Multiple failed login attempts from: " + entry.getKey());
+        // Check for multiple failed login attempts from same user, and for locked accounts
+        loginThrottle.forEach((username, recentFailures, lockRemainingNanos) -> {
+            if (lockRemainingNanos > 0) {
+                suspiciousActivities.add("Account locked: " + username + " for another " +
+                                         (TimeUnit.NANOSECONDS.toMinutes(lockRemainingNanos) + 1) + " min");
+            } else if (recentFailures >= 2) {
+                suspiciousActivities.add("Multiple failed login attempts from: " + username);
             }
-        }
-
-        // Check for locked accounts
-        for (Map.Entry<String, LocalDateTime> entry : lockedAccounts.entrySet()) {
-            suspiciousActivities.add("Account locked: " + entry.getKey() + " at " + entry.getValue());
-        }
+        });
 
         // Check for unusual session patterns
         if (activeSessions.size() > 10) {
@@ -504,9 +451,13 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
         report.append("Report Generated: ").append(LocalDateTime.now()).append("\n\n");
 
         report.append("ACTIVE SESSIONS:\n");
-        report.append("- Total Active Sessions: ").append(activeSessions.size()).append("\n");
-        for (String session : activeSessions) {
-            report.append("  - ").append(session).append("\n");
+        List<SessionStore.Session> sessions = activeSessions.getSessions();
+        report.append("- Total Active Sessions: ").append(sessions.size()).append("\n");
+        for (SessionStore.Session session : sessions.subList(0, Math.min(sessions.size(), SESSIONS_LISTED_IN_REPORT))) {
+            report.append("  - ").append(session.userId).append(" (").append(session.userType).append(")\n");
+        }
+        if (sessions.size() > SESSIONS_LISTED_IN_REPORT) {
+            report.append("  - ... and ").append(sessions.size() - SESSIONS_LISTED_IN_REPORT).append(" more\n");
         }
         report.append("\n");
 
@@ -530,8 +481,11 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
 
         report.append("SECURITY STATUS:\n");
         report.append("- System Integrity: ").append(validateSessionIntegrity() ? "PASS" : "FAIL").append("\n");
-        report.append("- Failed Login Attempts: ").append(loginAttempts.size()).append("\n");
-        report.append("- Locked Accounts: ").append(lockedAccounts.size()).append("\n");
+        int[] failing = new int[2];
+        loginThrottle.forEach((username, recentFailures, lockRemainingNanos) ->
+            failing[lockRemainingNanos > 0 ? 1 : 0]++);
+        report.append("- Failed Login Attempts: ").append(failing[0]).append("\n");
+        report.append("- Locked Accounts: ").append(failing[1]).append("\n");
 
         return report.toString();
     }
@@ -540,22 +494,29 @@ public class VotingSecurityManager {  // Fixed: Renamed class to avoid conflict
      * Clear all security state (for system reset)
      */
     public void clearSecurityState() {
-        loginAttempts.clear();
-        lockedAccounts.clear();
-        activeSessions.clear();
+        loginThrottle.clear();
+        endAllSessions();
         logSecurityEvent("SECURITY_RESET", "SYSTEM", "All security state cleared");
     }
 
+    private void endAllSessions() {
+        for (SessionStore.Session session : activeSessions.clear()) {
+            if ("VOTER".equals(session.userType) && dataManager != null) {
+                dataManager.endVoterSession(session.userId);
+            }
+        }
+    }
+
     /**
      * Emergency security lockdown
      */
     public void emergencyLockdown() {
-        activeSessions.clear();
+        endAllSessions();
 
         // Lock all accounts for extended period
         String[] accounts = {"admin"};
         for (String account : accounts) {
-            lockedAccounts.put(account, LocalDateTime.now().plusHours(1));
+            loginThrottle.lock(account, TimeUnit.HOURS.toNanos(EMERGENCY_LOCKOUT_HOURS));
         }
 
         logSecurityEvent("EMERGENCY_LOCKDOWN", "SYSTEM", "Emergency security lockdown activated");
@@ -0,0 +1,124 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BinaryVoteLogTest {
+
+    private static final List<String> CANDIDATES = Arrays.asList("C1", "C2", "C3");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaySkipsDamagedRecordsAndReportsTheTail() throws IOException {
+        File log = folder.newFile("votes.bin");
+        writeLog(log, 10);
+        flipByte(log, 3, 20);
+        flipByte(log, 4, 40);
+        flipByte(log, 9, 0);
+
+        List<Integer> candidates = new ArrayList<>();
+        BinaryVoteLog.ReplayResult result =
+            BinaryVoteLog.replay(log, (epochNanos, digest, candidate) -> candidates.add(candidate));
+
+        assertEquals(Arrays.asList(0, 1, 2, 2, 0, 1, 2), candidates);
+        assertEquals(7, result.records);
+        assertEquals(2, result.skippedRecords);
+        assertEquals(1, result.trailingCorruptRecords());
+        assertEquals(offset(9), result.validEndOffset);
+        assertEquals(offset(10), result.endOffset);
+    }
+
+    @Test
+    public void rangesReplayTheWholeLog() throws IOException {
+        File log = folder.newFile("votes.bin");
+        writeLog(log, 25);
+        flipByte(log, 12, 47);
+
+        long[] whole = new long[CANDIDATES.size()];
+        BinaryVoteLog.ReplayResult all = BinaryVoteLog.replay(log, (epochNanos, digest, c) -> whole[c]++);
+
+        long[] split = new long[CANDIDATES.size()];
+        long records = 0;
+        long skipped = 0;
+        for (int from = 0; from < 25; from += 7) {
+            BinaryVoteLog.ReplayResult part = BinaryVoteLog.replay(log, offset(from), offset(Math.min(from + 7, 25)),
+                                                                   (epochNanos, digest, c) -> split[c]++);
+            records += part.records;
+            skipped += part.skippedRecords + part.trailingCorruptRecords();
+        }
+
+        assertArrayEquals(whole, split);
+        assertEquals(all.records, records);
+        assertEquals(1, skipped);
+    }
+
+    @Test
+    public void textConversionRoundTrips() throws IOException {
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+        new Random(3).nextBytes(digest);
+        List<String> voters = Arrays.asList(VoterPseudonymizer.toPseudonym(digest),
+                                            VoterPseudonymizer.legacyPseudonym("12345678"));
+
+        File text = folder.newFile("votes.txt");
+        try (PrintWriter writer = new PrintWriter(text)) {
+            writer.println("# Vote Records");
+            writer.println(VoteRecord.encode("2025-01-01T08:00:00.123456", voters.get(0), "C2"));
+            writer.println("2024-05-01T09:30:00.5:" + voters.get(1) + ":C3");
+        }
+        File binary = new File(folder.getRoot(), "votes.bin");
+        File back = new File(folder.getRoot(), "votes-back.txt");
+
+        assertEquals(2, BinaryVoteLog.convertTextToBinary(text, binary, CANDIDATES));
+        assertEquals(2, BinaryVoteLog.convertBinaryToText(binary, back, CANDIDATES));
+
+        List<VoteRecord> records = new ArrayList<>();
+        for (String line : Files.readAllLines(back.toPath())) {
+            VoteRecord record = VoteRecord.parse(line);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        assertEquals(2, records.size());
+        assertEquals(voters.get(0), records.get(0).getVoterHash());
+        assertEquals("C2", records.get(0).getCandidateId());
+        assertEquals("2025-01-01T08:00:00.123456", records.get(0).getTimestamp());
+        assertEquals(voters.get(1), records.get(1).getVoterHash());
+        assertEquals("C3", records.get(1).getCandidateId());
+    }
+
+    /**
+     * A log of records whose candidate is the record number modulo three
+     */
+    static void writeLog(File log, int records) throws IOException {
+        BinaryVoteLog.writeHeader(log);
+        try (OutputStream out = new FileOutputStream(log, true)) {
+            for (int i = 0; i < records; i++) {
+                byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+                digest[0] = (byte) i;
+                out.write(BinaryVoteLog.encodeRecord(1_000_000_000L * i, digest, i % CANDIDATES.size()));
+            }
+        }
+    }
+
+    static void flipByte(File log, int record, int byteInRecord) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            long position = offset(record) + byteInRecord;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 0x10);
+        }
+    }
+
+    static long offset(int record) {
+        return BinaryVoteLog.HEADER_SIZE + (long) record * BinaryVoteLog.RECORD_SIZE;
+    }
+}
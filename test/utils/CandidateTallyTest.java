@@ -0,0 +1,47 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+import org.junit.Test;
+
+public class CandidateTallyTest {
+
+    @Test
+    public void concurrentIncrementsAreAllCounted() throws Exception {
+        CandidateTally tally = new CandidateTally(3, 4);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 30_000; i++) {
+                    tally.increment(i % 3);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+        assertArrayEquals(new long[] {80_000, 80_000, 80_000}, tally.snapshot());
+        assertArrayEquals(tally.snapshot(), tally.trySnapshot());
+        assertEquals(240_000, tally.total());
+        assertTrue(tally.getTotalRetries() >= 0);
+    }
+
+    @Test
+    public void resizeKeepsCounts() {
+        CandidateTally tally = new CandidateTally(2, 8);
+        tally.add(0, 5);
+        tally.add(1, 7);
+
+        CandidateTally resized = tally.resize(3);
+        assertArrayEquals(new long[] {5, 7, 0}, resized.trySnapshot());
+        resized.increment(2);
+        assertEquals(1, resized.get(2));
+        assertEquals(8, resized.getStripeCount());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void unknownCandidate() {
+        new CandidateTally(2, 1).increment(2);
+    }
+}
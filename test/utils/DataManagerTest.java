@@ -0,0 +1,220 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Vote recording and replay through DataManager on a scratch data directory.
+ *
+ * Runs once per vote log format: the build repeats this class with
+ * voting.binaryVoteLog set, since DataManager reads it once per JVM.
+ */
+public class DataManagerTest {
+
+    private static final boolean BINARY = Boolean.getBoolean("voting.binaryVoteLog");
+    private static final String[] CANDIDATES = {"C1", "C2", "C3", "C4"};
+    private static final int VOTERS = 2000;
+    private static final int FIRST_VOTER = 10_000_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dataDir;
+    private final List<DataManager> opened = new ArrayList<>();
+
+    @Before
+    public void writeElection() throws IOException {
+        dataDir = folder.newFolder("data");
+        try (PrintWriter writer = new PrintWriter(new File(dataDir, "voters.txt"))) {
+            writer.println("# Registered Voters Database");
+            for (int i = 0; i < VOTERS; i++) {
+                writer.println(voter(i));
+            }
+        }
+        try (PrintWriter writer = new PrintWriter(new File(dataDir, "candidates.txt"))) {
+            for (String id : CANDIDATES) {
+                writer.println(id + ":Candidate " + id + ":Party " + id);
+            }
+        }
+    }
+
+    @After
+    public void shutdown() {
+        for (DataManager manager : opened) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void concurrentBallotsAreCountedOnce() throws Exception {
+        DataManager manager = open();
+        manager.clearVotingData();
+        manager.setSessionStatus(true);
+
+        // Every thread tries every voter, each starting at a different voter
+        int threads = 8;
+        AtomicIntegerArray accepted = new AtomicIntegerArray(VOTERS);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * VOTERS / threads;
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < VOTERS; i++) {
+                    int v = (offset + i) % VOTERS;
+                    if (manager.recordVote(voter(v), candidateOf(v))) {
+                        accepted.incrementAndGet(v);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        pool.shutdown();
+
+        for (int v = 0; v < VOTERS; v++) {
+            assertEquals("ballots accepted for voter " + voter(v), 1, accepted.get(v));
+            assertTrue(manager.hasVoterVoted(voter(v)));
+        }
+        assertEquals(VOTERS, manager.getTotalVotes());
+        assertEquals(expectedCounts(VOTERS), manager.getVotingResults());
+
+        manager.shutdown();
+        assertSameState(manager, open(), VOTERS);
+    }
+
+    @Test
+    public void restartMatchesWithAndWithoutCheckpoint() throws Exception {
+        DataManager manager = open();
+        manager.clearVotingData();
+        manager.setSessionStatus(true);
+        castVotes(manager, 0, 700);
+        manager.saveSystemState();
+        castVotes(manager, 700, 1150);
+
+        // Reopened while the first is still running, as after a crash: checkpoint plus the log tail
+        assertTrue(new File(dataDir, "tally.checkpoint").exists());
+        DataManager fromCheckpoint = open();
+        assertSameState(manager, fromCheckpoint, 1150);
+
+        // The whole log replayed
+        File checkpoint = new File(dataDir, "tally.checkpoint");
+        assertTrue(checkpoint.delete());
+        DataManager fromLog = open();
+        assertSameState(manager, fromLog, 1150);
+
+        // Voters restored either way cannot vote again
+        fromLog.setSessionStatus(true);
+        assertFalse(fromLog.recordVote(voter(3), candidateOf(3)));
+        assertTrue(fromLog.recordVote(voter(1500), candidateOf(1500)));
+    }
+
+    @Test
+    public void checkpointOfAReplacedLogIsIgnored() throws Exception {
+        DataManager manager = open();
+        manager.clearVotingData();
+        manager.setSessionStatus(true);
+        castVotes(manager, 0, 300);
+        manager.shutdown();
+        File checkpoint = new File(dataDir, "tally.checkpoint");
+        byte[] kept = Files.readAllBytes(checkpoint.toPath());
+
+        // A new session under a new key that outgrows the old log, then the old checkpoint put back
+        manager = open();
+        manager.clearVotingData();
+        manager.setSessionStatus(true);
+        castVotes(manager, 0, 400);
+        manager.shutdown();
+        Files.write(checkpoint.toPath(), kept);
+
+        DataManager restarted = open();
+        assertSameState(manager, restarted, 400);
+    }
+
+    @Test
+    public void legacyPseudonymsAreMatchedOnReplay() throws Exception {
+        File textLog = new File(dataDir, "votes.txt");
+        try (PrintWriter writer = new PrintWriter(textLog)) {
+            writer.println("# Vote Records");
+            for (int v = 0; v < 50; v++) {
+                writer.println("2024-05-01T09:00:00.000:" + VoterPseudonymizer.legacyPseudonym(voter(v)) + ":" +
+                               candidateOf(v));
+            }
+        }
+        if (BINARY) {
+            BinaryVoteLog.convertTextToBinary(textLog, new File(dataDir, "votes.bin"), Arrays.asList(CANDIDATES));
+        }
+
+        DataManager manager = open();
+        manager.setSessionStatus(true);
+        assertEquals(50, manager.getTotalVotes());
+        assertEquals(expectedCounts(50), manager.getVotingResults());
+        assertTrue(manager.hasVoterVoted(voter(0)));
+        assertFalse(manager.hasVoterVoted(voter(50)));
+        assertFalse(manager.recordVote(voter(7), candidateOf(7)));
+
+        // Keyed ballots join the legacy ones and both survive a checkpoint
+        castVotes(manager, 50, 80);
+        manager.shutdown();
+        assertSameState(manager, open(), 80);
+    }
+
+    private DataManager open() throws IOException {
+        DataManager manager = new DataManager(dataDir);
+        opened.add(manager);
+        manager.initializeDataFiles();
+        return manager;
+    }
+
+    private static void castVotes(DataManager manager, int from, int to) throws IOException {
+        for (int v = from; v < to; v++) {
+            assertTrue(manager.recordVote(voter(v), candidateOf(v)));
+        }
+    }
+
+    /**
+     * The restarted manager holds the same tally and the same voters as the original
+     */
+    private static void assertSameState(DataManager original, DataManager restarted, int voted) {
+        assertEquals(voted, restarted.getTotalVotes());
+        assertEquals(expectedCounts(voted), restarted.getVotingResults());
+        assertEquals(original.getVotingResults(), restarted.getVotingResults());
+        for (int v = 0; v < VOTERS; v++) {
+            assertEquals("voter " + voter(v), v < voted, restarted.hasVoterVoted(voter(v)));
+        }
+        assertEquals(0, restarted.getDamagedVoteRecords());
+    }
+
+    /**
+     * Results when voters 0 .. voted - 1 have cast their ballots
+     */
+    private static Map<String, Integer> expectedCounts(int voted) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int c = 0; c < CANDIDATES.length; c++) {
+            counts.put("Candidate " + CANDIDATES[c] + " (Party " + CANDIDATES[c] + ")",
+                       (voted + CANDIDATES.length - 1 - c) / CANDIDATES.length);
+        }
+        return counts;
+    }
+
+    private static String voter(int index) {
+        return String.valueOf(FIRST_VOTER + index * 7);
+    }
+
+    private static String candidateOf(int index) {
+        return CANDIDATES[index % CANDIDATES.length];
+    }
+}
@@ -0,0 +1,182 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.junit.Test;
+
+/**
+ * The byte-level parsers used at startup against the String parsers and the
+ * original readLine loaders they replaced, on hand-picked and mutated lines.
+ */
+public class LineScannerTest {
+
+    private static final String TIMESTAMP = "2025-01-01T08:00:00.123456";
+    private static final String MUTATIONS = "0123456789abcdefVOTER_: |#\t";
+
+    @Test
+    public void voterIdsMatchTheRegexLoader() {
+        List<String> lines = new ArrayList<>(Arrays.asList(
+            "12345678", "00000001", "99999999", "  12345678  ", "\t12345678\r", "1234567", "123456789",
+            "1234567a", "+1234567", "-1234567", "# 12345678", "#1234567", "", "   ", "1234 5678",
+            "١٢٣٤٥٦٧٨", "12345678 "));
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            lines.add(mutate(VoterRegistry.formatId(random.nextInt(100_000_000)), random));
+        }
+
+        for (String line : lines) {
+            int expected = legacyVoterId(line);
+            assertEquals(line, expected, VoterRegistry.parseId(line.trim()));
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            assertEquals(line, expected, LineScanner.parseVoterId(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void voteFieldsMatchVoteRecordParse() {
+        Random random = new Random(11);
+        for (String line : voteLines(random)) {
+            VoteRecord record = VoteRecord.parse(line);
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            LineScanner.VoteFields fields = new LineScanner.VoteFields();
+
+            boolean located = LineScanner.locateVoteFields(bytes, 0, bytes.length, fields);
+            assertEquals(line, record != null, located);
+            if (located) {
+                assertEquals(line, record.getTimestamp(), text(bytes, fields.timestampStart, fields.voterStart - 1));
+                assertEquals(line, record.getVoterHash(), text(bytes, fields.voterStart, fields.voterEnd));
+                assertEquals(line, record.getCandidateId(), text(bytes, fields.candidateStart, fields.candidateEnd));
+            }
+        }
+    }
+
+    /**
+     * Lines without checksums are read as the split loader read them. The
+     * split loader also took lines with empty trailing fields, which are
+     * now rejected, so only accepted lines are compared.
+     */
+    @Test
+    public void uncheckedVoteLinesMatchTheSplitLoader() {
+        Random random = new Random(13);
+        int compared = 0;
+        for (String line : voteLines(random)) {
+            VoteRecord record = VoteRecord.parse(line);
+            if (record == null || line.indexOf(VoteRecord.CHECKSUM_SEPARATOR) >= 0) {
+                continue;
+            }
+            String[] legacy = legacySplit(line);
+            assertNotNull(line, legacy);
+            assertEquals(line, legacy[0], record.getVoterHash());
+            assertEquals(line, legacy[1], record.getCandidateId());
+            compared++;
+        }
+        assertTrue(compared > 1000);
+    }
+
+    @Test
+    public void checksummedRecordsRoundTrip() {
+        String voter = VoterPseudonymizer.toPseudonym(new byte[DigestSet.DIGEST_SIZE]);
+        String line = VoteRecord.encode(TIMESTAMP, voter, "C12");
+        VoteRecord record = VoteRecord.parse(line);
+        assertEquals(TIMESTAMP, record.getTimestamp());
+        assertEquals(voter, record.getVoterHash());
+        assertEquals("C12", record.getCandidateId());
+        assertEquals(line, record.toLine());
+
+        // Any other character changed fails the checksum; without the bar the line has no checksum
+        int separator = line.length() - VoteRecord.CHECKSUM_LENGTH;
+        for (int i = 0; i < line.length(); i++) {
+            if (i == separator) {
+                continue;
+            }
+            char[] chars = line.toCharArray();
+            chars[i] = chars[i] == '0' ? '1' : '0';
+            assertNull(new String(chars), VoteRecord.parse(new String(chars)));
+        }
+    }
+
+    @Test
+    public void colonFieldsMatchSplit() {
+        Random random = new Random(17);
+        int[] ends = new int[3];
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = new char[1 + random.nextInt(8)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = "ab:".charAt(random.nextInt(3));
+            }
+            String line = new String(chars);
+
+            String[] parts = line.split(":");
+            int fields = LineScanner.colonFields(line, ends);
+            assertEquals(line, Math.min(parts.length, ends.length), fields);
+            for (int f = 0; f < fields; f++) {
+                int start = f == 0 ? 0 : ends[f - 1] + 1;
+                assertEquals(line, parts[f], line.substring(start, ends[f]));
+            }
+        }
+    }
+
+    /**
+     * Hand-picked vote log lines in every format, then random single-character edits of valid ones
+     */
+    private static List<String> voteLines(Random random) {
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+        random.nextBytes(digest);
+        String keyed = VoterPseudonymizer.toPseudonym(digest);
+        String legacy = VoterPseudonymizer.legacyPseudonym("12345678");
+
+        List<String> valid = Arrays.asList(
+            VoteRecord.encode(TIMESTAMP, keyed, "C1"),
+            VoteRecord.encode(TIMESTAMP, legacy, "C2"),
+            TIMESTAMP + ":" + keyed + ":C3",
+            TIMESTAMP + ":" + legacy + ":C4",
+            "2024-05-01T09:00:00:" + legacy + ":C10");
+        List<String> lines = new ArrayList<>(Arrays.asList(
+            "", "   ", "# Vote Records", "#" + TIMESTAMP + ":" + legacy + ":C1", "no colons", ":" + legacy + ":C1",
+            TIMESTAMP + "::C1", TIMESTAMP + ":" + legacy + ":", TIMESTAMP + ":" + legacy + ":C1:",
+            legacy + ":C1", "  " + valid.get(0) + "\r", "\t" + valid.get(2) + "  ",
+            valid.get(0).substring(0, valid.get(0).length() - 1) + "g",
+            valid.get(0).substring(0, valid.get(0).length() - 2)));
+        lines.addAll(valid);
+
+        for (int i = 0; i < 20_000; i++) {
+            String line = valid.get(random.nextInt(valid.size()));
+            lines.add(random.nextInt(4) == 0 ? line.substring(0, random.nextInt(line.length())) : mutate(line, random));
+        }
+        return lines;
+    }
+
+    private static String mutate(String line, Random random) {
+        char[] chars = line.toCharArray();
+        chars[random.nextInt(chars.length)] = MUTATIONS.charAt(random.nextInt(MUTATIONS.length()));
+        return new String(chars);
+    }
+
+    private static String text(byte[] data, int from, int to) {
+        return new String(data, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    // Original voters.txt loader
+    private static int legacyVoterId(String line) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#") && line.matches("\\d{8}")) {
+            return Integer.parseInt(line);
+        }
+        return -1;
+    }
+
+    // Original votes.txt loader: voter hash and candidate ID, or null
+    private static String[] legacySplit(String line) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+            return null;
+        }
+        String[] parts = line.split(":");
+        if (parts.length < 3) {
+            return null;
+        }
+        return new String[] {parts[parts.length - 2], parts[parts.length - 1]};
+    }
+}
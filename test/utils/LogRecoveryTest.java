@@ -0,0 +1,84 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogRecoveryTest {
+
+    private static final String VOTER = VoterPseudonymizer.legacyPseudonym("12345678");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void textLogLosesOnlyTheTornTail() throws IOException {
+        File log = folder.newFile("votes.txt");
+        String intact = "# Vote Records\n" +
+                        VoteRecord.encode("2025-01-01T08:00:00", VOTER, "C1") + "\n" +
+                        "2024-05-01T09:00:00:" + VOTER + ":C2\n";
+        String damaged = VoteRecord.encode("2025-01-01T08:00:01", VOTER, "C1").replace(":C1", ":C2") + "\n";
+        String torn = VoteRecord.encode("2025-01-01T08:00:02", VOTER, "C3").substring(0, 20);
+        write(log, intact + damaged + torn);
+
+        LogRecovery.Result result = LogRecovery.recoverTextLog(log);
+
+        assertEquals(damaged.length() + torn.length(), result.truncatedBytes);
+        assertEquals(1, result.droppedRecords);
+        assertEquals(intact, new String(Files.readAllBytes(log.toPath()), StandardCharsets.UTF_8));
+        assertTrue(LogRecovery.recoverTextLog(log).isClean());
+    }
+
+    @Test
+    public void textLogKeepsDamageBeforeAnIntactRecord() throws IOException {
+        File log = folder.newFile("votes.txt");
+        String content = "\0\0\0\0\n" + VoteRecord.encode("2025-01-01T08:00:00", VOTER, "C1") + "\n";
+        write(log, content);
+
+        assertTrue(LogRecovery.recoverTextLog(log).isClean());
+        assertEquals(content.length(), log.length());
+    }
+
+    @Test
+    public void binaryLogLosesOnlyTheTornTail() throws IOException {
+        File log = folder.newFile("votes.bin");
+        BinaryVoteLogTest.writeLog(log, 6);
+        BinaryVoteLogTest.flipByte(log, 2, 8);
+        BinaryVoteLogTest.flipByte(log, 5, 8);
+        try (OutputStream out = new FileOutputStream(log, true)) {
+            out.write(new byte[BinaryVoteLog.RECORD_SIZE / 2]);
+        }
+
+        LogRecovery.Result result = LogRecovery.recoverBinaryLog(log);
+
+        assertEquals(1, result.droppedRecords);
+        assertEquals(BinaryVoteLog.RECORD_SIZE * 3 / 2, result.truncatedBytes);
+        assertEquals(BinaryVoteLogTest.offset(5), log.length());
+
+        // The damaged record before intact ones is left for replay to skip
+        BinaryVoteLog.ReplayResult replay = BinaryVoteLog.replay(log, (epochNanos, digest, candidate) -> { });
+        assertEquals(4, replay.records);
+        assertEquals(1, replay.skippedRecords);
+    }
+
+    @Test
+    public void binaryLogWithoutHeaderIsRecreated() throws IOException {
+        File log = folder.newFile("votes.bin");
+        write(log, "DVL");
+
+        LogRecovery.Result result = LogRecovery.recoverBinaryLog(log);
+
+        assertEquals(3, result.truncatedBytes);
+        assertEquals(BinaryVoteLog.HEADER_SIZE, log.length());
+        assertEquals(0, BinaryVoteLog.replay(log, (epochNanos, digest, candidate) -> { }).records);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
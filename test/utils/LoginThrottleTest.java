@@ -0,0 +1,70 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class LoginThrottleTest {
+
+    private static final long WINDOW = TimeUnit.MINUTES.toNanos(15);
+
+    @Test
+    public void locksAfterMaxFailures() {
+        LoginThrottle throttle = new LoginThrottle(3, WINDOW, WINDOW, 1024);
+        assertFalse(throttle.recordFailure("admin"));
+        assertFalse(throttle.recordFailure("admin"));
+        assertTrue(throttle.recordFailure("admin"));
+        assertTrue(throttle.isLocked("admin"));
+        assertFalse(throttle.isLocked("other"));
+    }
+
+    /**
+     * Usernames sharing String.hashCode with "admin" would all land in its
+     * bucket under an unseeded hash and push its failures out before the
+     * third one locks it.
+     */
+    @Test
+    public void collidingUsernamesDoNotEvictFailures() {
+        List<String> colliding = sameHashCodeAs("admin");
+        assertEquals(80, colliding.size());
+
+        LoginThrottle throttle = new LoginThrottle(3, WINDOW, WINDOW, 4096);
+        assertFalse(throttle.recordFailure("admin"));
+        assertFalse(throttle.recordFailure("admin"));
+        for (String username : colliding) {
+            throttle.recordFailure(username);
+        }
+
+        assertTrue(throttle.recordFailure("admin"));
+        assertTrue(throttle.isLocked("admin"));
+    }
+
+    /**
+     * Strings of the same length whose String.hashCode equals the given one.
+     * Adding 1 to one character and subtracting 31 from the next leaves the
+     * hash code unchanged; each adjacent pair is shifted by -1, 0 or 1.
+     */
+    private static List<String> sameHashCodeAs(String target) {
+        int pairs = target.length() - 1;
+        int combinations = (int) Math.pow(3, pairs);
+        List<String> strings = new ArrayList<>();
+        for (int combination = 0; combination < combinations; combination++) {
+            char[] chars = target.toCharArray();
+            int digits = combination;
+            for (int i = 0; i < pairs; i++) {
+                int shift = digits % 3 - 1;
+                digits /= 3;
+                chars[i] += shift;
+                chars[i + 1] -= 31 * shift;
+            }
+            String string = new String(chars);
+            assertEquals(target.hashCode(), string.hashCode());
+            if (!string.equals(target)) {
+                strings.add(string);
+            }
+        }
+        return strings;
+    }
+}
@@ -0,0 +1,84 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class SessionStoreTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    public void sessionsLiveUntilRemoved() {
+        SessionStore store = new SessionStore(HOUR, HOUR, 10, TICK);
+        SessionStore.Session session = store.create("t1", "12345678", "VOTER");
+
+        assertSame(session, store.validate("t1"));
+        assertNull(store.validate("t2"));
+        assertNull(store.validate(null));
+        assertEquals(1, store.size());
+
+        assertSame(session, store.remove("t1"));
+        assertNull(store.remove("t1"));
+        assertNull(store.validate("t1"));
+        assertEquals(0, store.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tokensAreUnique() {
+        SessionStore store = new SessionStore(HOUR, HOUR, 10, TICK);
+        store.create("t1", "admin", "ADMIN");
+        store.create("t1", "12345678", "VOTER");
+    }
+
+    @Test
+    public void storeIsCapped() {
+        SessionStore store = new SessionStore(HOUR, HOUR, 2, TICK);
+        assertNotNull(store.create("t1", "a", "VOTER"));
+        assertNotNull(store.create("t2", "b", "VOTER"));
+        assertNull(store.create("t3", "c", "VOTER"));
+
+        store.remove("t1");
+        assertNotNull(store.create("t3", "c", "VOTER"));
+        assertEquals(2, store.clear().size());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void idleSessionsExpire() throws InterruptedException {
+        SessionStore store = new SessionStore(TimeUnit.MILLISECONDS.toNanos(200), HOUR, 10, TICK);
+        List<String> expired = Collections.synchronizedList(new ArrayList<>());
+        store.addListener(session -> expired.add(session.token));
+
+        store.create("idle", "a", "VOTER");
+        store.create("checked", "b", "VOTER");
+        store.create("busy", "c", "VOTER");
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(40);
+            assertNotNull(store.validate("busy"));
+        }
+
+        // One found expired on use, one cleared by the wheel
+        assertNull(store.validate("checked"));
+        assertEquals(1, store.expire());
+        assertEquals(new HashSet<>(Arrays.asList("idle", "checked")), new HashSet<>(expired));
+        assertNotNull(store.validate("busy"));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void sessionsEndAtTheAbsoluteLimit() throws InterruptedException {
+        SessionStore store = new SessionStore(HOUR, TimeUnit.MILLISECONDS.toNanos(300), 10, TICK);
+        store.create("t1", "a", "VOTER");
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(store.validate("t1"));
+            Thread.sleep(10);
+        }
+        Thread.sleep(300);
+        assertNull(store.validate("t1"));
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,130 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TallyAggregatorTest {
+
+    private static final String TIMESTAMP = "2025-01-01T08:00:00.000001";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] key;
+    private VoterPseudonymizer keys;
+    private File north;
+    private File south;
+
+    @Before
+    public void writeBooths() throws IOException {
+        key = new byte[32];
+        new Random(21).nextBytes(key);
+        keys = new VoterPseudonymizer(key);
+        north = booth("north", "C1", "C2");
+        south = booth("south", "C2", "C3");
+    }
+
+    @Test
+    public void boothsAreCountedOnceAcrossFormats() throws IOException {
+        appendText(north, 1, "C1", 2, "C2", 3, "C1");
+        // Voter 3 also voted at the south booth, whose log is binary
+        appendText(south, 3, "C3", 4, "C3", 5, "C2");
+        toBinary(south, "C2", "C3");
+
+        TallyAggregator aggregator = new TallyAggregator();
+        aggregator.addBooth("north", north);
+        aggregator.addBooth("south", south);
+
+        assertEquals(6, aggregator.refresh());
+        assertEquals(tally(2, 2, 1), aggregator.getTally());
+        assertEquals(5, aggregator.getTotalVotes());
+        assertEquals(1, aggregator.getDuplicateBallots());
+        assertEquals("Name C2 (Party C2)", aggregator.getCandidateLabel("C2"));
+
+        // Only what was appended is read next time
+        appendText(north, 6, "C2");
+        assertEquals(1, aggregator.refresh());
+        assertEquals(0, aggregator.refresh());
+        assertEquals(tally(2, 3, 1), aggregator.getTally());
+        assertEquals(0, aggregator.getRebuildCount());
+    }
+
+    @Test
+    public void replacedLogRebuildsTheTally() throws IOException {
+        appendText(north, 1, "C1", 2, "C2");
+        TallyAggregator aggregator = new TallyAggregator();
+        aggregator.addBooth("north", north);
+        aggregator.refresh();
+
+        // A new session whose log has grown past the old one
+        writeVotesHeader(north);
+        appendText(north, 7, "C2", 8, "C2", 9, "C2");
+        aggregator.refresh();
+
+        assertEquals(1, aggregator.getRebuildCount());
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("C1", 0L);
+        expected.put("C2", 3L);
+        assertEquals(expected, aggregator.getTally());
+    }
+
+    @Test(expected = IOException.class)
+    public void boothsMustShareTheElectionKey() throws IOException {
+        VoterPseudonymizer.rotate(new File(south, "election.key"));
+        TallyAggregator aggregator = new TallyAggregator();
+        aggregator.addBooth("north", north);
+        aggregator.addBooth("south", south);
+        aggregator.refresh();
+    }
+
+    private File booth(String name, String... candidates) throws IOException {
+        File dir = folder.newFolder(name);
+        try (PrintWriter writer = new PrintWriter(new File(dir, "candidates.txt"))) {
+            for (String id : candidates) {
+                writer.println(id + ":Name " + id + ":Party " + id);
+            }
+        }
+        Files.write(new File(dir, "election.key").toPath(), key);
+        writeVotesHeader(dir);
+        return dir;
+    }
+
+    private static void writeVotesHeader(File dir) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new File(dir, "votes.txt"))) {
+            writer.println("# Vote Records");
+        }
+    }
+
+    /**
+     * Append ballots given as voter number, candidate ID pairs
+     */
+    private void appendText(File dir, Object... ballots) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(dir, "votes.txt"), true))) {
+            for (int i = 0; i < ballots.length; i += 2) {
+                int voter = 10_000_000 + (Integer) ballots[i];
+                writer.println(VoteRecord.encode(TIMESTAMP, keys.pseudonym(voter), (String) ballots[i + 1]));
+            }
+        }
+    }
+
+    private static void toBinary(File dir, String... candidates) throws IOException {
+        File text = new File(dir, "votes.txt");
+        BinaryVoteLog.convertTextToBinary(text, new File(dir, "votes.bin"), Arrays.asList(candidates));
+        assertTrue(text.delete());
+    }
+
+    private static Map<String, Long> tally(long c1, long c2, long c3) {
+        Map<String, Long> tally = new LinkedHashMap<>();
+        tally.put("C1", c1);
+        tally.put("C2", c2);
+        tally.put("C3", c3);
+        return tally;
+    }
+}
@@ -0,0 +1,104 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TallyCheckpointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File log;
+    private File checkpoint;
+
+    @Before
+    public void writeLog() throws IOException {
+        log = folder.newFile("votes.bin");
+        BinaryVoteLogTest.writeLog(log, 10);
+        checkpoint = new File(folder.getRoot(), "tally.checkpoint");
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        DigestSet first = digests(0, 40);
+        DigestSet second = digests(40, 100);
+        Map<String, Integer> counts = new HashMap<>();
+        counts.put("C1", 60);
+        counts.put("C2", 42);
+        Set<String> legacy = Collections.singleton(VoterPseudonymizer.legacyPseudonym("12345678"));
+
+        long offset = BinaryVoteLogTest.offset(7);
+        TallyCheckpoint.write(checkpoint, log, true, offset, counts, Arrays.asList(first, second), legacy);
+        TallyCheckpoint read = TallyCheckpoint.read(checkpoint, log, true);
+
+        assertNotNull(read);
+        assertTrue(read.isBinaryLog());
+        assertEquals(offset, read.getLogOffset());
+        assertEquals(counts, read.getVoteCount());
+        assertEquals(legacy, read.getLegacyVoters());
+        assertEquals(100, read.getKeyedVoters().size());
+        digests(0, 100).forEach(digest -> assertTrue(read.getKeyedVoters().contains(digest)));
+        assertFalse(read.getKeyedVoters().contains(digest(100)));
+    }
+
+    @Test
+    public void checkpointMustMatchTheLog() throws IOException {
+        long offset = BinaryVoteLogTest.offset(7);
+        TallyCheckpoint.write(checkpoint, log, true, offset, Collections.emptyMap(),
+                              Collections.singletonList(digests(0, 5)), Collections.emptySet());
+        assertNotNull(TallyCheckpoint.read(checkpoint, log, true));
+
+        // Other format
+        assertNull(TallyCheckpoint.read(checkpoint, log, false));
+
+        // Appending to the log keeps it valid
+        try (OutputStream out = new FileOutputStream(log, true)) {
+            out.write(BinaryVoteLog.encodeRecord(0, new byte[DigestSet.DIGEST_SIZE], 1));
+        }
+        assertNotNull(TallyCheckpoint.read(checkpoint, log, true));
+
+        // A different log of at least the same length
+        BinaryVoteLogTest.writeLog(log, 12);
+        BinaryVoteLogTest.flipByte(log, 6, 3);
+        assertNull(TallyCheckpoint.read(checkpoint, log, true));
+
+        // A shorter log
+        BinaryVoteLogTest.writeLog(log, 5);
+        assertNull(TallyCheckpoint.read(checkpoint, log, true));
+    }
+
+    @Test
+    public void damagedCheckpointIsIgnored() throws IOException {
+        TallyCheckpoint.write(checkpoint, log, true, BinaryVoteLogTest.offset(10), Collections.singletonMap("C1", 10),
+                              Collections.singletonList(digests(0, 10)), Collections.emptySet());
+        byte[] bytes = Files.readAllBytes(checkpoint.toPath());
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(checkpoint.toPath(), bytes);
+
+        assertNull(TallyCheckpoint.read(checkpoint, log, true));
+        assertNull(TallyCheckpoint.read(new File(folder.getRoot(), "missing"), log, true));
+    }
+
+    private static DigestSet digests(int from, int to) {
+        DigestSet set = new DigestSet();
+        for (int i = from; i < to; i++) {
+            set.add(digest(i));
+        }
+        return set;
+    }
+
+    private static byte[] digest(int number) {
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+        digest[0] = (byte) number;
+        digest[1] = (byte) (number >> 8);
+        digest[17] = 1;
+        return digest;
+    }
+}
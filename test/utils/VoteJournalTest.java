@@ -0,0 +1,211 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VoteJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void concurrentRecordsAreAllWrittenInBatches() throws Exception {
+        File file = folder.newFile("votes.txt");
+        int threads = 8;
+        int perThread = 200;
+        try (VoteJournal journal = new VoteJournal(file, 500, 64)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.appendLine("record " + thread + "/" + i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            pool.shutdown();
+
+            assertEquals(threads * perThread, journal.getRecordsCommitted());
+            assertTrue(journal.getBatchesCommitted() < journal.getRecordsCommitted());
+        }
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(threads * perThread, lines.size());
+        assertEquals(threads * perThread, new HashSet<>(lines).size());
+    }
+
+    @Test
+    public void failedBatchIsCutFromTheFile() throws IOException {
+        File file = folder.newFile("votes.txt");
+        FaultyChannel channel = new FaultyChannel(file);
+        try (VoteJournal journal = new VoteJournal(file, channel, 0, 16)) {
+            journal.appendLine("first");
+
+            // The bytes reach the file but cannot be forced
+            channel.failForces = 1;
+            try {
+                journal.appendLine("lost");
+                fail("append reported success");
+            } catch (IOException expected) {
+            }
+            assertEquals("first" + System.lineSeparator(), read(file));
+
+            journal.appendLine("third");
+        }
+        assertEquals(Arrays.asList("first", "third"), Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    public void journalStopsWhenAFailedBatchCannotBeCut() throws IOException {
+        File file = folder.newFile("votes.txt");
+        FaultyChannel channel = new FaultyChannel(file);
+        try (VoteJournal journal = new VoteJournal(file, channel, 0, 16)) {
+            journal.appendLine("first");
+
+            channel.failForces = 1;
+            channel.failTruncate = true;
+            try {
+                journal.appendLine("unknown");
+                fail("append reported success");
+            } catch (IOException expected) {
+            }
+
+            channel.failTruncate = false;
+            try {
+                journal.appendLine("refused");
+                fail("append accepted after an unrecoverable failure");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("stopped"));
+            }
+        }
+        assertFalse(read(file).contains("refused"));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * File channel whose next forces or truncates can be made to fail
+     */
+    private static class FaultyChannel extends FileChannel {
+        private final FileChannel file;
+        volatile int failForces;
+        volatile boolean failTruncate;
+
+        FaultyChannel(File path) throws IOException {
+            file = FileChannel.open(path.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failForces > 0) {
+                failForces--;
+                throw new IOException("injected force failure");
+            }
+            file.force(metaData);
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("injected truncate failure");
+            }
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return file.write(src);
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return file.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return file.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return file.write(srcs, offset, length);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return file.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return file.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return file.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+}
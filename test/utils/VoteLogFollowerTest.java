@@ -0,0 +1,99 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VoteLogFollowerTest {
+
+    private static final String TIMESTAMP = "2025-01-01T08:00:00.000001";
+    private static final String VOTER = VoterPseudonymizer.toPseudonym(new byte[DigestSet.DIGEST_SIZE]);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+
+    @Before
+    public void writeCandidates() throws IOException {
+        dir = folder.newFolder("data");
+        try (PrintWriter writer = new PrintWriter(new File(dir, "candidates.txt"))) {
+            writer.println("# Candidates Database");
+            writer.println("C1:Name 1:Party 1");
+            writer.println("C2:Name 2:Party 2");
+        }
+    }
+
+    @Test
+    public void textLogDeltas() throws IOException {
+        File log = new File(dir, "votes.txt");
+        append(log, "# Vote Records\n" + line("C1") + line("C2") + line("C1"));
+        VoteLogFollower follower = new VoteLogFollower(dir, 1000);
+        List<VoteLogFollower.TallyDelta> received = new ArrayList<>();
+        follower.subscribe(received::add);
+
+        VoteLogFollower.TallyDelta first = follower.poll();
+        assertEquals(totals(2, 1), first.totals);
+        assertEquals(log.length(), first.logOffset);
+        assertNull(follower.poll());
+
+        // A torn line is left until it is complete
+        String next = line("C2");
+        append(log, next.substring(0, 10));
+        assertNull(follower.poll());
+        append(log, next.substring(10));
+        VoteLogFollower.TallyDelta second = follower.poll();
+        assertFalse(second.reset);
+        assertEquals(Collections.singletonMap("C2", 1L), second.changes);
+        assertEquals(totals(2, 2), second.totals);
+
+        // Replaced by a new session's log
+        try (PrintWriter writer = new PrintWriter(log)) {
+            writer.print("# Vote Records of session 2\n" + line("C2") + line("C2") + line("C2") + line("C2") + line("C2"));
+        }
+        VoteLogFollower.TallyDelta third = follower.poll();
+        assertTrue(third.reset);
+        assertEquals(totals(0, 5), third.totals);
+        assertEquals(totals(0, 5), follower.getTotals());
+
+        // The subscriber saw the initial totals and every delta
+        assertEquals(4, received.size());
+        assertTrue(received.get(0).reset);
+        assertSame(third, received.get(3));
+    }
+
+    @Test
+    public void binaryLogWaitsAtADamagedLastRecord() throws IOException {
+        File log = new File(dir, "votes.bin");
+        BinaryVoteLogTest.writeLog(log, 4);
+        VoteLogFollower follower = new VoteLogFollower(dir, 1000);
+        assertEquals(totals(2, 1), follower.poll().totals); // candidate index 2 is not listed
+
+        BinaryVoteLogTest.writeLog(log, 6);
+        BinaryVoteLogTest.flipByte(log, 5, 9);
+        assertEquals(totals(2, 2), follower.poll().totals);
+        assertNull(follower.poll());
+    }
+
+    private static String line(String candidate) {
+        return VoteRecord.encode(TIMESTAMP, VOTER, candidate) + "\n";
+    }
+
+    private static void append(File log, String text) throws IOException {
+        try (Writer writer = new FileWriter(log, true)) {
+            writer.write(text);
+        }
+    }
+
+    private static Map<String, Long> totals(long c1, long c2) {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totals.put("C1", c1);
+        totals.put("C2", c2);
+        return totals;
+    }
+}
@@ -0,0 +1,108 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VoterPseudonymizerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void digestIsTheSameFromEverySource() {
+        byte[] key = new byte[32];
+        new Random(5).nextBytes(key);
+        VoterPseudonymizer computed = new VoterPseudonymizer(key);
+        VoterPseudonymizer cached = new VoterPseudonymizer(key);
+        VoterPseudonymizer precomputed = new VoterPseudonymizer(key);
+        precomputed.precompute(new int[] {99_999_999, 12_345_678, 0});
+        assertEquals(3, precomputed.getPrecomputedCount());
+
+        for (int id : new int[] {0, 12_345_678, 99_999_999, 55_555_555}) {
+            cached.beginSession(id);
+            byte[] expected = computed.digest(id);
+            assertEquals(DigestSet.DIGEST_SIZE, expected.length);
+            assertArrayEquals(expected, cached.digest(id));
+            assertArrayEquals(expected, precomputed.digest(id));
+            cached.endSession(id);
+            assertArrayEquals(expected, cached.digest(id));
+            assertEquals(VoterPseudonymizer.toPseudonym(expected), computed.pseudonym(id));
+        }
+
+        assertFalse(Arrays.equals(computed.digest(1), computed.digest(2)));
+        key[0] ^= 1;
+        assertFalse(Arrays.equals(computed.digest(1), new VoterPseudonymizer(key).digest(1)));
+    }
+
+    @Test
+    public void pseudonymTextRoundTrips() {
+        Random random = new Random(9);
+        byte[] digest = new byte[DigestSet.DIGEST_SIZE];
+        byte[] decoded = new byte[DigestSet.DIGEST_SIZE];
+        for (int i = 0; i < 2000; i++) {
+            random.nextBytes(digest);
+            String pseudonym = VoterPseudonymizer.toPseudonym(digest);
+            assertTrue(VoterPseudonymizer.isKeyed(pseudonym));
+            assertArrayEquals(digest, VoterPseudonymizer.digestOf(pseudonym));
+
+            // Both decoders accept and reject the same text
+            char[] chars = pseudonym.toCharArray();
+            chars[random.nextInt(chars.length)] = "0aF_Vg: ".charAt(random.nextInt(8));
+            String edited = new String(chars);
+            byte[] bytes = edited.getBytes(StandardCharsets.UTF_8);
+            byte[] expected = VoterPseudonymizer.digestOf(edited);
+            assertEquals(edited, expected != null, VoterPseudonymizer.digestOf(bytes, 0, bytes.length, decoded));
+            if (expected != null) {
+                assertArrayEquals(edited, expected, decoded);
+            }
+        }
+
+        String legacy = VoterPseudonymizer.legacyPseudonym("12345678");
+        assertFalse(VoterPseudonymizer.isKeyed(legacy));
+        assertNull(VoterPseudonymizer.digestOf(legacy));
+    }
+
+    @Test
+    public void keyFileIsKeptUntilRotated() throws IOException {
+        File keyFile = new File(folder.getRoot(), "election.key");
+        VoterPseudonymizer first = VoterPseudonymizer.open(keyFile);
+        assertEquals(32, keyFile.length());
+        assertArrayEquals(first.digest(12_345_678), VoterPseudonymizer.open(keyFile).digest(12_345_678));
+
+        VoterPseudonymizer rotated = VoterPseudonymizer.rotate(keyFile);
+        assertFalse(Arrays.equals(first.digest(12_345_678), rotated.digest(12_345_678)));
+        assertArrayEquals(rotated.digest(12_345_678), VoterPseudonymizer.open(keyFile).digest(12_345_678));
+
+        Files.write(keyFile.toPath(), new byte[16]);
+        try {
+            VoterPseudonymizer.open(keyFile);
+            fail("short key accepted");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void provisionedKeyIsSharedByBooths() throws IOException {
+        File shared = folder.newFile("shared.key");
+        byte[] key = new byte[32];
+        new Random(1).nextBytes(key);
+        Files.write(shared.toPath(), key);
+
+        File booth1 = new File(folder.newFolder("booth1"), "election.key");
+        File booth2 = new File(folder.newFolder("booth2"), "election.key");
+        VoterPseudonymizer.rotate(booth2);
+
+        byte[] digest1 = VoterPseudonymizer.provision(shared, booth1).digest(12_345_678);
+        byte[] digest2 = VoterPseudonymizer.provision(shared, booth2).digest(12_345_678);
+        assertArrayEquals(digest1, digest2);
+        assertArrayEquals(key, Files.readAllBytes(booth2.toPath()));
+    }
+}
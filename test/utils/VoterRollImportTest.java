@@ -0,0 +1,69 @@
+package utils;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class VoterRollImportTest {
+
+    private static final String ROLL =
+        "name,voter_id,ward\n" +
+        "# exported 2025-01-01\n" +
+        "\"Rao, Anil\",12345678,W1\n" +
+        "Priya,  23456789 ,W2\n" +
+        "\"Das, \"\"Mitu\"\"\",\"34567890\",W3\n" +
+        "\n" +
+        "Repeat,12345678,W1\n" +
+        "Short,1234567,W1\n" +
+        "Missing\n" +
+        "Last,45678901,W4";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void addAndRemoveACsvColumn() throws IOException {
+        File roll = folder.newFile("roll.csv");
+        Files.write(roll.toPath(), ROLL.getBytes(StandardCharsets.UTF_8));
+        VoterRegistry registry = new VoterRegistry();
+        registry.add(45678901);
+
+        // Small ranges, so lines are split across many of them
+        VoterRollImport.Counts added = VoterRollImport.apply(roll, 1, VoterRollImport.Mode.ADD, registry, 16);
+        assertEquals(8, added.rows);
+        assertEquals(3, added.changed);
+        assertEquals(2, added.unchanged);
+        assertEquals(3, added.invalid);
+        assertEquals(4, registry.size());
+        for (String id : new String[] {"12345678", "23456789", "34567890", "45678901"}) {
+            assertTrue(id, registry.contains(id));
+        }
+
+        VoterRollImport.Counts removed = VoterRollImport.apply(roll, 1, VoterRollImport.Mode.REMOVE, registry, 1 << 20);
+        assertEquals(4, removed.changed);
+        assertEquals(1, removed.unchanged);
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void fieldParsing() {
+        assertEquals(12345678, parse("12345678", 0));
+        assertEquals(12345678, parse("a,\" 12345678 \",b", 1));
+        assertEquals(12345678, parse("\"x,y\",12345678", 1));
+        assertEquals(-1, parse("12345678", 1));
+        assertEquals(-1, parse("a,,b", 1));
+        assertEquals(-1, parse("voter_id", 0));
+        assertTrue(parse("  # comment", 0) < -1);
+        assertTrue(parse("   ", 0) < -1);
+    }
+
+    private static int parse(String line, int column) {
+        byte[] data = line.getBytes(StandardCharsets.UTF_8);
+        return VoterRollImport.parseField(data, 0, data.length, column);
+    }
+}